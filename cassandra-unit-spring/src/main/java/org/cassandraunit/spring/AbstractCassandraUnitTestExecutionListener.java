@@ -1,13 +1,22 @@
 package org.cassandraunit.spring;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 
 import org.cassandraunit.CQLDataLoader;
 import org.cassandraunit.DataLoader;
+import org.cassandraunit.KeyspacePool;
+import org.cassandraunit.LoadingOption;
+import org.cassandraunit.dataset.CQLDataSet;
 import org.cassandraunit.dataset.ClassPathDataSet;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.CQLSessionRegistry;
 import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -16,7 +25,6 @@ import org.springframework.test.context.support.AbstractTestExecutionListener;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ResourceUtils;
 
-import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.Session;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
@@ -31,6 +39,16 @@ import com.google.common.base.Preconditions;
 public abstract class AbstractCassandraUnitTestExecutionListener extends AbstractTestExecutionListener {
   private static final org.slf4j.Logger LOGGER      = LoggerFactory.getLogger(CassandraUnitTestExecutionListener.class);
   private static       boolean          initialized = false;
+  private static final Map<String, KeyspacePool> pools = new HashMap<String, KeyspacePool>();
+  private static final ThreadLocal<PooledKeyspaceLease> pooledKeyspaceLease = new ThreadLocal<PooledKeyspaceLease>();
+
+  /**
+   * @return the keyspace leased by the current test, when its @CassandraDataSet has a pool size
+   */
+  public static KeyspacePool.PooledKeyspace getPooledKeyspace() {
+    PooledKeyspaceLease lease = pooledKeyspaceLease.get();
+    return lease == null ? null : lease.pooledKeyspace;
+  }
 
   protected void startServer(TestContext testContext) throws Exception {
     EmbeddedCassandra embeddedCassandra = Preconditions.checkNotNull(
@@ -47,7 +65,9 @@ public abstract class AbstractCassandraUnitTestExecutionListener extends Abstrac
     Preconditions.checkArgument(port > 0, "@EmbeddedCassandra port must not be > 0");
 
     CassandraDataSet cassandraDataSet = AnnotationUtils.findAnnotation(testContext.getTestInstance().getClass(), CassandraDataSet.class);
-    if (cassandraDataSet != null) {
+    if (cassandraDataSet != null && cassandraDataSet.poolSize() > 0) {
+      leasePooledKeyspace(testContext, cassandraDataSet, clusterName, host, port);
+    } else if (cassandraDataSet != null) {
       List<String> dataset = null;
       ListIterator<String> datasetIterator = null;
       String keyspace = cassandraDataSet.keyspace();
@@ -57,14 +77,17 @@ public abstract class AbstractCassandraUnitTestExecutionListener extends Abstrac
           dataset = dataSetLocations(testContext, cassandraDataSet);
           datasetIterator = dataset.listIterator();
 
-          Cluster cluster = new Cluster.Builder().addContactPoints(host).withPort(port).build();
-          Session session = cluster.connect();
-          
-          CQLDataLoader cqlDataLoader = new CQLDataLoader(session);
-          while (datasetIterator.hasNext()) {
-            String next = datasetIterator.next();
-            boolean dropAndCreateKeyspace = datasetIterator.previousIndex() == 0;
-            cqlDataLoader.load(new ClassPathCQLDataSet(next, dropAndCreateKeyspace, dropAndCreateKeyspace, keyspace));
+          Session session = CQLSessionRegistry.acquire(host, port);
+          try {
+            CQLDataLoader cqlDataLoader = new CQLDataLoader(session);
+            while (datasetIterator.hasNext()) {
+              String next = datasetIterator.next();
+              boolean dropAndCreateKeyspace = datasetIterator.previousIndex() == 0;
+              cqlDataLoader.load(new ClassPathCQLDataSet(next, dropAndCreateKeyspace, dropAndCreateKeyspace, true, keyspace,
+                      tableFilter(cassandraDataSet), rowSampling(cassandraDataSet)));
+            }
+          } finally {
+            CQLSessionRegistry.release(session);
           }
           break;
         default:
@@ -74,13 +97,89 @@ public abstract class AbstractCassandraUnitTestExecutionListener extends Abstrac
           while (datasetIterator.hasNext()) {
             String next = datasetIterator.next();
             boolean dropAndCreateKeyspace = datasetIterator.previousIndex() == 0;
-            dataLoader.load(new ClassPathDataSet(next), dropAndCreateKeyspace);
+            dataLoader.load(new ClassPathDataSet(next, tableFilter(cassandraDataSet), rowSampling(cassandraDataSet)),
+                    dropAndCreateKeyspace);
           }
       }
     }
 
   }
 
+  private void leasePooledKeyspace(TestContext testContext, CassandraDataSet cassandraDataSet, String clusterName,
+                                   String host, int port) {
+    Preconditions.checkState(pooledKeyspaceLease.get() == null, "A pooled keyspace is already leased by this test");
+    List<String> dataset = dataSetLocations(testContext, cassandraDataSet);
+    String keyspace = cassandraDataSet.keyspace();
+    String key = cassandraDataSet.type() + ":" + keyspace + ":" + dataset + ":"
+            + Arrays.toString(cassandraDataSet.includedTables()) + ":" + Arrays.toString(cassandraDataSet.excludedTables())
+            + ":" + cassandraDataSet.samplingRatio() + ":" + cassandraDataSet.samplingSeed()
+            + ":" + Arrays.toString(cassandraDataSet.samplingJoins())
+            + "@" + host + ":" + port;
+    LoadingOption loadingOption = new LoadingOption();
+    loadingOption.setTableFilter(tableFilter(cassandraDataSet));
+    loadingOption.setRowSampling(rowSampling(cassandraDataSet));
+    KeyspacePool pool;
+    synchronized (pools) {
+      pool = pools.get(key);
+      if (pool == null) {
+        switch (cassandraDataSet.type()) {
+          case cql:
+            pool = new KeyspacePool(new ConcatenatedCQLDataSet(dataset, keyspace), cassandraDataSet.poolSize(),
+                    loadingOption, host, port);
+            break;
+          default:
+            Preconditions.checkArgument(dataset.size() == 1, "Pooled keyspaces need a single dataset, not " + dataset);
+            pool = new KeyspacePool(new ClassPathDataSet(dataset.get(0)), cassandraDataSet.poolSize(),
+                    loadingOption, clusterName, host + ":" + port);
+        }
+        pools.put(key, pool);
+      }
+    }
+    pooledKeyspaceLease.set(new PooledKeyspaceLease(pool, pool.lease()));
+  }
+
+  /* null when the annotation does not restrict the tables to load */
+  private TableFilter tableFilter(CassandraDataSet cassandraDataSet) {
+    if (cassandraDataSet.includedTables().length == 0 && cassandraDataSet.excludedTables().length == 0) {
+      return null;
+    }
+    return new TableFilter(cassandraDataSet.includedTables(), cassandraDataSet.excludedTables());
+  }
+
+  /* null when the annotation loads all the partitions */
+  private RowSampling rowSampling(CassandraDataSet cassandraDataSet) {
+    if (cassandraDataSet.samplingRatio() >= 1) {
+      return null;
+    }
+    RowSampling rowSampling = new RowSampling(cassandraDataSet.samplingRatio(), cassandraDataSet.samplingSeed());
+    for (String samplingJoin : cassandraDataSet.samplingJoins()) {
+      String[] tables = samplingJoin.split("=");
+      Preconditions.checkArgument(tables.length == 2, "Sampling joins must be given as table=referencedTable, not " + samplingJoin);
+      rowSampling.join(tables[0].trim(), tables[1].trim());
+    }
+    return rowSampling;
+  }
+
+  /**
+   * give the keyspace leased by the current test back to its pool
+   *
+   * @return false if the test did not lease any
+   */
+  protected boolean releasePooledKeyspace() {
+    PooledKeyspaceLease lease = pooledKeyspaceLease.get();
+    if (lease == null) {
+      return false;
+    }
+    pooledKeyspaceLease.remove();
+    lease.pool.release(lease.pooledKeyspace);
+    return true;
+  }
+
+  protected boolean isKeyspacePooled(TestContext testContext) {
+    CassandraDataSet cassandraDataSet = AnnotationUtils.findAnnotation(testContext.getTestClass(), CassandraDataSet.class);
+    return cassandraDataSet != null && cassandraDataSet.poolSize() > 0;
+  }
+
   private List<String> dataSetLocations(TestContext testContext, CassandraDataSet cassandraDataSet) {
     String[] dataset = cassandraDataSet.value();
     if (dataset.length == 0) {
@@ -99,7 +198,17 @@ public abstract class AbstractCassandraUnitTestExecutionListener extends Abstrac
     return Arrays.asList(dataset);
   }
 
+  /**
+   * pooled keyspaces being dropped too, pools are closed and will load new copies when needed
+   */
   protected void cleanServer() {
+    synchronized (pools) {
+      for (KeyspacePool pool : pools.values()) {
+        pool.close();
+      }
+      pools.clear();
+    }
+    pooledKeyspaceLease.remove();
     EmbeddedCassandraServerHelper.cleanEmbeddedCassandra();
   }
 
@@ -111,4 +220,54 @@ public abstract class AbstractCassandraUnitTestExecutionListener extends Abstrac
     }
   }
 
+  private static class PooledKeyspaceLease {
+    private final KeyspacePool pool;
+    private final KeyspacePool.PooledKeyspace pooledKeyspace;
+
+    private PooledKeyspaceLease(KeyspacePool pool, KeyspacePool.PooledKeyspace pooledKeyspace) {
+      this.pool = pool;
+      this.pooledKeyspace = pooledKeyspace;
+    }
+  }
+
+  /* the datasets of the annotation loaded one after the other into the same keyspace, as one dataset to copy */
+  private static class ConcatenatedCQLDataSet implements CQLDataSet {
+    private final List<String> locations;
+    private final String keyspace;
+
+    private ConcatenatedCQLDataSet(List<String> locations, String keyspace) {
+      this.locations = locations;
+      this.keyspace = keyspace;
+    }
+
+    @Override
+    public List<String> getCQLStatements() {
+      List<String> statements = new ArrayList<String>();
+      for (String location : locations) {
+        statements.addAll(new ClassPathCQLDataSet(location, false, false, keyspace).getCQLStatements());
+      }
+      return statements;
+    }
+
+    @Override
+    public String getKeyspaceName() {
+      return keyspace;
+    }
+
+    @Override
+    public boolean isKeyspaceCreation() {
+      return true;
+    }
+
+    @Override
+    public boolean isKeyspaceDeletion() {
+      return true;
+    }
+
+    @Override
+    public boolean isUseKeyspace() {
+      return true;
+    }
+  }
+
 }
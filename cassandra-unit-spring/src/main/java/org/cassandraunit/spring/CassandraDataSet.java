@@ -49,4 +49,15 @@ public @interface CassandraDataSet {
   // Only needed if CQL
   String keyspace() default "cassandra_unit_keyspace";
   DataSetFileExtensionEnum type() default DataSetFileExtensionEnum.cql;
+  // When greater than 0, each test leases a copy of the dataset from a pool of that many copies loaded in the background
+  int poolSize() default 0;
+  // Tables (column families) to load, all of them when empty, with their schema and data
+  String[] includedTables() default {};
+  // Tables (column families) not to load
+  String[] excludedTables() default {};
+  // When lower than 1, part of the partitions of each table to load, always the same ones for the same seed
+  double samplingRatio() default 1;
+  long samplingSeed() default 0;
+  // "table=referencedTable" : partitions of table are loaded when the same partition key is loaded in referencedTable
+  String[] samplingJoins() default {};
 }
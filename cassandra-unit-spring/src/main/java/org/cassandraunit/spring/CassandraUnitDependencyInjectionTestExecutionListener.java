@@ -23,6 +23,10 @@ public class CassandraUnitDependencyInjectionTestExecutionListener extends Abstr
 
   @Override
   public void afterTestMethod(TestContext testContext) throws Exception {
+    if (releasePooledKeyspace()) {
+      // the next test instance leases a clean copy
+      return;
+    }
     if (Boolean.TRUE.equals(testContext.getAttribute(DependencyInjectionTestExecutionListener.REINJECT_DEPENDENCIES_ATTRIBUTE))) {
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("Cleaning and reloading server for test context [" + testContext + "].");
@@ -34,7 +38,9 @@ public class CassandraUnitDependencyInjectionTestExecutionListener extends Abstr
 
   @Override
   public void afterTestClass(TestContext testContext) throws Exception {
-    cleanServer();
+    if (!isKeyspacePooled(testContext)) {
+      cleanServer();
+    }
   }
 
 }
@@ -20,7 +20,9 @@ public class CassandraUnitTestExecutionListener extends AbstractCassandraUnitTes
 
     @Override
     public void afterTestMethod(TestContext testContext) throws Exception {
-        cleanServer();
+        if (!releasePooledKeyspace()) {
+            cleanServer();
+        }
     }
 
 }
@@ -1,13 +1,11 @@
 package org.cassandraunit;
 
-import com.datastax.driver.core.CloseFuture;
 import org.cassandraunit.dataset.CQLDataSet;
 import org.junit.After;
 import org.junit.Before;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.Session;
 
 /**
@@ -21,7 +19,6 @@ public abstract class AbstractCassandraUnit4CQLTestCase {
     private CassandraCQLUnit cassandraUnit;
     private boolean initialized = false;
     private Session session;
-    private Cluster cluster;
 
     public AbstractCassandraUnit4CQLTestCase() {
         cassandraUnit = new CassandraCQLUnit(getDataSet());
@@ -40,7 +37,6 @@ public abstract class AbstractCassandraUnit4CQLTestCase {
         if (!initialized) {
             cassandraUnit.before();
             session = cassandraUnit.session;
-            cluster = cassandraUnit.cluster;
             initialized = true;
         }
     }
@@ -48,13 +44,8 @@ public abstract class AbstractCassandraUnit4CQLTestCase {
     @After
     public void after(){
         if(session!=null){
-            log.debug("session shutdown");
-            CloseFuture closeFuture = session.closeAsync();
-            closeFuture.force();
-        }
-        if (cluster != null) {
-        	log.debug("cluster shutdown");
-        	cluster.close();
+            log.debug("session release");
+            cassandraUnit.after();
         }
     }
 
@@ -1,12 +1,62 @@
 package org.cassandraunit;
 
+import org.apache.cassandra.auth.AuthenticatedUser;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.config.KSMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.statements.BatchStatement;
+import org.apache.cassandra.cql3.statements.CFStatement;
+import org.apache.cassandra.cql3.statements.CreateTableStatement;
+import org.apache.cassandra.cql3.statements.ModificationStatement;
+import org.apache.cassandra.cql3.statements.ParsedStatement;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.cql3.statements.TruncateStatement;
+import org.apache.cassandra.cql3.statements.UseStatement;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.exceptions.AuthenticationException;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.exceptions.RequestExecutionException;
+import org.apache.cassandra.exceptions.RequestValidationException;
+import org.apache.cassandra.exceptions.SyntaxException;
+import org.apache.cassandra.locator.SimpleStrategy;
+import org.apache.cassandra.service.ClientState;
+import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
+import org.apache.commons.lang.StringUtils;
 import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.cql.AbstractCQLDataSet;
+import org.cassandraunit.dataset.cql.KeyspaceRenamingCQLDataSet;
+import org.cassandraunit.dataset.cql.SamplingCQLDataSet;
+import org.cassandraunit.dataset.cql.SchemaOptionsCQLDataSet;
+import org.cassandraunit.dataset.cql.TableFilteringCQLDataSet;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
 import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * @author Marcin Szymaniuk
  * @author Jeremy Sevellec
@@ -15,6 +65,15 @@ public class CQLDataLoader {
 
     private static final Logger log = LoggerFactory.getLogger(CQLDataLoader.class);
     public static final String DEFAULT_KEYSPACE_NAME = "cassandraunitkeyspace";
+    private static final long SCHEMA_AGREEMENT_TIMEOUT_IN_MS = 10000;
+    private static final int MAX_KEYSPACE_NAME_LENGTH = 48;
+    private static final String JVM_ID = Integer.toString(new Random().nextInt(Character.MAX_RADIX * Character.MAX_RADIX),
+            Character.MAX_RADIX);
+    private static final AtomicInteger uniqueKeyspaceCount = new AtomicInteger();
+    private static final Pattern CREATE_TABLE_PATTERN = Pattern.compile(
+            "\\s*CREATE\\s+(TABLE|COLUMNFAMILY)\\s+(IF\\s+NOT\\s+EXISTS\\s+)?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_INDEX_PATTERN = Pattern.compile("\\s*CREATE\\s+(CUSTOM\\s+)?INDEX\\s",
+            Pattern.CASE_INSENSITIVE);
 
 
     public Session getSession() {
@@ -22,27 +81,319 @@ public class CQLDataLoader {
     }
 
     private final Session session;
+    /* copy of the last dataset loaded with a unique keyspace */
+    private KeyspaceRenamingCQLDataSet uniqueKeyspaceDataSet = null;
 
     public CQLDataLoader(Session session) {
         this.session = session;
     }
 
+    /**
+     * @return the copy of the last dataset loaded with a unique keyspace, null if none, which tells the keyspaces it
+     * was renamed to
+     */
+    KeyspaceRenamingCQLDataSet getUniqueKeyspaceDataSet() {
+        return uniqueKeyspaceDataSet;
+    }
+
     public void load(CQLDataSet dataSet) {
-        initKeyspaceContext(session, dataSet);
+        load(dataSet, new LoadingOption());
+    }
+
+    public void load(CQLDataSet dataSet, LoadingOption loadingOption) {
+        boolean durableWrites = !loadingOption.isThrowawayKeyspace() && !isInMemoryEmbeddedCassandraSession();
+        dataSet = applyDataSetOptions(dataSet, loadingOption, durableWrites);
+        String keyspace = dataSet.getKeyspaceName() != null ? dataSet.getKeyspaceName() : DEFAULT_KEYSPACE_NAME;
+
+        String fingerprint = null;
+        if (loadingOption.isSkipUnchangedDataSet()) {
+            fingerprint = DataSetFingerprint.of(dataSet, loadingOption);
+            if (DataSetFingerprint.isLoaded(keyspace, fingerprint)) {
+                log.debug("keyspace {} already holds the dataset, skipping load", keyspace);
+                session.execute("use " + keyspace);
+                return;
+            }
+        }
+
+        QueryState inProcessState = loadingOption.isInProcess() ? createEmbeddedCassandraState() : null;
+        if (loadingOption.isDeferIndexCreation()) {
+            DeferredIndexes.checkEmbeddedCassandraStarted();
+        }
+
+        IncrementalReload incrementalReload = loadingOption.isIncrementalReload()
+                ? createIncrementalReload(dataSet, keyspace, loadingOption) : null;
+        if (!reloadChangedPartitions(inProcessState, dataSet, incrementalReload, keyspace, loadingOption)) {
+            new DataSetLoad(inProcessState, loadingOption, durableWrites).load(dataSet);
+            recordPartitions(dataSet, incrementalReload, keyspace);
+        }
+
+        if (fingerprint != null) {
+            DataSetFingerprint.mark(keyspace, fingerprint);
+        }
+    }
+
+    /**
+     * @return dataSet seen through the loading options rewriting its statements
+     */
+    private CQLDataSet applyDataSetOptions(CQLDataSet dataSet, LoadingOption loadingOption, boolean durableWrites) {
+        if (loadingOption.getTableFilter() != null) {
+            dataSet = new TableFilteringCQLDataSet(dataSet, loadingOption.getTableFilter());
+        }
+        if (loadingOption.getRowSampling() != null) {
+            dataSet = new SamplingCQLDataSet(dataSet, loadingOption.getRowSampling());
+        }
+        if (loadingOption.isUniqueKeyspace()) {
+            String keyspaceName = dataSet.getKeyspaceName() != null ? dataSet.getKeyspaceName() : DEFAULT_KEYSPACE_NAME;
+            uniqueKeyspaceDataSet = new KeyspaceRenamingCQLDataSet(dataSet, uniqueKeyspaceName(keyspaceName));
+            dataSet = uniqueKeyspaceDataSet;
+        }
+        if (!durableWrites || !loadingOption.getTableOptions().isEmpty()) {
+            dataSet = new SchemaOptionsCQLDataSet(dataSet, durableWrites,
+                    loadingOption.getTableOptions(), loadingOption.getOtherTablesOptions());
+        }
+        return dataSet;
+    }
 
-        log.debug("loading data");
+    /**
+     * @return true if the session is connected to the embedded cassandra of this JVM only, started in memory : its
+     * storage being wiped at each start, the keyspaces loaded into it need no commitlog
+     */
+    private boolean isInMemoryEmbeddedCassandraSession() {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraInMemory()) {
+            return false;
+        }
+        Cluster cluster = session.getCluster();
+        if (cluster.getConfiguration().getProtocolOptions().getPort() != DatabaseDescriptor.getNativeTransportPort()) {
+            return false;
+        }
+        for (Host host : cluster.getMetadata().getAllHosts()) {
+            if (!host.getAddress().equals(FBUtilities.getBroadcastAddress())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* in process, statements are applied by the embedded cassandra itself, the session is only bound at the end */
+    private QueryState createEmbeddedCassandraState() {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("In process loading needs the embedded cassandra to be started in this JVM");
+        }
+        return createInProcessState();
+    }
+
+    /**
+     * @return keyspaceName suffixed by an id unique in this JVM (and most likely among JVMs sharing the same cassandra)
+     */
+    static String uniqueKeyspaceName(String keyspaceName) {
+        String suffix = "_" + JVM_ID + "_" + uniqueKeyspaceCount.incrementAndGet();
+        return StringUtils.left(keyspaceName, MAX_KEYSPACE_NAME_LENGTH - suffix.length()) + suffix;
+    }
+
+    /**
+     * @return null if some statements of the dataset are neither schema nor single partition writes
+     */
+    private IncrementalReload createIncrementalReload(CQLDataSet dataSet, String keyspace, LoadingOption loadingOption) {
+        List<String> schemaStatements = new ArrayList<String>();
         for (String query : dataSet.getCQLStatements()) {
-            log.debug("executing : " + query);
+            ParsedStatement parsedStatement;
+            try {
+                parsedStatement = QueryProcessor.parseStatement(query);
+            } catch (SyntaxException e) {
+                throw new CassandraUnitException("Unable to parse " + query, e);
+            }
+            if (parsedStatement instanceof BatchStatement.Parsed || parsedStatement instanceof TruncateStatement
+                    || parsedStatement instanceof SelectStatement.RawStatement) {
+                log.debug("no incremental reload of datasets with statement : " + query);
+                return null;
+            }
+            if (!(parsedStatement instanceof ModificationStatement.Parsed)) {
+                schemaStatements.add(query);
+            }
+        }
+        return new IncrementalReload(keyspace, DataSetFingerprint.of(dataSet, schemaStatements, loadingOption));
+    }
+
+    /**
+     * @return USE statements and writes of the dataset with their partitions, null if some of them write to another
+     * keyspace
+     */
+    private List<PartitionStatement> toPartitionStatements(CQLDataSet dataSet, String keyspace) {
+        String keyspaceName = DataSetFingerprint.resolve(keyspace);
+        List<PartitionStatement> partitionStatements = new ArrayList<PartitionStatement>();
+        QueryState state = createInProcessState();
+        try {
+            state.getClientState().setKeyspace(keyspaceName);
+            for (String query : dataSet.getCQLStatements()) {
+                ParsedStatement parsedStatement = QueryProcessor.parseStatement(query);
+                if (parsedStatement instanceof UseStatement) {
+                    ((UseStatement) parsedStatement).execute(state, null);
+                    partitionStatements.add(new PartitionStatement(query, null, null));
+                } else if (parsedStatement instanceof ModificationStatement.Parsed) {
+                    ModificationStatement statement = (ModificationStatement) QueryProcessor.getStatement(query,
+                            state.getClientState()).statement;
+                    if (!statement.keyspace().equals(keyspaceName)) {
+                        log.debug("no incremental reload of datasets writing to another keyspace : " + query);
+                        return null;
+                    }
+                    partitionStatements.add(new PartitionStatement(query, statement,
+                            statement.buildPartitionKeyNames(Collections.<ByteBuffer>emptyList())));
+                }
+            }
+        } catch (RequestValidationException e) {
+            throw new CassandraUnitException("Unable to find partitions of dataset", e);
+        }
+        return partitionStatements;
+    }
+
+    private void addPartitionContents(IncrementalReload incrementalReload, List<PartitionStatement> partitionStatements) {
+        for (PartitionStatement partitionStatement : partitionStatements) {
+            ModificationStatement statement = partitionStatement.statement;
+            if (statement == null) {
+                continue;
+            }
+            /* partitions written with their own timestamps or counters can't be deleted and written again */
+            if (statement.isCounter() || statement.isTimestampSet() || partitionStatement.partitions.size() != 1) {
+                incrementalReload.reloadAsAWhole(statement.columnFamily());
+            }
+            for (ByteBuffer partition : partitionStatement.partitions) {
+                incrementalReload.addPartitionContent(statement.columnFamily(), partition, partitionStatement.query);
+            }
+        }
+    }
+
+    /**
+     * @return false if the dataset has to be loaded as a whole, as incrementalReload is null, its schema isn't loaded
+     * yet or its statements don't tell their partitions
+     */
+    private boolean reloadChangedPartitions(QueryState inProcessState, CQLDataSet dataSet,
+                                            IncrementalReload incrementalReload, String keyspace,
+                                            LoadingOption loadingOption) {
+        if (incrementalReload == null || !incrementalReload.isSchemaLoaded()) {
+            return false;
+        }
+        List<PartitionStatement> partitionStatements = toPartitionStatements(dataSet, keyspace);
+        if (partitionStatements == null) {
+            return false;
+        }
+        addPartitionContents(incrementalReload, partitionStatements);
+        Map<String, Set<ByteBuffer>> partitionsToWrite = incrementalReload.removeChangedPartitions();
+
+        log.debug("reloading changed partitions of keyspace " + keyspace);
+        execute(inProcessState, "USE " + keyspace);
+        for (PartitionStatement partitionStatement : partitionStatements) {
+            if (partitionStatement.statement == null || isToWrite(partitionStatement, partitionsToWrite)) {
+                log.debug("executing : " + partitionStatement.query);
+                execute(inProcessState, partitionStatement.query);
+            }
+        }
+        session.execute("use " + keyspace);
+        new PostLoadShaper(loadingOption).afterLoad(session.getLoggedKeyspace());
+        incrementalReload.record();
+        return true;
+    }
+
+    /* the partitions of a dataset loaded as a whole, for the next incremental reloads */
+    private void recordPartitions(CQLDataSet dataSet, IncrementalReload incrementalReload, String keyspace) {
+        if (incrementalReload == null) {
+            return;
+        }
+        List<PartitionStatement> partitionStatements = toPartitionStatements(dataSet, keyspace);
+        if (partitionStatements != null) {
+            addPartitionContents(incrementalReload, partitionStatements);
+            incrementalReload.record();
+        }
+    }
+
+    private boolean isToWrite(PartitionStatement partitionStatement, Map<String, Set<ByteBuffer>> partitionsToWrite) {
+        Set<ByteBuffer> tablePartitionsToWrite = partitionsToWrite.get(partitionStatement.statement.columnFamily());
+        if (tablePartitionsToWrite == null) {
+            return false;
+        }
+        for (ByteBuffer partition : partitionStatement.partitions) {
+            if (tablePartitionsToWrite.contains(partition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private QueryState createInProcessState() {
+        QueryState inProcessState = QueryState.forInternalCalls();
+        try {
+            /* USE statements need a logged in client, even an internal one */
+            inProcessState.getClientState().login(AuthenticatedUser.ANONYMOUS_USER);
+        } catch (AuthenticationException e) {
+            throw new CassandraUnitException("Unable to log in the embedded cassandra", e);
+        }
+        return inProcessState;
+    }
+
+    private void execute(QueryState inProcessState, String query) {
+        if (inProcessState == null) {
             session.execute(query);
+            return;
+        }
+        try {
+            QueryProcessor.process(query, ConsistencyLevel.ONE, inProcessState);
+        } catch (RequestExecutionException e) {
+            throw new CassandraUnitException("Unable to execute " + query, e);
+        } catch (RequestValidationException e) {
+            throw new CassandraUnitException("Unable to execute " + query, e);
         }
+    }
 
-        if (dataSet.getKeyspaceName() != null) {
-            String useQuery = "use " + dataSet.getKeyspaceName();
-            session.execute(useQuery);
+    /* each index is built by the embedded cassandra from the loaded data, the load waiting for all of them */
+    private void createDeferredIndexes(QueryState inProcessState, List<Pair<String, String>> deferredIndexes) {
+        Set<Pair<String, String>> indexedTables = new LinkedHashSet<Pair<String, String>>();
+        for (Pair<String, String> deferredIndex : deferredIndexes) {
+            String keyspace = deferredIndex.left == null ? null : DataSetFingerprint.resolve(deferredIndex.left);
+            String query = deferredIndex.right;
+            CFStatement statement;
+            try {
+                statement = (CFStatement) QueryProcessor.parseStatement(query);
+                ClientState clientState = createInProcessState().getClientState();
+                if (keyspace != null) {
+                    clientState.setKeyspace(keyspace);
+                }
+                statement.prepareKeyspace(clientState);
+            } catch (RequestValidationException e) {
+                throw new CassandraUnitException("Unable to execute " + query, e);
+            }
+            if (keyspace != null && !keyspace.equals(getLoggedKeyspace(inProcessState))) {
+                execute(inProcessState, "use \"" + keyspace + "\"");
+            }
+            DeferredIndexes.forgetDroppedIndexes(statement.keyspace(), statement.columnFamily());
+            log.debug("executing : " + query);
+            execute(inProcessState, query);
+            indexedTables.add(Pair.create(statement.keyspace(), statement.columnFamily()));
+        }
+        for (Pair<String, String> indexedTable : indexedTables) {
+            DeferredIndexes.awaitBuild(indexedTable.left, indexedTable.right);
         }
     }
 
-    private void initKeyspaceContext(Session session, CQLDataSet dataSet) {
+    private String getLoggedKeyspace(QueryState inProcessState) {
+        if (inProcessState == null) {
+            return session.getLoggedKeyspace();
+        }
+        return inProcessState.getClientState().getRawKeyspace();
+    }
+
+    private boolean keyspaceExists(QueryState inProcessState, String keyspaceName) {
+        if (inProcessState == null) {
+            String selectQuery = "SELECT keyspace_name FROM system.schema_keyspaces where keyspace_name='" + keyspaceName + "'";
+            ResultSet keyspaceQueryResult = session.execute(selectQuery);
+            return keyspaceQueryResult.iterator().hasNext();
+        }
+        return Schema.instance.getKSMetaData(keyspaceName) != null;
+    }
+
+    /**
+     * @return name of the keyspace whose creation is left to the schema migration, if any
+     */
+    private String initKeyspaceContext(QueryState inProcessState, SchemaMigration migration, CQLDataSet dataSet,
+                                       boolean durableWrites) {
         String keyspaceName = DEFAULT_KEYSPACE_NAME;
         if (dataSet.getKeyspaceName() != null) {
             keyspaceName = dataSet.getKeyspaceName();
@@ -54,23 +405,200 @@ public class CQLDataLoader {
                 ";keyspaceName=" + keyspaceName);
 
         if (dataSet.isKeyspaceDeletion()) {
-            String selectQuery = "SELECT keyspace_name FROM system.schema_keyspaces where keyspace_name='" + keyspaceName + "'";
-            ResultSet keyspaceQueryResult = session.execute(selectQuery);
-            if (keyspaceQueryResult.iterator().hasNext()) {
+            if (keyspaceExists(inProcessState, keyspaceName)) {
                 String dropQuery = "DROP KEYSPACE " + keyspaceName;
                 log.debug("executing : " + dropQuery);
-                session.execute(dropQuery);
+                execute(inProcessState, dropQuery);
+            }
+        }
+
+        if (dataSet.isKeyspaceCreation() && migration != null) {
+            try {
+                migration.addKeyspace(KSMetaData.newKeyspace(keyspaceName, SimpleStrategy.class.getName(),
+                        KSMetaData.optsWithRF(1), durableWrites));
+            } catch (ConfigurationException e) {
+                throw new CassandraUnitException("Unable to create keyspace " + keyspaceName, e);
             }
+            return keyspaceName;
         }
 
         if (dataSet.isKeyspaceCreation()) {
-            String createQuery = "CREATE KEYSPACE " + keyspaceName + " WITH replication={'class' : 'SimpleStrategy', 'replication_factor':1}";
+            String createQuery = "CREATE KEYSPACE " + keyspaceName + " WITH replication={'class' : 'SimpleStrategy', 'replication_factor':1}"
+                    + (durableWrites ? "" : " AND durable_writes = false");
             log.debug("executing : " + createQuery);
-            session.execute(createQuery);
+            execute(inProcessState, createQuery);
             String useQuery = "USE " + keyspaceName;
             log.debug("executing : " + useQuery);
-            session.execute(useQuery);
+            execute(inProcessState, useQuery);
+        }
+        return null;
+    }
+
+    /* one wait for the whole schema migration, instead of one per DDL statement */
+    private void waitForSchemaAgreement() {
+        long timeout = System.currentTimeMillis() + SCHEMA_AGREEMENT_TIMEOUT_IN_MS;
+        while (true) {
+            Set<UUID> schemaVersions = new HashSet<UUID>();
+            schemaVersions.add(session.execute("SELECT schema_version FROM system.local WHERE key='local'").one()
+                    .getUUID("schema_version"));
+            for (Row peer : session.execute("SELECT schema_version FROM system.peers")) {
+                if (!peer.isNull("schema_version")) {
+                    schemaVersions.add(peer.getUUID("schema_version"));
+                }
+            }
+            if (schemaVersions.size() <= 1) {
+                return;
+            }
+            if (System.currentTimeMillis() > timeout) {
+                log.warn("No schema agreement after " + SCHEMA_AGREEMENT_TIMEOUT_IN_MS + " ms, versions : " + schemaVersions);
+                return;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /* a load of the statements of a dataset as a whole, the statement options deciding how each one is applied */
+    private class DataSetLoad {
+
+        private final QueryState inProcessState;
+        private final boolean durableWrites;
+        private final PostLoadShaper postLoadShaper;
+        /* with bulk schema, consecutive CREATE TABLE are applied together, just before the next other statement */
+        private final SchemaMigration migration;
+        /* CREATE INDEX statements with the keyspace in use where they stand, executed once the data is loaded */
+        private final List<Pair<String, String>> deferredIndexes;
+        /* keyspace whose creation is left to the schema migration, if any */
+        private String createdKeyspace;
+
+        private DataSetLoad(QueryState inProcessState, LoadingOption loadingOption, boolean durableWrites) {
+            this.inProcessState = inProcessState;
+            this.durableWrites = durableWrites;
+            this.postLoadShaper = new PostLoadShaper(loadingOption);
+            this.migration = loadingOption.isBulkSchema() ? new SchemaMigration() : null;
+            this.deferredIndexes = loadingOption.isDeferIndexCreation() ? new ArrayList<Pair<String, String>>() : null;
         }
 
+        private void load(CQLDataSet dataSet) {
+            createdKeyspace = initKeyspaceContext(inProcessState, migration, dataSet, durableWrites);
+
+            log.debug("loading data");
+            List<String> statements = dataSet.getCQLStatements();
+            postLoadShaper.countRows(statements);
+            for (String query : statements) {
+                if (!addToSchemaMigration(query) && !deferIndexCreation(query)) {
+                    applySchemaMigration();
+                    log.debug("executing : " + query);
+                    execute(inProcessState, query);
+                }
+                endTableChunk(query);
+            }
+            applySchemaMigration();
+            if (deferredIndexes != null) {
+                createDeferredIndexes(inProcessState, deferredIndexes);
+            }
+
+            if (dataSet.getKeyspaceName() != null) {
+                String useQuery = "use " + dataSet.getKeyspaceName();
+                session.execute(useQuery);
+            } else if (inProcessState != null && getLoggedKeyspace(inProcessState) != null) {
+                session.execute("use " + getLoggedKeyspace(inProcessState));
+            }
+
+            if (session.getLoggedKeyspace() != null) {
+                postLoadShaper.afterLoad(session.getLoggedKeyspace());
+            }
+        }
+
+        private boolean addToSchemaMigration(String query) {
+            Matcher createTable = CREATE_TABLE_PATTERN.matcher(query);
+            if (migration == null || !createTable.lookingAt()) {
+                return false;
+            }
+            log.debug("adding to schema migration : " + query);
+            migration.addColumnFamily(toColumnFamily(query, createTable.end(), getCurrentKeyspace()),
+                    createTable.group(2) != null);
+            return true;
+        }
+
+        private boolean deferIndexCreation(String query) {
+            if (deferredIndexes == null || !CREATE_INDEX_PATTERN.matcher(query).lookingAt()) {
+                return false;
+            }
+            log.debug("deferring : " + query);
+            deferredIndexes.add(Pair.create(getCurrentKeyspace(), query));
+            return true;
+        }
+
+        private void endTableChunk(String query) {
+            String chunkedTable = postLoadShaper.getTableOfEndedChunk(query);
+            String loggedKeyspace = getLoggedKeyspace(inProcessState);
+            if (chunkedTable != null && loggedKeyspace != null) {
+                postLoadShaper.endOfTableChunk(loggedKeyspace, chunkedTable);
+            }
+        }
+
+        private String getCurrentKeyspace() {
+            return createdKeyspace != null ? createdKeyspace : getLoggedKeyspace(inProcessState);
+        }
+
+        private void applySchemaMigration() {
+            if (migration == null || migration.isEmpty()) {
+                return;
+            }
+            migration.apply();
+            if (createdKeyspace != null) {
+                String useQuery = "USE " + createdKeyspace;
+                log.debug("executing : " + useQuery);
+                execute(inProcessState, useQuery);
+                createdKeyspace = null;
+            }
+            waitForSchemaAgreement();
+        }
+
+        /**
+         * @param nameStart index of the table name in createTableQuery
+         * @param keyspace  keyspace of the table if the query doesn't tell it, which may not exist yet
+         */
+        private CFMetaData toColumnFamily(String createTableQuery, int nameStart, String keyspace) {
+            String tableName = AbstractCQLDataSet.getTableName(createTableQuery);
+            int nameEnd = createTableQuery.indexOf('(', nameStart);
+            if (tableName == null || nameEnd < 0) {
+                throw new CassandraUnitException("Unable to parse " + createTableQuery);
+            }
+            String name = createTableQuery.substring(nameStart, nameEnd).trim();
+            /* unqualified tables are qualified in the query, a client state needing an existing keyspace */
+            if (StringUtils.strip(name, "\"").equals(tableName)) {
+                if (keyspace == null) {
+                    throw new CassandraUnitException("No keyspace to create table of " + createTableQuery);
+                }
+                createTableQuery = createTableQuery.substring(0, nameStart) + "\"" + keyspace + "\"." + name + " "
+                        + createTableQuery.substring(nameEnd);
+            }
+            try {
+                return ((CreateTableStatement) QueryProcessor.parseStatement(createTableQuery).prepare().statement)
+                        .getCFMetaData();
+            } catch (RequestValidationException e) {
+                throw new CassandraUnitException("Unable to parse " + createTableQuery, e);
+            }
+        }
+    }
+
+    /* a statement of the dataset with the partitions it writes, if any */
+    private static class PartitionStatement {
+
+        private final String query;
+        private final ModificationStatement statement;
+        private final List<ByteBuffer> partitions;
+
+        private PartitionStatement(String query, ModificationStatement statement, List<ByteBuffer> partitions) {
+            this.query = query;
+            this.statement = statement;
+            this.partitions = partitions;
+        }
     }
 }
@@ -0,0 +1,80 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.utils.CQLSessionRegistry;
+import org.cassandraunit.utils.CassandraClusterLauncher;
+import org.junit.rules.ExternalResource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Same as CassandraCQLUnit, on a local cluster of forked cassandra nodes instead of the embedded one. Clusters are
+ * started once per JVM (by node count and configuration) and stopped when it exits, so the launcher is
+ * available to stop and restart nodes during a test.
+ * The dataset is expected to create its keyspace with the replication it needs.
+ */
+public class CassandraCQLClusterUnit extends ExternalResource {
+
+    private static final Map<String, CassandraClusterLauncher> launchers = new HashMap<String, CassandraClusterLauncher>();
+
+    private final CQLDataSet dataSet;
+    private final CassandraClusterLauncher launcher;
+    private LoadingOption loadingOption = new LoadingOption();
+    public Session session;
+    public Cluster cluster;
+
+    public CassandraCQLClusterUnit(CQLDataSet dataSet, int nodeCount) {
+        this(dataSet, getLauncher(nodeCount, null));
+    }
+
+    public CassandraCQLClusterUnit(CQLDataSet dataSet, int nodeCount, String configurationFileName) {
+        this(dataSet, getLauncher(nodeCount, configurationFileName));
+    }
+
+    public CassandraCQLClusterUnit(CQLDataSet dataSet, CassandraClusterLauncher launcher) {
+        this.dataSet = dataSet;
+        this.launcher = launcher;
+    }
+
+    public CassandraCQLClusterUnit(CQLDataSet dataSet, CassandraClusterLauncher launcher, LoadingOption loadingOption) {
+        this(dataSet, launcher);
+        this.loadingOption = loadingOption;
+    }
+
+    private static synchronized CassandraClusterLauncher getLauncher(int nodeCount, String configurationFileName) {
+        String key = nodeCount + ":" + configurationFileName;
+        CassandraClusterLauncher launcher = launchers.get(key);
+        if (launcher == null) {
+            launcher = configurationFileName == null ? new CassandraClusterLauncher(nodeCount)
+                    : new CassandraClusterLauncher(nodeCount, configurationFileName);
+            launchers.put(key, launcher);
+        }
+        return launcher;
+    }
+
+    @Override
+    protected void before() throws Exception {
+        launcher.start();
+        session = CQLSessionRegistry.acquire(launcher.getContactPoints(), launcher.getNativeTransportPort());
+        cluster = session.getCluster();
+        CQLDataLoader dataLoader = new CQLDataLoader(session);
+        dataLoader.load(dataSet, loadingOption);
+        session = dataLoader.getSession();
+    }
+
+    @Override
+    protected void after() {
+        if (session != null) {
+            CQLSessionRegistry.release(session);
+            session = null;
+            cluster = null;
+        }
+    }
+
+    public CassandraClusterLauncher getLauncher() {
+        return launcher;
+    }
+}
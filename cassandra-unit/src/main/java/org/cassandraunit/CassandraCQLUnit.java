@@ -1,6 +1,8 @@
 package org.cassandraunit;
 
 import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.cql.KeyspaceRenamingCQLDataSet;
+import org.cassandraunit.utils.CQLSessionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,18 +14,26 @@ import com.datastax.driver.core.Session;
  */
 public class CassandraCQLUnit extends BaseCassandraUnit {
     private CQLDataSet dataSet;
+    private LoadingOption loadingOption = new LoadingOption();
 
     private static final Logger log = LoggerFactory.getLogger(CassandraCQLUnit.class);
     private String hostIp = "localhost";
     private int port = 9142;
     public Session session;
     public Cluster cluster;
-
+    private KeyspaceRenamingCQLDataSet uniqueKeyspaceDataSet;
+    private KeyspacePool keyspacePool;
+    private KeyspacePool.PooledKeyspace pooledKeyspace;
 
     public CassandraCQLUnit(CQLDataSet dataSet) {
         this.dataSet = dataSet;
     }
 
+    public CassandraCQLUnit(CQLDataSet dataSet, LoadingOption loadingOption) {
+        this(dataSet);
+        this.loadingOption = loadingOption;
+    }
+
     public CassandraCQLUnit(CQLDataSet dataSet, String configurationFileName) {
         this(dataSet);
         this.configurationFileName = configurationFileName;
@@ -36,12 +46,58 @@ public class CassandraCQLUnit extends BaseCassandraUnit {
         this.port = port;
     }
 
+    /**
+     * lease a copy of the dataset of the pool instead of loading it
+     */
+    public CassandraCQLUnit(KeyspacePool keyspacePool) {
+        this.keyspacePool = keyspacePool;
+    }
+
+    public CassandraCQLUnit(KeyspacePool keyspacePool, String configurationFileName) {
+        this(keyspacePool);
+        this.configurationFileName = configurationFileName;
+    }
+
     protected void load() {
-        cluster = new Cluster.Builder().addContactPoints(hostIp).withPort(port).build();
-        session = cluster.connect();
+        if (keyspacePool != null) {
+            pooledKeyspace = keyspacePool.lease();
+            session = pooledKeyspace.getSession();
+            cluster = session.getCluster();
+            return;
+        }
+        /* a session of its own, on the cluster shared with the other units */
+        session = CQLSessionRegistry.acquire(hostIp, port);
+        cluster = session.getCluster();
         CQLDataLoader dataLoader = new CQLDataLoader(session);
-        dataLoader.load(dataSet);
+        dataLoader.load(dataSet, loadingOption);
         session = dataLoader.getSession();
+        uniqueKeyspaceDataSet = dataLoader.getUniqueKeyspaceDataSet();
+    }
+
+    /**
+     * the session of the unit is closed, the cluster is shared with the other units connected to the same host and
+     * port and stays open for them. With a unique keyspace, every keyspace the dataset was renamed to is dropped first.
+     * A pooled keyspace is given back to its pool.
+     */
+    @Override
+    protected void after() {
+        if (pooledKeyspace != null) {
+            keyspacePool.release(pooledKeyspace);
+            pooledKeyspace = null;
+        } else if (session != null && uniqueKeyspaceDataSet != null) {
+            try {
+                for (String keyspaceName : uniqueKeyspaceDataSet.getRenamedKeyspaces().values()) {
+                    session.execute("DROP KEYSPACE IF EXISTS " + keyspaceName);
+                }
+            } finally {
+                CQLSessionRegistry.release(session);
+                uniqueKeyspaceDataSet = null;
+            }
+        } else if (session != null) {
+            CQLSessionRegistry.release(session);
+        }
+        session = null;
+        cluster = null;
     }
 
 }
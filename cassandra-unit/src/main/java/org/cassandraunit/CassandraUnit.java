@@ -9,13 +9,25 @@ public class CassandraUnit extends BaseCassandraUnit  {
     public Cluster cluster;
     public Keyspace keyspace;
     private DataSet dataSet;
+    private LoadingOption loadingOption = new LoadingOption();
 
-    public static String clusterName = "TestCluster";
-    public static String host = "localhost:9171";
+    /* defaults of the units created afterwards, each unit keeps its own values so that they can run in parallel */
+    public static volatile String clusterName = "TestCluster";
+    public static volatile String host = "localhost:9171";
+
+    private final String unitClusterName = clusterName;
+    private String unitHost = host;
+    private KeyspacePool keyspacePool;
+    private KeyspacePool.PooledKeyspace pooledKeyspace;
 
     public CassandraUnit(DataSet dataSet) {
         this.dataSet = dataSet;
     }
+    public CassandraUnit(DataSet dataSet, LoadingOption loadingOption) {
+        this(dataSet);
+        this.loadingOption = loadingOption;
+    }
+
     public CassandraUnit(DataSet dataSet, String configurationFileName) {
     	this(dataSet);
     	this.configurationFileName = configurationFileName;
@@ -23,17 +35,43 @@ public class CassandraUnit extends BaseCassandraUnit  {
 
     public CassandraUnit(DataSet dataSet, String configurationFileName, String host) {
         this(dataSet, configurationFileName);
-        this.host = host;
+        this.unitHost = host;
+    }
+
+    /**
+     * lease a copy of the dataset of the pool instead of loading it
+     */
+    public CassandraUnit(KeyspacePool keyspacePool) {
+        this.keyspacePool = keyspacePool;
+    }
+
+    public CassandraUnit(KeyspacePool keyspacePool, String configurationFileName) {
+        this(keyspacePool);
+        this.configurationFileName = configurationFileName;
     }
 
     @Override
     protected void load() {
-        DataLoader dataLoader = new DataLoader(clusterName, host);
-        dataLoader.load(dataSet);
+        if (keyspacePool != null) {
+            pooledKeyspace = keyspacePool.lease();
+            cluster = HFactory.getOrCreateCluster(keyspacePool.getClusterName(), keyspacePool.getHost());
+            keyspace = HFactory.createKeyspace(pooledKeyspace.getName(), cluster);
+            return;
+        }
+        DataLoader dataLoader = new DataLoader(unitClusterName, unitHost);
+        dataLoader.load(dataSet, loadingOption);
 
         /* get hector client object to query data in your test */
-        cluster = HFactory.getOrCreateCluster(clusterName, host);
+        cluster = HFactory.getOrCreateCluster(unitClusterName, unitHost);
         keyspace = HFactory.createKeyspace(dataSet.getKeyspace().getName(), cluster);
     }
 
+    @Override
+    protected void after() {
+        if (pooledKeyspace != null) {
+            keyspacePool.release(pooledKeyspace);
+            pooledKeyspace = null;
+        }
+    }
+
 }
@@ -2,6 +2,9 @@ package org.cassandraunit;
 
 import me.prettyprint.cassandra.model.BasicColumnDefinition;
 import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.service.CassandraHost;
+import me.prettyprint.cassandra.service.CassandraHostConfigurator;
+import me.prettyprint.cassandra.service.ThriftKsDef;
 import me.prettyprint.hector.api.Cluster;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.beans.HColumn;
@@ -15,8 +18,25 @@ import me.prettyprint.hector.api.ddl.ComparatorType;
 import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
 import me.prettyprint.hector.api.factory.HFactory;
 import me.prettyprint.hector.api.mutation.Mutator;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.config.KSMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.CounterMutation;
+import org.apache.cassandra.db.RowMutation;
+import org.apache.cassandra.db.marshal.CompositeType;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.exceptions.InvalidRequestException;
+import org.apache.cassandra.service.MigrationManager;
+import org.apache.cassandra.thrift.CfDef;
+import org.apache.cassandra.thrift.KsDef;
 import org.apache.commons.lang.StringUtils;
 import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.dataset.SamplingDataSet;
+import org.cassandraunit.dataset.TableFilteringDataSet;
+import org.cassandraunit.dataset.TableOptions;
+import org.cassandraunit.exception.CassandraUnitException;
 import org.cassandraunit.model.ColumnFamilyModel;
 import org.cassandraunit.model.ColumnMetadataModel;
 import org.cassandraunit.model.ColumnModel;
@@ -27,13 +47,19 @@ import org.cassandraunit.model.SuperColumnModel;
 import org.cassandraunit.serializer.GenericTypeSerializer;
 import org.cassandraunit.type.GenericType;
 import org.cassandraunit.type.GenericTypeEnum;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Jeremy Sevellec
@@ -41,12 +67,14 @@ import java.util.Map;
  */
 public class DataLoader {
     Cluster cluster = null;
+    private final String host;
 
     private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
 
     public DataLoader(String clusterName, String host) {
         super();
         cluster = HFactory.getOrCreateCluster(clusterName, host);
+        this.host = host;
     }
 
     protected Cluster getCluster() {
@@ -66,19 +94,61 @@ public class DataLoader {
     }
 
     public void load(DataSet dataSet, LoadingOption loadingOption, boolean dropAndCreateKeyspace) {
+        if (loadingOption.isInProcess() && !EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("In process loading needs the embedded cassandra to be started in this JVM");
+        }
+        boolean deferIndexCreation = loadingOption.isDeferIndexCreation() && !loadingOption.isOnlySchema();
+        if (deferIndexCreation) {
+            DeferredIndexes.checkEmbeddedCassandraStarted();
+        }
+        if (loadingOption.getTableFilter() != null) {
+            dataSet = new TableFilteringDataSet(dataSet, loadingOption.getTableFilter());
+        }
+        if (loadingOption.getRowSampling() != null) {
+            dataSet = new SamplingDataSet(dataSet, loadingOption.getRowSampling());
+        }
         KeyspaceModel dataSetKeyspace = dataSet.getKeyspace();
 
-        if (dropAndCreateKeyspace) {
-          dropKeyspaceIfExist(dataSetKeyspace.getName());
+        String fingerprint = null;
+        if (loadingOption.isSkipUnchangedDataSet()) {
+            fingerprint = DataSetFingerprint.of(dataSet, loadingOption);
+            if (DataSetFingerprint.isLoaded(dataSetKeyspace.getName(), fingerprint)) {
+                log.info("keyspace {} already holds the dataset, skipping load", dataSetKeyspace.getName());
+                return;
+            }
+        }
+
+        /* other tables of a keyspace kept as is are not part of the dataset */
+        IncrementalReload incrementalReload = null;
+        if (loadingOption.isIncrementalReload() && dropAndCreateKeyspace) {
+            incrementalReload = createIncrementalReload(dataSet, loadingOption);
+            if (incrementalReload.isSchemaLoaded()) {
+                reloadChangedPartitions(dataSet, loadingOption, incrementalReload);
+                if (fingerprint != null) {
+                    DataSetFingerprint.mark(dataSetKeyspace.getName(), fingerprint);
+                }
+                return;
+            }
         }
 
-        KeyspaceDefinition keyspaceDefinition = createKeyspaceDefinition(dataSet, loadingOption);
-        if (dropAndCreateKeyspace) {
-          cluster.addKeyspace(keyspaceDefinition, dropAndCreateKeyspace);
+        KeyspaceDefinition keyspaceDefinition;
+        if (loadingOption.isBulkSchema()) {
+            keyspaceDefinition = createKeyspaceDefinition(dataSet, loadingOption, !deferIndexCreation);
+            applySchemaInOneMigration(keyspaceDefinition, loadingOption, dropAndCreateKeyspace);
         } else {
-          for(ColumnFamilyDefinition columnFamilyDefinition: keyspaceDefinition.getCfDefs()) {
-            cluster.addColumnFamily(columnFamilyDefinition);
-          }
+            if (dropAndCreateKeyspace) {
+              dropKeyspaceIfExist(dataSetKeyspace.getName());
+            }
+
+            keyspaceDefinition = createKeyspaceDefinition(dataSet, loadingOption, !deferIndexCreation);
+            if (dropAndCreateKeyspace) {
+              cluster.addKeyspace(keyspaceDefinition, dropAndCreateKeyspace);
+            } else {
+              for(ColumnFamilyDefinition columnFamilyDefinition: keyspaceDefinition.getCfDefs()) {
+                cluster.addColumnFamily(columnFamilyDefinition);
+              }
+            }
+            updateCaching(keyspaceDefinition.getName(), keyspaceDefinition.getCfDefs(), loadingOption);
         }
 
         log.info("creating keyspace : {}", keyspaceDefinition.getName());
@@ -86,8 +156,108 @@ public class DataLoader {
 
         if (!loadingOption.isOnlySchema()) {
             log.info("loading data into keyspace : {}", keyspaceDefinition.getName());
-            loadData(dataSet, keyspace);
+            PostLoadShaper postLoadShaper = new PostLoadShaper(loadingOption);
+            if (loadingOption.isInProcess()) {
+                loadDataInProcess(dataSet, postLoadShaper);
+            } else {
+                loadData(dataSet, keyspace, postLoadShaper);
+            }
+            if (deferIndexCreation) {
+                createDeferredIndexes(dataSet, loadingOption);
+            }
+            postLoadShaper.afterLoad(keyspaceDefinition.getName());
         }
+
+        if (incrementalReload != null) {
+            incrementalReload.record();
+        }
+        if (fingerprint != null) {
+            DataSetFingerprint.mark(dataSetKeyspace.getName(), fingerprint);
+        }
+    }
+
+    /**
+     * truncate the column families of an already loaded dataset and load its rows again, the schema being kept
+     */
+    void reload(DataSet dataSet, LoadingOption loadingOption) {
+        if (loadingOption.getTableFilter() != null) {
+            dataSet = new TableFilteringDataSet(dataSet, loadingOption.getTableFilter());
+        }
+        if (loadingOption.getRowSampling() != null) {
+            dataSet = new SamplingDataSet(dataSet, loadingOption.getRowSampling());
+        }
+        String keyspaceName = dataSet.getKeyspace().getName();
+        for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
+            cluster.truncate(keyspaceName, columnFamily.getName());
+        }
+
+        log.debug("reloading data into keyspace : {}", keyspaceName);
+        PostLoadShaper postLoadShaper = new PostLoadShaper(loadingOption);
+        if (loadingOption.isInProcess()) {
+            loadDataInProcess(dataSet, postLoadShaper);
+        } else {
+            loadData(dataSet, HFactory.createKeyspace(keyspaceName, cluster), postLoadShaper);
+        }
+        postLoadShaper.afterLoad(keyspaceName);
+    }
+
+    private IncrementalReload createIncrementalReload(DataSet dataSet, LoadingOption loadingOption) {
+        IncrementalReload incrementalReload = new IncrementalReload(dataSet.getKeyspace().getName(),
+                DataSetFingerprint.ofSchema(dataSet, loadingOption));
+        for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
+            if (columnFamily.isCounter()) {
+                incrementalReload.reloadAsAWhole(columnFamily.getName());
+            }
+            for (RowModel row : columnFamily.getRows()) {
+                if (hasTimestamp(row)) {
+                    incrementalReload.reloadAsAWhole(columnFamily.getName());
+                }
+                incrementalReload.addPartitionContent(columnFamily.getName(),
+                        GenericTypeSerializer.get().toByteBuffer(row.getKey()), DataSetFingerprint.of(row));
+            }
+        }
+        return incrementalReload;
+    }
+
+    private boolean hasTimestamp(RowModel row) {
+        List<ColumnModel> columns = new ArrayList<ColumnModel>(row.getColumns());
+        for (SuperColumnModel superColumn : row.getSuperColumns()) {
+            columns.addAll(superColumn.getColumns());
+        }
+        for (ColumnModel column : columns) {
+            if (column.getTimestamp() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reloadChangedPartitions(DataSet dataSet, LoadingOption loadingOption, IncrementalReload incrementalReload) {
+        String keyspaceName = dataSet.getKeyspace().getName();
+        Map<String, Set<ByteBuffer>> partitionsToWrite = incrementalReload.removeChangedPartitions();
+
+        log.info("reloading changed partitions of keyspace : {}", keyspaceName);
+        Keyspace keyspace = HFactory.createKeyspace(keyspaceName, cluster);
+        PostLoadShaper postLoadShaper = new PostLoadShaper(loadingOption);
+        for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
+            Set<ByteBuffer> columnFamilyPartitions = partitionsToWrite.get(columnFamily.getName());
+            if (columnFamilyPartitions == null || columnFamilyPartitions.isEmpty()) {
+                continue;
+            }
+            List<RowModel> rows = new ArrayList<RowModel>();
+            for (RowModel row : columnFamily.getRows()) {
+                if (columnFamilyPartitions.contains(GenericTypeSerializer.get().toByteBuffer(row.getKey()))) {
+                    rows.add(row);
+                }
+            }
+            if (loadingOption.isInProcess()) {
+                loadColumnFamilyDataInProcess(keyspaceName, columnFamily, rows, postLoadShaper);
+            } else {
+                loadColumnFamilyData(columnFamily, rows, keyspace, postLoadShaper);
+            }
+        }
+        postLoadShaper.afterLoad(keyspaceName);
+        incrementalReload.record();
     }
 
     private KeyspaceModel overrideKeyspaceValueIfneeded(KeyspaceModel keyspace, LoadingOption loadingOption) {
@@ -102,8 +272,9 @@ public class DataLoader {
         return keyspace;
     }
 
-    private KeyspaceDefinition createKeyspaceDefinition(DataSet dataSet, LoadingOption loadingOption) {
-        List<ColumnFamilyDefinition> columnFamilyDefinitions = createColumnFamilyDefinitions(dataSet);
+    private KeyspaceDefinition createKeyspaceDefinition(DataSet dataSet, LoadingOption loadingOption, boolean withIndexes) {
+        List<ColumnFamilyDefinition> columnFamilyDefinitions = createColumnFamilyDefinitions(dataSet, loadingOption,
+                withIndexes);
 
         KeyspaceModel dataSetKeyspace = dataSet.getKeyspace();
 
@@ -111,9 +282,128 @@ public class DataLoader {
 
         KeyspaceDefinition keyspaceDefinition = HFactory.createKeyspaceDefinition(dataSetKeyspace.getName(),
                 dataSetKeyspace.getStrategy().value(), dataSetKeyspace.getReplicationFactor(), columnFamilyDefinitions);
+        /* the storage of an in memory embedded cassandra is wiped at each start, its keyspaces need no commitlog */
+        if (loadingOption.isThrowawayKeyspace()
+                || EmbeddedCassandraServerHelper.isEmbeddedCassandraInMemory() && isEmbeddedCassandraHost()) {
+            ((ThriftKsDef) keyspaceDefinition).setDurableWrites(false);
+        }
         return keyspaceDefinition;
     }
 
+    /* same conversion as the thrift server, but applied on the embedded cassandra without waiting for each change */
+    private void applySchemaInOneMigration(KeyspaceDefinition keyspaceDefinition, LoadingOption loadingOption,
+                                           boolean dropAndCreateKeyspace) {
+        SchemaMigration migration = new SchemaMigration();
+        KsDef ksDef = ((ThriftKsDef) keyspaceDefinition).toThrift();
+        try {
+            if (dropAndCreateKeyspace) {
+                if (Schema.instance.getKSMetaData(ksDef.getName()) != null) {
+                    log.info("dropping existing keyspace : {}", ksDef.getName());
+                    MigrationManager.announceKeyspaceDrop(ksDef.getName());
+                }
+                migration.addKeyspace(KSMetaData.fromThrift(ksDef));
+            }
+            for (CfDef cfDef : ksDef.getCf_defs()) {
+                cfDef.unsetId();
+                TableOptions tableOptions = loadingOption.getTableOptions(cfDef.getName());
+                if (tableOptions != null && tableOptions.getCaching() != null) {
+                    cfDef.setCaching(tableOptions.getCaching());
+                }
+                CFMetaData columnFamily = CFMetaData.fromThrift(cfDef);
+                columnFamily.addDefaultIndexNames();
+                migration.addColumnFamily(columnFamily, false);
+            }
+        } catch (ConfigurationException e) {
+            throw new CassandraUnitException("Unable to create schema of keyspace " + ksDef.getName(), e);
+        } catch (InvalidRequestException e) {
+            throw new CassandraUnitException("Unable to create schema of keyspace " + ksDef.getName(), e);
+        }
+        migration.apply();
+    }
+
+    /* the column families are updated with their indexes, which the embedded cassandra builds from the loaded data */
+    private void createDeferredIndexes(DataSet dataSet, LoadingOption loadingOption) {
+        String keyspaceName = dataSet.getKeyspace().getName();
+        List<ColumnFamilyDefinition> columnFamilyDefinitions = createColumnFamilyDefinitions(dataSet, loadingOption, true);
+        List<ColumnFamilyDefinition> indexedColumnFamilies = new ArrayList<ColumnFamilyDefinition>();
+        for (int i = 0; i < columnFamilyDefinitions.size(); i++) {
+            if (hasIndex(dataSet.getColumnFamilies().get(i))) {
+                ColumnFamilyDefinition columnFamilyDefinition = columnFamilyDefinitions.get(i);
+                log.info("creating secondary indexes of column family : {}", columnFamilyDefinition.getName());
+                DeferredIndexes.forgetDroppedIndexes(keyspaceName, columnFamilyDefinition.getName());
+                cluster.updateColumnFamily(columnFamilyDefinition);
+                indexedColumnFamilies.add(columnFamilyDefinition);
+            }
+        }
+        updateCaching(keyspaceName, indexedColumnFamilies, loadingOption);
+        for (ColumnFamilyDefinition indexedColumnFamily : indexedColumnFamilies) {
+            DeferredIndexes.awaitBuild(keyspaceName, indexedColumnFamily.getName());
+        }
+    }
+
+    /* hector doesn't carry the caching of column families, so it is set on the embedded cassandra when loaded into */
+    private void updateCaching(String keyspaceName, List<ColumnFamilyDefinition> columnFamilyDefinitions,
+                               LoadingOption loadingOption) {
+        Boolean embeddedCassandraHost = null;
+        for (ColumnFamilyDefinition columnFamilyDefinition : columnFamilyDefinitions) {
+            TableOptions tableOptions = loadingOption.getTableOptions(columnFamilyDefinition.getName());
+            if (tableOptions == null || tableOptions.getCaching() == null) {
+                continue;
+            }
+            if (embeddedCassandraHost == null) {
+                embeddedCassandraHost = isEmbeddedCassandraHost();
+            }
+            CFMetaData columnFamily = embeddedCassandraHost
+                    ? Schema.instance.getCFMetaData(keyspaceName, columnFamilyDefinition.getName()) : null;
+            if (columnFamily == null) {
+                log.warn("caching of column family {} left unchanged, as it needs to load into the embedded cassandra",
+                        columnFamilyDefinition.getName());
+                continue;
+            }
+            try {
+                columnFamily = columnFamily.clone();
+                columnFamily.caching(CFMetaData.Caching.fromString(tableOptions.getCaching()));
+                MigrationManager.announceColumnFamilyUpdate(columnFamily, false);
+            } catch (ConfigurationException e) {
+                throw new CassandraUnitException("Unable to set caching of column family "
+                        + columnFamilyDefinition.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * @return true if the hosts of this loader are the rpc address and port of the embedded cassandra of this JVM
+     */
+    private boolean isEmbeddedCassandraHost() {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            return false;
+        }
+        InetAddress rpcAddress = DatabaseDescriptor.getRpcAddress();
+        try {
+            for (CassandraHost cassandraHost : new CassandraHostConfigurator(host).buildCassandraHosts()) {
+                InetAddress address = InetAddress.getByName(cassandraHost.getHost());
+                boolean sameAddress = address.equals(rpcAddress) || (rpcAddress.isAnyLocalAddress()
+                        && (address.isLoopbackAddress() || NetworkInterface.getByInetAddress(address) != null));
+                if (!sameAddress || cassandraHost.getPort() != DatabaseDescriptor.getRpcPort()) {
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("unable to resolve " + host, e);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean hasIndex(ColumnFamilyModel columnFamily) {
+        for (ColumnMetadataModel columnMetadata : columnFamily.getColumnsMetadata()) {
+            if (columnMetadata.getColumnIndexType() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void dropKeyspaceIfExist(String keyspaceName) {
         KeyspaceDefinition existedKeyspace = cluster.describeKeyspace(keyspaceName);
         if (existedKeyspace != null) {
@@ -122,16 +412,18 @@ public class DataLoader {
         }
     }
 
-    private void loadData(DataSet dataSet, Keyspace keyspace) {
+    private void loadData(DataSet dataSet, Keyspace keyspace, PostLoadShaper postLoadShaper) {
         for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
-            loadColumnFamilyData(columnFamily, keyspace);
+            loadColumnFamilyData(columnFamily, columnFamily.getRows(), keyspace, postLoadShaper);
         }
 
     }
 
-    private void loadColumnFamilyData(ColumnFamilyModel columnFamily, Keyspace keyspace) {
+    private void loadColumnFamilyData(ColumnFamilyModel columnFamily, List<RowModel> rows, Keyspace keyspace,
+                                      PostLoadShaper postLoadShaper) {
         Mutator<GenericType> mutator = HFactory.createMutator(keyspace, GenericTypeSerializer.get());
-        for (RowModel row : columnFamily.getRows()) {
+        for (int i = 0; i < rows.size(); i++) {
+            RowModel row = rows.get(i);
             switch (columnFamily.getType()) {
                 case STANDARD:
                     loadStandardColumnFamilyData(columnFamily, mutator, row);
@@ -143,11 +435,78 @@ public class DataLoader {
                     break;
             }
 
+            if (postLoadShaper.isEndOfChunk(i, rows.size())) {
+                mutator.execute();
+                postLoadShaper.endOfChunk(keyspace.getKeyspaceName(), columnFamily.getName());
+            }
         }
         mutator.execute();
 
     }
 
+    /* schema is still created through thrift, rows are applied as mutations by the embedded cassandra itself */
+    private void loadDataInProcess(DataSet dataSet, PostLoadShaper postLoadShaper) {
+        String keyspaceName = dataSet.getKeyspace().getName();
+        for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
+            loadColumnFamilyDataInProcess(keyspaceName, columnFamily, columnFamily.getRows(), postLoadShaper);
+        }
+    }
+
+    private void loadColumnFamilyDataInProcess(String keyspaceName, ColumnFamilyModel columnFamily, List<RowModel> rows,
+                                               PostLoadShaper postLoadShaper) {
+        for (int i = 0; i < rows.size(); i++) {
+            RowModel row = rows.get(i);
+            RowMutation rowMutation = new RowMutation(keyspaceName, GenericTypeSerializer.get().toByteBuffer(row.getKey()));
+            switch (columnFamily.getType()) {
+                case STANDARD:
+                    addColumns(rowMutation, columnFamily, null, row.getColumns());
+                    break;
+                case SUPER:
+                    for (SuperColumnModel superColumnModel : row.getSuperColumns()) {
+                        addColumns(rowMutation, columnFamily, superColumnModel.getName(), superColumnModel.getColumns());
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (columnFamily.isCounter()) {
+                new CounterMutation(rowMutation, ConsistencyLevel.ONE).apply();
+            } else {
+                rowMutation.apply();
+            }
+
+            if (postLoadShaper.isEndOfChunk(i, rows.size())) {
+                postLoadShaper.endOfChunk(keyspaceName, columnFamily.getName());
+            }
+        }
+    }
+
+    private void addColumns(RowMutation rowMutation, ColumnFamilyModel columnFamily, GenericType superColumnName,
+                            List<ColumnModel> columnsModel) {
+        for (ColumnModel columnModel : columnsModel) {
+            ByteBuffer columnName = GenericTypeSerializer.get().toByteBuffer(columnModel.getName());
+            if (superColumnName != null) {
+                /* super columns are stored as composite (super column name, column name) */
+                columnName = CompositeType.build(GenericTypeSerializer.get().toByteBuffer(superColumnName), columnName);
+            }
+            if (columnFamily.isCounter()) {
+                rowMutation.addCounter(columnFamily.getName(), columnName,
+                        LongSerializer.get().fromByteBuffer(GenericTypeSerializer.get().toByteBuffer(columnModel.getValue())));
+            } else {
+                GenericType columnValue = columnModel.getValue();
+                if (columnValue == null) {
+                    columnValue = new GenericType("", GenericTypeEnum.BYTES_TYPE);
+                }
+                Long timestamp = columnModel.getTimestamp();
+                if (timestamp == null) {
+                    timestamp = System.currentTimeMillis();
+                }
+                rowMutation.add(columnFamily.getName(), columnName, GenericTypeSerializer.get().toByteBuffer(columnValue),
+                        timestamp);
+            }
+        }
+    }
+
     private void loadSuperColumnFamilyData(ColumnFamilyModel columnFamily, Mutator<GenericType> mutator, RowModel row) {
         if (columnFamily.isCounter()) {
             for (SuperColumnModel superColumnModel : row.getSuperColumns()) {
@@ -207,14 +566,15 @@ public class DataLoader {
         return hColumns;
     }
 
-    private List<ColumnFamilyDefinition> createColumnFamilyDefinitions(DataSet dataSet) {
+    private List<ColumnFamilyDefinition> createColumnFamilyDefinitions(DataSet dataSet, LoadingOption loadingOption,
+                                                                       boolean withIndexes) {
         KeyspaceModel dataSetKeyspace = dataSet.getKeyspace();
         List<ColumnFamilyDefinition> columnFamilyDefinitions = new ArrayList<ColumnFamilyDefinition>();
         for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
             ColumnFamilyDefinition cfDef = HFactory.createColumnFamilyDefinition(dataSetKeyspace.getName(),
                     columnFamily.getName(),
                     ComparatorType.getByClassName(columnFamily.getComparatorType().getClassName()),
-                    createColumnsDefinition(columnFamily.getColumnsMetadata()));
+                    createColumnsDefinition(columnFamily.getColumnsMetadata(), withIndexes));
             cfDef.setColumnType(columnFamily.getType());
             cfDef.setComment(columnFamily.getComment());
 
@@ -234,6 +594,17 @@ public class DataLoader {
                 cfDef.setGcGraceSeconds(columnFamily.getGcGraceSeconds());
             }
 
+            /* the compaction options of the dataset strategy may not apply to the replacing one */
+            TableOptions tableOptions = loadingOption.getTableOptions(columnFamily.getName());
+            if (tableOptions != null && tableOptions.getCompactionStrategy() != null) {
+                cfDef.setCompactionStrategy(tableOptions.getCompactionStrategy());
+                cfDef.setCompactionStrategyOptions(new HashMap<String, String>());
+            }
+
+            if (tableOptions != null && tableOptions.getGcGraceSeconds() != null) {
+                cfDef.setGcGraceSeconds(tableOptions.getGcGraceSeconds());
+            }
+
             if (columnFamily.getMaxCompactionThreshold() != null) {
                 cfDef.setMaxCompactionThreshold(columnFamily.getMaxCompactionThreshold());
             }
@@ -270,7 +641,7 @@ public class DataLoader {
         return columnFamilyDefinitions;
     }
 
-    private List<ColumnDefinition> createColumnsDefinition(List<ColumnMetadataModel> columnsMetadata) {
+    private List<ColumnDefinition> createColumnsDefinition(List<ColumnMetadataModel> columnsMetadata, boolean withIndexes) {
         List<ColumnDefinition> columnsDefinition = new ArrayList<ColumnDefinition>();
         for (ColumnMetadataModel columnMetadata : columnsMetadata) {
             BasicColumnDefinition columnDefinition = new BasicColumnDefinition();
@@ -278,7 +649,7 @@ public class DataLoader {
             GenericType columnName = columnMetadata.getColumnName();
             columnDefinition.setName(GenericTypeSerializer.get().toByteBuffer(columnName));
 
-            if (columnMetadata.getColumnIndexType() != null) {
+            if (withIndexes && columnMetadata.getColumnIndexType() != null) {
                 String indexName = columnMetadata.getIndexName();
                 columnDefinition.setIndexName((indexName == null) ? columnName.getValue() : indexName);
                 columnDefinition.setIndexType(columnMetadata.getColumnIndexType());
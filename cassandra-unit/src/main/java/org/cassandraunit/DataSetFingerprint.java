@@ -0,0 +1,301 @@
+package org.cassandraunit;
+
+import me.prettyprint.hector.api.ddl.ComparatorType;
+import org.apache.cassandra.config.KSMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.db.commitlog.ReplayPosition;
+import org.apache.cassandra.exceptions.RequestExecutionException;
+import org.apache.cassandra.exceptions.RequestValidationException;
+import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Hex;
+import org.apache.cassandra.utils.Pair;
+import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.model.ColumnFamilyModel;
+import org.cassandraunit.model.KeyspaceModel;
+import org.cassandraunit.model.RowModel;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content hash of a dataset, stored with the write generation of its keyspace in a marker table of the keyspace, so
+ * that loading the same dataset again into a keyspace nobody wrote to since can be skipped.
+ * The write generation counts the writes and truncations of the keyspace tables by the embedded cassandra of this
+ * JVM, and digests the keyspace schema so that tables created, dropped or altered since count too. A keyspace loaded
+ * by another JVM is always loaded again.
+ */
+final class DataSetFingerprint {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSetFingerprint.class);
+    static final String MARKER_TABLE = "cassandra_unit_dataset";
+    private static final String JVM_INSTANCE = UUID.randomUUID().toString();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final AtomicLong lastTimestamp = new AtomicLong();
+
+    private DataSetFingerprint() {
+    }
+
+    static String of(CQLDataSet dataSet, LoadingOption loadingOption) {
+        return of(dataSet, dataSet.getCQLStatements(), loadingOption);
+    }
+
+    /**
+     * @return hash of the dataset restricted to some of its statements
+     */
+    static String of(CQLDataSet dataSet, List<String> statements, LoadingOption loadingOption) {
+        MessageDigest digest = newDigest();
+        update(digest, dataSet.getKeyspaceName());
+        update(digest, dataSet.isKeyspaceCreation() + ":" + dataSet.isKeyspaceDeletion() + ":" + dataSet.isUseKeyspace());
+        for (String statement : statements) {
+            update(digest, statement);
+        }
+        updateFields(digest, loadingOption);
+        return Hex.bytesToHex(digest.digest());
+    }
+
+    static String of(DataSet dataSet, LoadingOption loadingOption) {
+        MessageDigest digest = newDigest();
+        updateFields(digest, dataSet.getKeyspace());
+        updateFields(digest, dataSet.getColumnFamilies());
+        updateFields(digest, loadingOption);
+        return Hex.bytesToHex(digest.digest());
+    }
+
+    /**
+     * @return hash of the dataset without its rows
+     */
+    static String ofSchema(DataSet dataSet, LoadingOption loadingOption) {
+        MessageDigest digest = newDigest();
+        KeyspaceModel keyspace = dataSet.getKeyspace();
+        update(digest, keyspace.getName() + ":" + keyspace.getStrategy() + ":" + keyspace.getReplicationFactor());
+        for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
+            for (Field field : getFields(ColumnFamilyModel.class)) {
+                if (!"rows".equals(field.getName())) {
+                    updateFields(digest, getField(field, columnFamily));
+                }
+            }
+        }
+        updateFields(digest, loadingOption);
+        return Hex.bytesToHex(digest.digest());
+    }
+
+    static String of(RowModel row) {
+        MessageDigest digest = newDigest();
+        updateFields(digest, row);
+        return Hex.bytesToHex(digest.digest());
+    }
+
+    static String of(List<String> values) {
+        MessageDigest digest = newDigest();
+        for (String value : values) {
+            update(digest, value);
+        }
+        return Hex.bytesToHex(digest.digest());
+    }
+
+    /**
+     * @return true if keyspace holds the dataset of this fingerprint and was not written since it was loaded
+     */
+    static boolean isLoaded(String keyspace, String fingerprint) {
+        checkEmbeddedCassandraStarted();
+        String keyspaceName = resolve(keyspace);
+        if (keyspaceName == null || Schema.instance.getCFMetaData(keyspaceName, MARKER_TABLE) == null) {
+            return false;
+        }
+        UntypedResultSet marker = QueryProcessor.processInternal("SELECT fingerprint, generation FROM \"" + keyspaceName
+                + "\"." + MARKER_TABLE + " WHERE id = 0");
+        if (marker.isEmpty()) {
+            return false;
+        }
+        UntypedResultSet.Row row = marker.one();
+        boolean loaded = fingerprint.equals(row.getString("fingerprint"))
+                && generation(keyspaceName).equals(row.getString("generation"));
+        log.debug("dataset {} already loaded into {} : {}", new Object[]{fingerprint, keyspaceName, loaded});
+        return loaded;
+    }
+
+    /**
+     * record that keyspace now holds the dataset of this fingerprint
+     */
+    static void mark(String keyspace, String fingerprint) {
+        checkEmbeddedCassandraStarted();
+        String keyspaceName = resolve(keyspace);
+        if (keyspaceName == null) {
+            return;
+        }
+        if (Schema.instance.getCFMetaData(keyspaceName, MARKER_TABLE) == null) {
+            String createQuery = "CREATE TABLE \"" + keyspaceName + "\"." + MARKER_TABLE
+                    + " (id int PRIMARY KEY, fingerprint text, generation text)";
+            try {
+                QueryProcessor.process(createQuery, ConsistencyLevel.ONE, QueryState.forInternalCalls());
+            } catch (RequestExecutionException e) {
+                throw new CassandraUnitException("Unable to create dataset marker of keyspace " + keyspaceName, e);
+            } catch (RequestValidationException e) {
+                throw new CassandraUnitException("Unable to create dataset marker of keyspace " + keyspaceName, e);
+            }
+        }
+        QueryProcessor.processInternal("INSERT INTO \"" + keyspaceName + "\"." + MARKER_TABLE
+                + " (id, fingerprint, generation) VALUES (0, '" + fingerprint + "', '" + generation(keyspaceName)
+                + "') USING TIMESTAMP " + nextTimestamp());
+    }
+
+    /**
+     * @return a write timestamp above the previous one, internal queries in the same millisecond getting the same
+     * timestamp otherwise
+     */
+    static long nextTimestamp() {
+        while (true) {
+            long last = lastTimestamp.get();
+            long timestamp = Math.max(last + 1, FBUtilities.timestampMicros());
+            if (lastTimestamp.compareAndSet(last, timestamp)) {
+                return timestamp;
+            }
+        }
+    }
+
+    /* writes to the marker tables themselves don't count */
+    private static String generation(String keyspaceName) {
+        long writeCount = 0;
+        long truncatedAt = 0;
+        Map<UUID, Pair<ReplayPosition, Long>> truncationRecords = SystemKeyspace.getTruncationRecords();
+        List<String> schema = new ArrayList<String>();
+        for (ColumnFamilyStore store : Keyspace.open(keyspaceName).getColumnFamilyStores()) {
+            if (!isMarkerTable(store.name)) {
+                writeCount += store.metric.writeLatency.latency.count();
+                truncatedAt += truncatedAt(truncationRecords, store);
+                /* a table created again gets another id, an altered one other metadata */
+                schema.add(store.metadata.cfId + ":" + store.metadata.hashCode());
+            }
+        }
+        Collections.sort(schema);
+        KSMetaData keyspaceMetadata = Schema.instance.getKSMetaData(keyspaceName);
+        schema.add(keyspaceMetadata.strategyClass.getName() + ":" + keyspaceMetadata.strategyOptions + ":"
+                + keyspaceMetadata.durableWrites);
+        return JVM_INSTANCE + ":" + writeCount + ":" + truncatedAt + ":" + of(schema);
+    }
+
+    /**
+     * @return write generation of a single table, changed by any write or truncation of the table in this JVM
+     */
+    static String generation(String keyspaceName, String table) {
+        ColumnFamilyStore store = Keyspace.open(keyspaceName).getColumnFamilyStore(table);
+        return JVM_INSTANCE + ":" + store.metric.writeLatency.latency.count() + ":"
+                + truncatedAt(SystemKeyspace.getTruncationRecords(), store);
+    }
+
+    private static long truncatedAt(Map<UUID, Pair<ReplayPosition, Long>> truncationRecords, ColumnFamilyStore store) {
+        Pair<ReplayPosition, Long> truncationRecord = truncationRecords.get(store.metadata.cfId);
+        return truncationRecord == null ? 0 : truncationRecord.right;
+    }
+
+    static boolean isMarkerTable(String table) {
+        return MARKER_TABLE.equals(table) || IncrementalReload.TABLES_MARKER.equals(table)
+                || IncrementalReload.PARTITIONS_MARKER.equals(table);
+    }
+
+    /* unquoted CQL names are case insensitive */
+    static String resolve(String keyspace) {
+        KSMetaData keyspaceMetadata = Schema.instance.getKSMetaData(keyspace);
+        if (keyspaceMetadata == null) {
+            keyspaceMetadata = Schema.instance.getKSMetaData(keyspace.toLowerCase());
+        }
+        return keyspaceMetadata == null ? null : keyspaceMetadata.name;
+    }
+
+    static void checkEmbeddedCassandraStarted() {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("Skipping unchanged datasets and incremental reloads need the embedded cassandra to be started in this JVM");
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new CassandraUnitException("Unable to compute dataset fingerprint", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /* models of cassandra-unit are walked through their fields, so that new fields are part of the fingerprint */
+    private static void updateFields(MessageDigest digest, Object value) {
+        if (value == null) {
+            update(digest, null);
+        } else if (value instanceof Collection) {
+            update(digest, "[" + ((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                updateFields(digest, element);
+            }
+        } else if (value instanceof Map) {
+            update(digest, "{" + ((Map<?, ?>) value).size());
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                updateFields(digest, entry.getKey());
+                updateFields(digest, entry.getValue());
+            }
+        } else if (value instanceof Object[]) {
+            updateFields(digest, Arrays.asList((Object[]) value));
+        } else if (value instanceof ComparatorType) {
+            update(digest, ((ComparatorType) value).getClassName());
+        } else if (value.getClass().getName().startsWith("org.cassandraunit.") && !value.getClass().isEnum()) {
+            update(digest, value.getClass().getName());
+            for (Field field : getFields(value.getClass())) {
+                updateFields(digest, getField(field, value));
+            }
+        } else {
+            update(digest, value.toString());
+        }
+    }
+
+    private static Object getField(Field field, Object value) {
+        try {
+            return field.get(value);
+        } catch (IllegalAccessException e) {
+            throw new CassandraUnitException("Unable to compute dataset fingerprint", e);
+        }
+    }
+
+    private static List<Field> getFields(Class<?> type) {
+        List<Field> fields = new ArrayList<Field>();
+        for (Field field : type.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        Collections.sort(fields, new Comparator<Field>() {
+            @Override
+            public int compare(Field field, Field otherField) {
+                return field.getName().compareTo(otherField.getName());
+            }
+        });
+        return fields;
+    }
+}
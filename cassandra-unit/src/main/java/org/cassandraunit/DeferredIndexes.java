@@ -0,0 +1,75 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Secondary indexes created once the data of their table is loaded : the embedded cassandra then builds each of them
+ * from the flushed sstables in one pass, instead of updating it on every write of the load.
+ */
+final class DeferredIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(DeferredIndexes.class);
+    private static final long BUILD_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long BUILD_POLL_MILLIS = 50;
+
+    private DeferredIndexes() {
+    }
+
+    static void checkEmbeddedCassandraStarted() {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("Deferred index creation needs the embedded cassandra to be started in this JVM");
+        }
+    }
+
+    /**
+     * forget the build markers of the indexes table doesn't have anymore, as markers outlive the drop of their
+     * keyspace and cassandra would skip building indexes created again with the same names
+     */
+    static void forgetDroppedIndexes(String keyspace, String table) {
+        String keyspaceName = DataSetFingerprint.resolve(keyspace);
+        Set<String> indexNames = Keyspace.open(keyspaceName).getColumnFamilyStore(table).indexManager.allIndexesNames();
+        UntypedResultSet markers = QueryProcessor.processInternal("SELECT index_name FROM system.\""
+                + SystemKeyspace.INDEX_CF + "\" WHERE table_name = '" + keyspaceName + "'");
+        for (UntypedResultSet.Row marker : markers) {
+            String indexName = marker.getString("index_name");
+            if (indexName.startsWith(table + Directories.SECONDARY_INDEX_NAME_SEPARATOR) && !indexNames.contains(indexName)) {
+                SystemKeyspace.setIndexRemoved(keyspaceName, indexName);
+            }
+        }
+    }
+
+    /**
+     * wait until all the indexes of table are built
+     */
+    static void awaitBuild(String keyspace, String table) {
+        ColumnFamilyStore store = Keyspace.open(DataSetFingerprint.resolve(keyspace)).getColumnFamilyStore(table);
+        long deadline = System.currentTimeMillis() + BUILD_TIMEOUT_MILLIS;
+        while (!new HashSet<String>(store.indexManager.getBuiltIndexes()).containsAll(store.indexManager.allIndexesNames())) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new CassandraUnitException("Secondary indexes of " + keyspace + "." + table + " not built after "
+                        + BUILD_TIMEOUT_MILLIS + " ms");
+            }
+            try {
+                Thread.sleep(BUILD_POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CassandraUnitException("Interrupted while waiting for the secondary indexes of " + keyspace
+                        + "." + table, e);
+            }
+        }
+        log.debug("secondary indexes of {}.{} built", keyspace, table);
+    }
+}
@@ -0,0 +1,265 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.KSMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.UntypedResultSet;
+import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RowMutation;
+import org.apache.cassandra.db.filter.QueryFilter;
+import org.apache.cassandra.exceptions.RequestExecutionException;
+import org.apache.cassandra.exceptions.RequestValidationException;
+import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.utils.Hex;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per table and per partition content hashes of the dataset last loaded into a keyspace, kept in marker tables of the
+ * keyspace, so that loading a modified dataset again only deletes and writes the partitions which differ.
+ * A table written or truncated since it was loaded (as counted by the embedded cassandra of this JVM), or whose
+ * partitions can't be replaced one by one (counters, write timestamps set by the dataset), is truncated and loaded
+ * again as a whole when it differs.
+ */
+final class IncrementalReload {
+
+    private static final Logger log = LoggerFactory.getLogger(IncrementalReload.class);
+    static final String TABLES_MARKER = "cassandra_unit_tables";
+    static final String PARTITIONS_MARKER = "cassandra_unit_partitions";
+
+    private final String keyspace;
+    private final String schemaHash;
+    private final Map<String, Map<ByteBuffer, List<String>>> partitions = new LinkedHashMap<String, Map<ByteBuffer, List<String>>>();
+    private final Set<String> wholeTables = new HashSet<String>();
+    /* tables whose partitions were loaded again, null when the whole dataset was loaded */
+    private Set<String> reloadedTables = null;
+
+    /**
+     * @param schemaHash hash of everything in the dataset but its partitions, partitions of a dataset with another
+     *                   schema are never reused
+     */
+    IncrementalReload(String keyspace, String schemaHash) {
+        DataSetFingerprint.checkEmbeddedCassandraStarted();
+        this.keyspace = keyspace;
+        this.schemaHash = schemaHash;
+    }
+
+    void addPartitionContent(String table, ByteBuffer partition, String content) {
+        Map<ByteBuffer, List<String>> tablePartitions = partitions.get(table);
+        if (tablePartitions == null) {
+            tablePartitions = new LinkedHashMap<ByteBuffer, List<String>>();
+            partitions.put(table, tablePartitions);
+        }
+        List<String> partitionContent = tablePartitions.get(partition);
+        if (partitionContent == null) {
+            partitionContent = new ArrayList<String>();
+            tablePartitions.put(partition, partitionContent);
+        }
+        partitionContent.add(content);
+    }
+
+    /**
+     * the partitions of table can't be replaced one by one, the table will be truncated if it differs
+     */
+    void reloadAsAWhole(String table) {
+        wholeTables.add(table);
+    }
+
+    /**
+     * @return true if the keyspace holds a dataset with the same schema, loaded with incremental reload
+     */
+    boolean isSchemaLoaded() {
+        String keyspaceName = DataSetFingerprint.resolve(keyspace);
+        if (keyspaceName == null || Schema.instance.getCFMetaData(keyspaceName, TABLES_MARKER) == null) {
+            return false;
+        }
+        UntypedResultSet loadedTables = QueryProcessor.processInternal("SELECT table_name, schema_hash FROM \"" + keyspaceName
+                + "\"." + TABLES_MARKER);
+        if (loadedTables.isEmpty()) {
+            return false;
+        }
+        for (UntypedResultSet.Row loadedTable : loadedTables) {
+            if (!schemaHash.equals(loadedTable.getString("schema_hash"))
+                    || Schema.instance.getCFMetaData(keyspaceName, loadedTable.getString("table_name")) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * truncate the tables and delete the partitions of the keyspace which differ from the dataset
+     *
+     * @return partitions of the dataset to write, by table
+     */
+    Map<String, Set<ByteBuffer>> removeChangedPartitions() {
+        String keyspaceName = DataSetFingerprint.resolve(keyspace);
+        Map<String, Set<ByteBuffer>> partitionsToWrite = new HashMap<String, Set<ByteBuffer>>();
+        reloadedTables = new HashSet<String>();
+        for (String table : getTables(keyspaceName)) {
+            Map<ByteBuffer, String> partitionHashes = getPartitionHashes(table);
+            UntypedResultSet loadedTable = QueryProcessor.processInternal("SELECT hash, generation FROM \"" + keyspaceName
+                    + "\"." + TABLES_MARKER + " WHERE table_name = '" + table + "'");
+            boolean written = loadedTable.isEmpty() || !DataSetFingerprint.generation(keyspaceName, table)
+                    .equals(loadedTable.one().getString("generation"));
+            if (!written && getTableHash(partitionHashes).equals(loadedTable.one().getString("hash"))) {
+                continue;
+            }
+            reloadedTables.add(table);
+            if (written || wholeTables.contains(table)) {
+                log.debug("reloading table {}.{}", keyspaceName, table);
+                truncate(keyspaceName, table);
+                partitionsToWrite.put(table, partitionHashes.keySet());
+                continue;
+            }
+
+            Map<ByteBuffer, String> loadedPartitionHashes = getLoadedPartitionHashes(keyspaceName, table);
+            Set<ByteBuffer> changedPartitions = new HashSet<ByteBuffer>();
+            for (Map.Entry<ByteBuffer, String> loadedPartition : loadedPartitionHashes.entrySet()) {
+                if (!loadedPartition.getValue().equals(partitionHashes.get(loadedPartition.getKey()))) {
+                    deletePartition(keyspaceName, table, loadedPartition.getKey());
+                }
+            }
+            for (Map.Entry<ByteBuffer, String> partition : partitionHashes.entrySet()) {
+                if (!partition.getValue().equals(loadedPartitionHashes.get(partition.getKey()))) {
+                    changedPartitions.add(partition.getKey());
+                }
+            }
+            log.debug("reloading {} partitions of table {}.{}", new Object[]{changedPartitions.size(), keyspaceName, table});
+            partitionsToWrite.put(table, changedPartitions);
+        }
+        return partitionsToWrite;
+    }
+
+    /**
+     * record the hashes of the dataset, once its partitions are written
+     */
+    void record() {
+        String keyspaceName = DataSetFingerprint.resolve(keyspace);
+        if (keyspaceName == null) {
+            return;
+        }
+        createMarkerTables(keyspaceName);
+        for (String table : getTables(keyspaceName)) {
+            Map<ByteBuffer, String> partitionHashes = getPartitionHashes(table);
+            if (reloadedTables == null || reloadedTables.contains(table)) {
+                QueryProcessor.processInternal("DELETE FROM \"" + keyspaceName + "\"." + PARTITIONS_MARKER
+                        + " USING TIMESTAMP " + DataSetFingerprint.nextTimestamp() + " WHERE table_name = '" + table + "'");
+                for (Map.Entry<ByteBuffer, String> partition : partitionHashes.entrySet()) {
+                    QueryProcessor.processInternal("INSERT INTO \"" + keyspaceName + "\"." + PARTITIONS_MARKER
+                            + " (table_name, partition, hash) VALUES ('" + table + "', 0x"
+                            + Hex.bytesToHex(toArray(partition.getKey())) + ", '" + partition.getValue()
+                            + "') USING TIMESTAMP " + DataSetFingerprint.nextTimestamp());
+                }
+            }
+            QueryProcessor.processInternal("INSERT INTO \"" + keyspaceName + "\"." + TABLES_MARKER
+                    + " (table_name, schema_hash, hash, generation) VALUES ('" + table + "', '" + schemaHash + "', '"
+                    + getTableHash(partitionHashes) + "', '" + DataSetFingerprint.generation(keyspaceName, table)
+                    + "') USING TIMESTAMP " + DataSetFingerprint.nextTimestamp());
+        }
+    }
+
+    /* tables of the keyspace without data in the dataset are kept empty as well */
+    private List<String> getTables(String keyspaceName) {
+        List<String> tables = new ArrayList<String>();
+        KSMetaData keyspaceMetadata = Schema.instance.getKSMetaData(keyspaceName);
+        for (CFMetaData metadata : keyspaceMetadata.cfMetaData().values()) {
+            if (!DataSetFingerprint.isMarkerTable(metadata.cfName)) {
+                tables.add(metadata.cfName);
+            }
+        }
+        return tables;
+    }
+
+    private Map<ByteBuffer, String> getPartitionHashes(String table) {
+        Map<ByteBuffer, String> partitionHashes = new HashMap<ByteBuffer, String>();
+        Map<ByteBuffer, List<String>> tablePartitions = partitions.get(table);
+        if (tablePartitions != null) {
+            for (Map.Entry<ByteBuffer, List<String>> partition : tablePartitions.entrySet()) {
+                partitionHashes.put(partition.getKey(), DataSetFingerprint.of(partition.getValue()));
+            }
+        }
+        return partitionHashes;
+    }
+
+    private String getTableHash(Map<ByteBuffer, String> partitionHashes) {
+        List<ByteBuffer> partitionKeys = new ArrayList<ByteBuffer>(partitionHashes.keySet());
+        Collections.sort(partitionKeys);
+        List<String> tableContent = new ArrayList<String>();
+        for (ByteBuffer partitionKey : partitionKeys) {
+            tableContent.add(Hex.bytesToHex(toArray(partitionKey)) + ":" + partitionHashes.get(partitionKey));
+        }
+        return DataSetFingerprint.of(tableContent);
+    }
+
+    private Map<ByteBuffer, String> getLoadedPartitionHashes(String keyspaceName, String table) {
+        Map<ByteBuffer, String> loadedPartitionHashes = new HashMap<ByteBuffer, String>();
+        /* selects are limited to 10000 rows by default */
+        for (UntypedResultSet.Row loadedPartition : QueryProcessor.processInternal("SELECT partition, hash FROM \""
+                + keyspaceName + "\"." + PARTITIONS_MARKER + " WHERE table_name = '" + table + "' LIMIT "
+                + Integer.MAX_VALUE)) {
+            loadedPartitionHashes.put(loadedPartition.getBytes("partition"), loadedPartition.getString("hash"));
+        }
+        return loadedPartitionHashes;
+    }
+
+    private static void createMarkerTables(String keyspaceName) {
+        if (Schema.instance.getCFMetaData(keyspaceName, TABLES_MARKER) == null) {
+            process("CREATE TABLE \"" + keyspaceName + "\"." + TABLES_MARKER
+                    + " (table_name text PRIMARY KEY, schema_hash text, hash text, generation text)");
+        }
+        if (Schema.instance.getCFMetaData(keyspaceName, PARTITIONS_MARKER) == null) {
+            process("CREATE TABLE \"" + keyspaceName + "\"." + PARTITIONS_MARKER
+                    + " (table_name text, partition blob, hash text, PRIMARY KEY (table_name, partition))");
+        }
+    }
+
+    private static void truncate(String keyspaceName, String table) {
+        process("TRUNCATE \"" + keyspaceName + "\".\"" + table + "\"");
+    }
+
+    /* the tombstone shadows what was loaded, not the partition written again right after */
+    private static void deletePartition(String keyspaceName, String table, ByteBuffer partition) {
+        ColumnFamily loaded = Keyspace.open(keyspaceName).getColumnFamilyStore(table).getColumnFamily(
+                QueryFilter.getIdentityFilter(StorageService.getPartitioner().decorateKey(partition), table,
+                        System.currentTimeMillis()));
+        if (loaded == null) {
+            return;
+        }
+        RowMutation mutation = new RowMutation(keyspaceName, partition);
+        mutation.delete(table, loaded.maxTimestamp());
+        mutation.apply();
+    }
+
+    private static void process(String query) {
+        log.debug("executing : " + query);
+        try {
+            QueryProcessor.process(query, ConsistencyLevel.ONE, QueryState.forInternalCalls());
+        } catch (RequestExecutionException e) {
+            throw new CassandraUnitException("Unable to execute " + query, e);
+        } catch (RequestValidationException e) {
+            throw new CassandraUnitException("Unable to execute " + query, e);
+        }
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,405 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.dataset.KeyspaceRenamingDataSet;
+import org.cassandraunit.dataset.cql.KeyspaceRenamingCQLDataSet;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.utils.CQLSessionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Copies of a dataset, each loaded into a keyspace of its own, kept ready in the background so that tests don't wait
+ * for the dataset to load.
+ * A test leases a clean copy, and once released, the copy is reset (tables truncated and data loaded again) in the
+ * background before being leased again.
+ * <blockquote><pre>
+ * private static final KeyspacePool pool = new KeyspacePool(new ClassPathCQLDataSet("cql/data.cql", "mykeyspace"), 4);
+ *
+ * &#64;Rule
+ * public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(pool);
+ * </pre></blockquote>
+ * Copies are loaded on the first lease, once the cassandra they are loaded into is started, and are dropped by close().
+ * Cleaning the embedded cassandra drops them as well, so the pool must be closed before. A copy which fails to load or
+ * to reset is dropped and loaded again from scratch, leases only failing once every copy failed to load a few times.
+ */
+public class KeyspacePool {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyspacePool.class);
+    private static final AtomicInteger poolCount = new AtomicInteger();
+    private static final int MAX_LOADING_ATTEMPTS = 3;
+    private static final Pattern SCHEMA_STATEMENT_PATTERN = Pattern.compile("\\s*(CREATE|ALTER|DROP)\\s",
+            Pattern.CASE_INSENSITIVE);
+
+    private final CQLDataSet cqlDataSet;
+    private final DataSet dataSet;
+    private final int size;
+    private final LoadingOption loadingOption;
+    private final String host;
+    private final int port;
+    private final String clusterName;
+
+    private final BlockingQueue<PooledKeyspace> available = new LinkedBlockingQueue<PooledKeyspace>();
+    private final Set<PooledKeyspace> leased = new HashSet<PooledKeyspace>();
+    /* not guarded by the pool lock, which close() holds while waiting for loading threads */
+    private final List<PooledKeyspace> copies = Collections.synchronizedList(new ArrayList<PooledKeyspace>());
+    private ExecutorService executor = null;
+    /* copies given up after failing to load MAX_LOADING_ATTEMPTS times */
+    private final AtomicInteger lostCopies = new AtomicInteger();
+    private volatile RuntimeException loadingFailure = null;
+    private volatile boolean closed = false;
+
+    public KeyspacePool(CQLDataSet dataSet, int size) {
+        this(dataSet, size, new LoadingOption());
+    }
+
+    public KeyspacePool(CQLDataSet dataSet, int size, LoadingOption loadingOption) {
+        this(dataSet, size, loadingOption, "localhost", 9142);
+    }
+
+    public KeyspacePool(CQLDataSet dataSet, int size, LoadingOption loadingOption, String host, int port) {
+        this(dataSet, null, size, loadingOption, host, port, null);
+    }
+
+    public KeyspacePool(DataSet dataSet, int size) {
+        this(dataSet, size, new LoadingOption());
+    }
+
+    public KeyspacePool(DataSet dataSet, int size, LoadingOption loadingOption) {
+        this(dataSet, size, loadingOption, CassandraUnit.clusterName, CassandraUnit.host);
+    }
+
+    /**
+     * @param host host:port of the thrift interface
+     */
+    public KeyspacePool(DataSet dataSet, int size, LoadingOption loadingOption, String clusterName, String host) {
+        this(null, dataSet, size, loadingOption, host, 0, clusterName);
+    }
+
+    private KeyspacePool(CQLDataSet cqlDataSet, DataSet dataSet, int size, LoadingOption loadingOption, String host,
+                         int port, String clusterName) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Pool size must be greater than 0");
+        }
+        if (loadingOption.isUniqueKeyspace()) {
+            throw new IllegalArgumentException("Pooled keyspaces are already unique, unique keyspace option must not be set");
+        }
+        this.cqlDataSet = cqlDataSet;
+        this.dataSet = dataSet;
+        this.size = size;
+        this.loadingOption = loadingOption;
+        this.host = host;
+        this.port = port;
+        this.clusterName = clusterName;
+    }
+
+    /**
+     * wait for a clean copy of the dataset, the first lease starting the loading of the copies
+     */
+    public PooledKeyspace lease() {
+        start();
+        try {
+            while (true) {
+                if (lostCopies.get() >= size) {
+                    throw new CassandraUnitException("Unable to load pooled keyspaces", loadingFailure);
+                }
+                if (closed) {
+                    throw new IllegalStateException("Keyspace pool is closed");
+                }
+                PooledKeyspace pooledKeyspace = available.poll(100, TimeUnit.MILLISECONDS);
+                if (pooledKeyspace != null) {
+                    synchronized (this) {
+                        leased.add(pooledKeyspace);
+                    }
+                    log.debug("leasing keyspace {}", pooledKeyspace.getName());
+                    return pooledKeyspace;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraUnitException("Interrupted while waiting for a pooled keyspace", e);
+        }
+    }
+
+    /**
+     * give the copy back to the pool, where it is reset in the background
+     */
+    public synchronized void release(final PooledKeyspace pooledKeyspace) {
+        if (!leased.remove(pooledKeyspace)) {
+            throw new IllegalArgumentException("Keyspace " + pooledKeyspace.getName() + " is not leased from this pool");
+        }
+        if (closed) {
+            return;
+        }
+        log.debug("releasing keyspace {}", pooledKeyspace.getName());
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reset(pooledKeyspace);
+                    available.add(pooledKeyspace);
+                } catch (RuntimeException e) {
+                    if (!closed) {
+                        log.error("Unable to reset pooled keyspace " + pooledKeyspace.getName()
+                                + ", loading another copy instead", e);
+                        discard(pooledKeyspace);
+                        loadCopy();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * stop loading copies and drop their keyspaces, leased ones included
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (copies) {
+            for (PooledKeyspace pooledKeyspace : copies) {
+                try {
+                    drop(pooledKeyspace);
+                } catch (RuntimeException e) {
+                    log.warn("Unable to drop pooled keyspace " + pooledKeyspace.getName(), e);
+                }
+            }
+            copies.clear();
+        }
+        available.clear();
+        leased.clear();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    String getClusterName() {
+        return clusterName;
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    private synchronized void start() {
+        if (executor != null || closed) {
+            return;
+        }
+        final String poolName = "cassandra-unit-keyspace-pool-" + poolCount.incrementAndGet();
+        executor = Executors.newFixedThreadPool(Math.min(size, Runtime.getRuntime().availableProcessors()),
+                new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, poolName + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        for (int i = 0; i < size; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    loadCopy();
+                }
+            });
+        }
+    }
+
+    /* a failed attempt leaves no partially loaded copy behind */
+    private void loadCopy() {
+        for (int attempt = 1; !closed; attempt++) {
+            try {
+                available.add(load());
+                return;
+            } catch (RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                log.error("Unable to load pooled keyspace, attempt " + attempt + " of " + MAX_LOADING_ATTEMPTS, e);
+                if (attempt >= MAX_LOADING_ATTEMPTS) {
+                    loadingFailure = e;
+                    lostCopies.incrementAndGet();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void discard(PooledKeyspace pooledKeyspace) {
+        copies.remove(pooledKeyspace);
+        try {
+            drop(pooledKeyspace);
+        } catch (RuntimeException e) {
+            log.warn("Unable to drop pooled keyspace " + pooledKeyspace.getName(), e);
+        }
+    }
+
+    private PooledKeyspace load() {
+        PooledKeyspace pooledKeyspace;
+        if (cqlDataSet != null) {
+            KeyspaceRenamingCQLDataSet copy = new KeyspaceRenamingCQLDataSet(cqlDataSet,
+                    CQLDataLoader.uniqueKeyspaceName(cqlDataSet.getKeyspaceName() != null ? cqlDataSet.getKeyspaceName()
+                            : CQLDataLoader.DEFAULT_KEYSPACE_NAME));
+            if (copy.getKeyspaceName() == null) {
+                throw new CassandraUnitException("Dataset neither creates nor names a keyspace to load copies into");
+            }
+            /* a session of its own, bound to the copy, on the shared cluster */
+            Session session = CQLSessionRegistry.acquire(host, port);
+            pooledKeyspace = new PooledKeyspace(copy.getKeyspaceName(), session, copy, null);
+            copies.add(pooledKeyspace);
+            try {
+                new CQLDataLoader(session).load(copy, loadingOption);
+            } catch (RuntimeException e) {
+                discard(pooledKeyspace);
+                throw e;
+            }
+        } else {
+            String keyspaceName = CQLDataLoader.uniqueKeyspaceName(dataSet.getKeyspace().getName());
+            KeyspaceRenamingDataSet copy = new KeyspaceRenamingDataSet(dataSet, keyspaceName);
+            pooledKeyspace = new PooledKeyspace(keyspaceName, null, null, copy);
+            copies.add(pooledKeyspace);
+            try {
+                new DataLoader(clusterName, host).load(copy, loadingOption);
+            } catch (RuntimeException e) {
+                discard(pooledKeyspace);
+                throw e;
+            }
+        }
+        log.debug("pooled keyspace {} loaded", pooledKeyspace.getName());
+        return pooledKeyspace;
+    }
+
+    private void reset(PooledKeyspace pooledKeyspace) {
+        if (pooledKeyspace.cqlCopy != null) {
+            Session session = pooledKeyspace.getSession();
+            for (String keyspaceName : pooledKeyspace.cqlCopy.getRenamedKeyspaces().values()) {
+                for (Row table : session.execute("SELECT columnfamily_name FROM system.schema_columnfamilies "
+                        + "WHERE keyspace_name='" + keyspaceName + "'")) {
+                    session.execute("TRUNCATE " + keyspaceName + "." + table.getString("columnfamily_name"));
+                }
+            }
+            new CQLDataLoader(session).load(new DataStatementsCQLDataSet(pooledKeyspace.cqlCopy), loadingOption);
+        } else {
+            new DataLoader(clusterName, host).reload(pooledKeyspace.copy, loadingOption);
+        }
+        log.debug("pooled keyspace {} reset", pooledKeyspace.getName());
+    }
+
+    private void drop(PooledKeyspace pooledKeyspace) {
+        if (pooledKeyspace.cqlCopy != null) {
+            Session session = pooledKeyspace.getSession();
+            try {
+                for (String keyspaceName : pooledKeyspace.cqlCopy.getRenamedKeyspaces().values()) {
+                    session.execute("DROP KEYSPACE IF EXISTS " + keyspaceName);
+                }
+            } finally {
+                CQLSessionRegistry.release(session);
+            }
+        } else {
+            new DataLoader(clusterName, host).getCluster().dropKeyspace(pooledKeyspace.getName(), true);
+        }
+    }
+
+    /**
+     * a copy leased from the pool
+     */
+    public static class PooledKeyspace {
+
+        private final String name;
+        private final Session session;
+        private final KeyspaceRenamingCQLDataSet cqlCopy;
+        private final KeyspaceRenamingDataSet copy;
+
+        private PooledKeyspace(String name, Session session, KeyspaceRenamingCQLDataSet cqlCopy,
+                               KeyspaceRenamingDataSet copy) {
+            this.name = name;
+            this.session = session;
+            this.cqlCopy = cqlCopy;
+            this.copy = copy;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return session bound to the keyspace of the copy, null for a pool of thrift datasets
+         */
+        public Session getSession() {
+            return session;
+        }
+    }
+
+    /* the statements writing data, schema being kept when a copy is reset */
+    private static class DataStatementsCQLDataSet implements CQLDataSet {
+
+        private final CQLDataSet dataSet;
+
+        private DataStatementsCQLDataSet(CQLDataSet dataSet) {
+            this.dataSet = dataSet;
+        }
+
+        @Override
+        public List<String> getCQLStatements() {
+            List<String> statements = new ArrayList<String>();
+            statements.add("USE " + dataSet.getKeyspaceName());
+            for (String statement : dataSet.getCQLStatements()) {
+                if (!SCHEMA_STATEMENT_PATTERN.matcher(statement).lookingAt()) {
+                    statements.add(statement);
+                }
+            }
+            return statements;
+        }
+
+        @Override
+        public String getKeyspaceName() {
+            return dataSet.getKeyspaceName();
+        }
+
+        @Override
+        public boolean isKeyspaceCreation() {
+            return false;
+        }
+
+        @Override
+        public boolean isKeyspaceDeletion() {
+            return false;
+        }
+
+        @Override
+        public boolean isUseKeyspace() {
+            return true;
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package org.cassandraunit;
 
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
+import org.cassandraunit.dataset.TableOptions;
 import org.cassandraunit.model.StrategyModel;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
 public class LoadingOption {
 
     private boolean onlySchema = false;
@@ -12,6 +19,23 @@ public class LoadingOption {
     private boolean overrideStrategy = false;
     private StrategyModel strategy = null;
 
+    /* post-load sstables shaping, only available on the embedded cassandra */
+    private boolean flushAfterLoad = false;
+    private boolean compactAfterLoad = false;
+    private boolean disableAutoCompaction = false;
+    private int sstableCountPerTable = 0;
+
+    private boolean inProcess = false;
+    private boolean bulkSchema = false;
+    private boolean uniqueKeyspace = false;
+    private boolean skipUnchangedDataSet = false;
+    private boolean incrementalReload = false;
+    private TableFilter tableFilter = null;
+    private RowSampling rowSampling = null;
+    private boolean deferIndexCreation = false;
+    private boolean throwawayKeyspace = false;
+    private final Map<String, TableOptions> tableOptions = new TreeMap<String, TableOptions>(String.CASE_INSENSITIVE_ORDER);
+
     public boolean isOnlySchema() {
         return onlySchema;
     }
@@ -49,4 +73,183 @@ public class LoadingOption {
     public boolean isOverrideStrategy() {
         return overrideStrategy;
     }
+
+    public boolean isFlushAfterLoad() {
+        return flushAfterLoad;
+    }
+
+    /**
+     * flush loaded data into sstables, so that reads don't only hit memtables
+     */
+    public void setFlushAfterLoad(boolean flushAfterLoad) {
+        this.flushAfterLoad = flushAfterLoad;
+    }
+
+    public boolean isCompactAfterLoad() {
+        return compactAfterLoad;
+    }
+
+    /**
+     * run a major compaction once loaded, leaving one sstable per table
+     */
+    public void setCompactAfterLoad(boolean compactAfterLoad) {
+        this.compactAfterLoad = compactAfterLoad;
+    }
+
+    public boolean isDisableAutoCompaction() {
+        return disableAutoCompaction;
+    }
+
+    public void setDisableAutoCompaction(boolean disableAutoCompaction) {
+        this.disableAutoCompaction = disableAutoCompaction;
+    }
+
+    public int getSSTableCountPerTable() {
+        return sstableCountPerTable;
+    }
+
+    /**
+     * load data in sstableCountPerTable flushed chunks, auto compaction being disabled to keep them apart
+     */
+    public void setSSTableCountPerTable(int sstableCountPerTable) {
+        if (sstableCountPerTable <= 0) {
+            throw new IllegalArgumentException("SSTable count per table must be greater than 0");
+        }
+        this.sstableCountPerTable = sstableCountPerTable;
+    }
+
+    public boolean isInProcess() {
+        return inProcess;
+    }
+
+    /**
+     * write data through the internal APIs of the embedded cassandra of this JVM, instead of thrift or the native
+     * protocol
+     */
+    public void setInProcess(boolean inProcess) {
+        this.inProcess = inProcess;
+    }
+
+    public boolean isBulkSchema() {
+        return bulkSchema;
+    }
+
+    /**
+     * apply keyspace and tables definitions as one schema migration on the embedded cassandra of this JVM, instead of
+     * one migration per definition
+     */
+    public void setBulkSchema(boolean bulkSchema) {
+        this.bulkSchema = bulkSchema;
+    }
+
+    public boolean isUniqueKeyspace() {
+        return uniqueKeyspace;
+    }
+
+    /**
+     * load a CQL dataset into a keyspace with a unique name, the keyspace references of its statements being rewritten,
+     * so that tests running in parallel don't share their data
+     */
+    public void setUniqueKeyspace(boolean uniqueKeyspace) {
+        this.uniqueKeyspace = uniqueKeyspace;
+    }
+
+    public boolean isSkipUnchangedDataSet() {
+        return skipUnchangedDataSet;
+    }
+
+    /**
+     * skip the load when the keyspace already holds the same dataset, loaded with the same options, and was not written
+     * since, as recorded by a marker table of the keyspace on the embedded cassandra of this JVM
+     */
+    public void setSkipUnchangedDataSet(boolean skipUnchangedDataSet) {
+        this.skipUnchangedDataSet = skipUnchangedDataSet;
+    }
+
+    public boolean isIncrementalReload() {
+        return incrementalReload;
+    }
+
+    /**
+     * when the keyspace already holds a dataset with the same schema, only delete and write again the partitions which
+     * differ, according to per table and per partition content hashes kept in marker tables of the keyspace;
+     * needs the embedded cassandra of this JVM
+     */
+    public void setIncrementalReload(boolean incrementalReload) {
+        this.incrementalReload = incrementalReload;
+    }
+
+    public TableFilter getTableFilter() {
+        return tableFilter;
+    }
+
+    /**
+     * only load the schema and data of the tables (column families) accepted by tableFilter
+     */
+    public void setTableFilter(TableFilter tableFilter) {
+        this.tableFilter = tableFilter;
+    }
+
+    public RowSampling getRowSampling() {
+        return rowSampling;
+    }
+
+    /**
+     * only load the rows of the partitions sampled by rowSampling, the schema being loaded as a whole
+     */
+    public void setRowSampling(RowSampling rowSampling) {
+        this.rowSampling = rowSampling;
+    }
+
+    public boolean isDeferIndexCreation() {
+        return deferIndexCreation;
+    }
+
+    /**
+     * create tables without their secondary indexes, and only create these once the data is loaded, waiting for the
+     * embedded cassandra of this JVM to build them
+     */
+    public void setDeferIndexCreation(boolean deferIndexCreation) {
+        this.deferIndexCreation = deferIndexCreation;
+    }
+
+    public boolean isThrowawayKeyspace() {
+        return throwawayKeyspace;
+    }
+
+    /**
+     * create keyspaces without durable writes, no commitlog being needed for data thrown away with the test, and their
+     * tables with the {@link TableOptions#fixture()} options, unless they have options of their own
+     */
+    public void setThrowawayKeyspace(boolean throwawayKeyspace) {
+        this.throwawayKeyspace = throwawayKeyspace;
+    }
+
+    public Map<String, TableOptions> getTableOptions() {
+        return Collections.unmodifiableMap(tableOptions);
+    }
+
+    /**
+     * @return options of table (column family), or of the tables without options of their own, null if none
+     */
+    public TableOptions getTableOptions(String table) {
+        if (tableOptions.containsKey(table)) {
+            return tableOptions.get(table);
+        }
+        return getOtherTablesOptions();
+    }
+
+    /**
+     * @return options of the tables without options of their own, null if none
+     */
+    public TableOptions getOtherTablesOptions() {
+        return throwawayKeyspace ? TableOptions.fixture() : null;
+    }
+
+    /**
+     * create table (column family) with tableOptions, replacing the same options of the dataset
+     */
+    public void setTableOptions(String table, TableOptions tableOptions) {
+        this.tableOptions.put(table, tableOptions);
+    }
 }
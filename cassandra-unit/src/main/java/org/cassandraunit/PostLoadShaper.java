@@ -0,0 +1,117 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.Schema;
+import org.cassandraunit.dataset.cql.AbstractCQLDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Shapes the sstables of the tables loaded into the embedded cassandra, following the flush and compaction
+ * settings of a LoadingOption : data can be loaded in flushed chunks, then flushed, compacted and left with auto
+ * compaction disabled.
+ */
+class PostLoadShaper {
+
+    private static final Pattern WRITE_PATTERN = Pattern.compile("\\s*(?:INSERT|UPDATE|DELETE)\\s", Pattern.CASE_INSENSITIVE);
+
+    private final LoadingOption loadingOption;
+    /* rows written by the CQL statements of a dataset and rows already written, per table */
+    private final Map<String, Integer> rowCounts = new HashMap<String, Integer>();
+    private final Map<String, Integer> writtenRows = new HashMap<String, Integer>();
+
+    PostLoadShaper(LoadingOption loadingOption) {
+        this.loadingOption = loadingOption;
+    }
+
+    private boolean isChunked() {
+        return loadingOption.getSSTableCountPerTable() > 0;
+    }
+
+    /**
+     * @return true when the chunk of data ends at index, among count statements or rows
+     */
+    boolean isEndOfChunk(int index, int count) {
+        if (!isChunked()) {
+            return false;
+        }
+        int chunkSize = (count + loadingOption.getSSTableCountPerTable() - 1) / loadingOption.getSSTableCountPerTable();
+        return (index + 1) % chunkSize == 0 || index == count - 1;
+    }
+
+    /**
+     * Count the rows written by CQL statements per table, so that each table is cut into its own chunks.
+     */
+    void countRows(List<String> statements) {
+        if (!isChunked()) {
+            return;
+        }
+        for (String statement : statements) {
+            String table = getWrittenTable(statement);
+            if (table != null) {
+                increment(rowCounts, table);
+            }
+        }
+    }
+
+    /**
+     * @return the table whose chunk of rows ends with this CQL statement, null if none
+     */
+    String getTableOfEndedChunk(String statement) {
+        if (!isChunked()) {
+            return null;
+        }
+        String table = getWrittenTable(statement);
+        if (table == null) {
+            return null;
+        }
+        int index = increment(writtenRows, table) - 1;
+        return isEndOfChunk(index, rowCounts.get(table)) ? table : null;
+    }
+
+    /**
+     * Flush the chunk of a table written by CQL statements, table being an unquoted name as written in the dataset.
+     */
+    void endOfTableChunk(String keyspace, String table) {
+        /* unquoted CQL names are case insensitive */
+        if (Schema.instance.getCFMetaData(keyspace, table) == null) {
+            table = table.toLowerCase();
+        }
+        /* tables of other keyspaces than the one in use are only flushed after the load */
+        if (Schema.instance.getCFMetaData(keyspace, table) != null) {
+            endOfChunk(keyspace, table);
+        }
+    }
+
+    void endOfChunk(String keyspace, String... tables) {
+        /* done at each chunk as tables may have been created since the previous one */
+        EmbeddedCassandraServerHelper.disableAutoCompaction(keyspace, tables);
+        EmbeddedCassandraServerHelper.flush(keyspace, tables);
+    }
+
+    void afterLoad(String keyspace) {
+        if (loadingOption.isCompactAfterLoad()) {
+            EmbeddedCassandraServerHelper.compact(keyspace);
+        } else if (loadingOption.isFlushAfterLoad() || isChunked()) {
+            EmbeddedCassandraServerHelper.flush(keyspace);
+        }
+
+        if (loadingOption.isDisableAutoCompaction() || isChunked()) {
+            EmbeddedCassandraServerHelper.disableAutoCompaction(keyspace);
+        }
+    }
+
+    private static String getWrittenTable(String statement) {
+        return WRITE_PATTERN.matcher(statement).lookingAt() ? AbstractCQLDataSet.getTableName(statement) : null;
+    }
+
+    private static int increment(Map<String, Integer> counts, String table) {
+        Integer count = counts.get(table);
+        int incremented = count == null ? 1 : count + 1;
+        counts.put(table, incremented);
+        return incremented;
+    }
+}
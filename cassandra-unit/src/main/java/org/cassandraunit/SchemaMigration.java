@@ -0,0 +1,133 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.concurrent.StageManager;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.KSMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.DefsTables;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RowMutation;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.WrappedRunnable;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyspace and column families definitions applied together, as one schema migration on the embedded cassandra,
+ * instead of one migration (and one wait for schema agreement) per definition.
+ */
+class SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigration.class);
+
+    private final Map<String, KSMetaData> newKeyspaces = new LinkedHashMap<String, KSMetaData>();
+    private final List<CFMetaData> columnFamilies = new ArrayList<CFMetaData>();
+
+    SchemaMigration() {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("Bulk schema migration needs the embedded cassandra to be started in this JVM");
+        }
+    }
+
+    /**
+     * create keyspace along with the column families added to it
+     */
+    void addKeyspace(KSMetaData keyspace) {
+        newKeyspaces.put(keyspace.name, keyspace);
+    }
+
+    /**
+     * @param ifNotExists skip the column family if it already exists, instead of failing
+     */
+    void addColumnFamily(CFMetaData columnFamily, boolean ifNotExists) {
+        KSMetaData keyspace = Schema.instance.getKSMetaData(columnFamily.ksName);
+        if (ifNotExists && keyspace != null && keyspace.cfMetaData().containsKey(columnFamily.cfName)) {
+            return;
+        }
+        columnFamilies.add(columnFamily);
+    }
+
+    boolean isEmpty() {
+        return newKeyspaces.isEmpty() && columnFamilies.isEmpty();
+    }
+
+    boolean isNewKeyspace(String keyspaceName) {
+        return newKeyspaces.containsKey(keyspaceName);
+    }
+
+    void apply() {
+        if (isEmpty()) {
+            return;
+        }
+        try {
+            final List<RowMutation> mutations = toSchemaMutations(FBUtilities.timestampMicros());
+            log.debug("applying {} keyspaces and {} column families in one schema migration", newKeyspaces.size(),
+                    columnFamilies.size());
+            /* same stage as the migrations announced by cassandra itself */
+            FBUtilities.waitOnFuture(StageManager.getStage(Stage.MIGRATION).submit(new WrappedRunnable() {
+                @Override
+                protected void runMayThrow() throws Exception {
+                    DefsTables.mergeSchema(mutations);
+                }
+            }));
+        } catch (ConfigurationException e) {
+            throw new CassandraUnitException("Unable to apply schema migration", e);
+        } catch (RuntimeException e) {
+            throw new CassandraUnitException("Unable to apply schema migration", e);
+        }
+        newKeyspaces.clear();
+        columnFamilies.clear();
+    }
+
+    private List<RowMutation> toSchemaMutations(long timestamp) throws ConfigurationException {
+        Map<String, List<CFMetaData>> columnFamiliesByKeyspace = new LinkedHashMap<String, List<CFMetaData>>();
+        for (CFMetaData columnFamily : columnFamilies) {
+            columnFamily.validate();
+            List<CFMetaData> keyspaceColumnFamilies = columnFamiliesByKeyspace.get(columnFamily.ksName);
+            if (keyspaceColumnFamilies == null) {
+                keyspaceColumnFamilies = new ArrayList<CFMetaData>();
+                columnFamiliesByKeyspace.put(columnFamily.ksName, keyspaceColumnFamilies);
+            }
+            keyspaceColumnFamilies.add(columnFamily);
+        }
+
+        List<RowMutation> mutations = new ArrayList<RowMutation>();
+        for (KSMetaData keyspace : newKeyspaces.values()) {
+            if (Schema.instance.getKSMetaData(keyspace.name) != null) {
+                throw new ConfigurationException("Keyspace " + keyspace.name + " already exists");
+            }
+            List<CFMetaData> keyspaceColumnFamilies = columnFamiliesByKeyspace.remove(keyspace.name);
+            if (keyspaceColumnFamilies != null) {
+                keyspace = KSMetaData.cloneWith(keyspace, keyspaceColumnFamilies);
+            }
+            mutations.add(keyspace.validate().toSchema(timestamp));
+        }
+
+        for (Map.Entry<String, List<CFMetaData>> entry : columnFamiliesByKeyspace.entrySet()) {
+            KSMetaData keyspace = Schema.instance.getKSMetaData(entry.getKey());
+            if (keyspace == null) {
+                throw new ConfigurationException("Cannot add column families to non existing keyspace " + entry.getKey());
+            }
+            RowMutation mutation = new RowMutation(Keyspace.SYSTEM_KS, SystemKeyspace.getSchemaKSKey(entry.getKey()));
+            for (CFMetaData columnFamily : entry.getValue()) {
+                if (keyspace.cfMetaData().containsKey(columnFamily.cfName)) {
+                    throw new ConfigurationException("Column family " + columnFamily.cfName + " already exists in keyspace "
+                            + entry.getKey());
+                }
+                columnFamily.toSchema(mutation, timestamp);
+            }
+            mutations.add(mutation);
+        }
+        return mutations;
+    }
+}
@@ -0,0 +1,234 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.KSMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.db.Column;
+import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.ExpiringColumn;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RowMutation;
+import org.apache.cassandra.db.filter.QueryFilter;
+import org.apache.cassandra.exceptions.RequestExecutionException;
+import org.apache.cassandra.exceptions.RequestValidationException;
+import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.triggers.TriggerExecutor;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.Pair;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.rules.ExternalResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Roll back the writes of each test on the embedded cassandra : the partitions of the tracked keyspaces are recorded
+ * by a trigger before their first write during the test, and only those are restored afterwards (new partitions
+ * deleted, modified ones written back), whatever the size of the fixture.
+ * <blockquote><pre>
+ * &#64;BeforeClass
+ * public static void loadFixture() {
+ *     new CQLDataLoader(session).load(new ClassPathCQLDataSet("fixture.cql", "mykeyspace"));
+ * }
+ *
+ * &#64;Rule
+ * public WriteRollbackRule rollback = new WriteRollbackRule("mykeyspace");
+ * </pre></blockquote>
+ * Counter tables, and tables created during a test, are not tracked. Partitions are restored with timestamps just
+ * above the ones of the test writes, so writes with client timestamps more than a second ahead of the clock are
+ * rejected : they would shadow the writes of the following tests. The triggers are created once per table and kept as
+ * long as the table exists, so that a test only pays for the partitions it wrote : they add nothing while no rule is
+ * running.
+ */
+public class WriteRollbackRule extends ExternalResource {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteRollbackRule.class);
+    private static final String TRIGGER_NAME = "cassandra_unit_write_tracking";
+    private static final long MAX_CLIENT_TIMESTAMP_AHEAD_IN_MICROS = 1000000;
+
+    private static final List<WriteRollbackRule> activeRules = new CopyOnWriteArrayList<WriteRollbackRule>();
+    private static boolean triggersLoadable = false;
+
+    private final Set<String> keyspaces;
+    /* partition content before the first write of the test, null for a partition created by the test */
+    private final ConcurrentMap<Pair<UUID, ByteBuffer>, TrackedPartition> trackedPartitions =
+            new ConcurrentHashMap<Pair<UUID, ByteBuffer>, TrackedPartition>();
+
+    public WriteRollbackRule(String... keyspaces) {
+        this.keyspaces = new HashSet<String>(Arrays.asList(keyspaces));
+    }
+
+    @Override
+    protected void before() throws Throwable {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("Write rollback needs the embedded cassandra to be started in this JVM");
+        }
+        for (String keyspace : keyspaces) {
+            installTriggers(keyspace);
+        }
+        trackedPartitions.clear();
+        activeRules.add(this);
+    }
+
+    @Override
+    protected void after() {
+        activeRules.remove(this);
+        log.debug("rolling back {} partitions", trackedPartitions.size());
+        long maxTimestamp = 0;
+        try {
+            for (TrackedPartition trackedPartition : trackedPartitions.values()) {
+                maxTimestamp = Math.max(maxTimestamp, trackedPartition.restore());
+            }
+        } finally {
+            trackedPartitions.clear();
+        }
+        awaitClockAbove(maxTimestamp);
+    }
+
+    /**
+     * @return number of partitions written since the beginning of the test
+     */
+    public int getTrackedPartitionCount() {
+        return trackedPartitions.size();
+    }
+
+    static void track(ByteBuffer key, CFMetaData metadata, long timestamp) {
+        for (WriteRollbackRule rule : activeRules) {
+            if (rule.keyspaces.contains(metadata.ksName)) {
+                if (timestamp > FBUtilities.timestampMicros() + MAX_CLIENT_TIMESTAMP_AHEAD_IN_MICROS) {
+                    throw new IllegalArgumentException("Write timestamp " + timestamp + " of " + metadata.ksName + "."
+                            + metadata.cfName + " is too far ahead of the clock for the write to be rolled back");
+                }
+                Pair<UUID, ByteBuffer> partition = Pair.create(metadata.cfId, key);
+                /* read before the write is applied, as the trigger runs first */
+                if (!rule.trackedPartitions.containsKey(partition)) {
+                    rule.trackedPartitions.putIfAbsent(partition, new TrackedPartition(metadata, key));
+                }
+            }
+        }
+    }
+
+    /* a schema migration for the tables not tracked yet only, the others keep their trigger */
+    private static synchronized void installTriggers(String keyspace) {
+        KSMetaData keyspaceMetadata = Schema.instance.getKSMetaData(keyspace);
+        if (keyspaceMetadata == null) {
+            throw new IllegalArgumentException("Keyspace " + keyspace + " does not exist");
+        }
+        for (CFMetaData metadata : keyspaceMetadata.cfMetaData().values()) {
+            /* cassandra rejects counter writes on tables with triggers, even triggers adding nothing */
+            if (metadata.getDefaultValidator().isCommutative()) {
+                continue;
+            }
+            if (!metadata.getTriggers().containsKey(TRIGGER_NAME)) {
+                makeTriggersLoadable();
+                process("CREATE TRIGGER " + TRIGGER_NAME + " ON \"" + keyspace + "\".\"" + metadata.cfName
+                        + "\" USING '" + WriteTrackingTrigger.class.getName() + "'");
+            }
+        }
+    }
+
+    private static void process(String query) {
+        log.debug("executing : " + query);
+        try {
+            QueryProcessor.process(query, ConsistencyLevel.ONE, QueryState.forInternalCalls());
+        } catch (RequestExecutionException e) {
+            throw new CassandraUnitException("Unable to execute " + query, e);
+        } catch (RequestValidationException e) {
+            throw new CassandraUnitException("Unable to execute " + query, e);
+        }
+    }
+
+    /* writes following the rollback get server timestamps above the restored partitions */
+    private static void awaitClockAbove(long timestamp) {
+        while (FBUtilities.timestampMicros() <= timestamp) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /* triggers are loaded by a class loader which needs a triggers directory, even to load classes of the classpath */
+    private static void makeTriggersLoadable() {
+        if (triggersLoadable) {
+            return;
+        }
+        if (System.getProperty("cassandra.triggers_dir") == null) {
+            File triggersDirectory = new File(EmbeddedCassandraServerHelper.DEFAULT_TMP_DIR, "triggers");
+            triggersDirectory.mkdirs();
+            System.setProperty("cassandra.triggers_dir", triggersDirectory.getAbsolutePath());
+            TriggerExecutor.instance.reloadClasses();
+        }
+        triggersLoadable = true;
+    }
+
+    private static ColumnFamily read(CFMetaData metadata, ByteBuffer key) {
+        ColumnFamilyStore store = Keyspace.open(metadata.ksName).getColumnFamilyStore(metadata.cfId);
+        return store.getColumnFamily(QueryFilter.getIdentityFilter(StorageService.getPartitioner().decorateKey(key),
+                metadata.cfName, System.currentTimeMillis()));
+    }
+
+    private static class TrackedPartition {
+
+        private final CFMetaData metadata;
+        private final ByteBuffer key;
+        private final ColumnFamily original;
+
+        private TrackedPartition(CFMetaData metadata, ByteBuffer key) {
+            this.metadata = metadata;
+            this.key = key;
+            this.original = read(metadata, key);
+        }
+
+        /**
+         * @return the timestamp of the restored columns
+         */
+        private long restore() {
+            ColumnFamily current = read(metadata, key);
+            /* above whatever the test wrote, client timestamps included */
+            long timestamp = FBUtilities.timestampMicros();
+            if (current != null) {
+                timestamp = Math.max(timestamp, current.maxTimestamp());
+            }
+            timestamp++;
+
+            RowMutation mutation = new RowMutation(metadata.ksName, key);
+            mutation.delete(metadata.cfName, timestamp);
+            if (original != null) {
+                long now = System.currentTimeMillis();
+                for (Column column : original) {
+                    if (column.isMarkedForDelete(now)) {
+                        continue;
+                    }
+                    if (column instanceof ExpiringColumn) {
+                        int timeToLive = column.getLocalDeletionTime() - (int) (now / 1000);
+                        if (timeToLive > 0) {
+                            mutation.add(metadata.cfName, column.name(), column.value(), timestamp + 1, timeToLive);
+                        }
+                    } else {
+                        mutation.add(metadata.cfName, column.name(), column.value(), timestamp + 1);
+                    }
+                }
+            }
+            mutation.apply();
+            return timestamp + 1;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.db.ColumnFamily;
+import org.apache.cassandra.db.RowMutation;
+import org.apache.cassandra.triggers.ITrigger;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * Trigger installed by WriteRollbackRule on the tables it tracks, called by the embedded cassandra before applying
+ * each write (CQL or thrift). It adds no mutation, and fails the writes the rule can't roll back.
+ */
+public class WriteTrackingTrigger implements ITrigger {
+
+    @Override
+    public Collection<RowMutation> augment(ByteBuffer key, ColumnFamily update) {
+        WriteRollbackRule.track(key, update.metadata(), update.maxTimestamp());
+        return null;
+    }
+}
@@ -14,8 +14,8 @@ import org.cassandraunit.LoadingOption;
 import org.cassandraunit.dataset.FileDataSet;
 import org.cassandraunit.dataset.cql.FileCQLDataSet;
 import org.cassandraunit.model.StrategyModel;
+import org.cassandraunit.utils.CQLSessionRegistry;
 
-import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.Session;
 
 public class CassandraUnitCommandLineLoader {
@@ -91,6 +91,7 @@ public class CassandraUnitCommandLineLoader {
     private static void otherTypeOfDataSetLoad(String host, String port, String file) {
         LoadingOption loadingOption = new LoadingOption();
         loadingOption.setOnlySchema(commandLine.hasOption("o"));
+        loadingOption.setThrowawayKeyspace(commandLine.hasOption("t"));
 
         if (commandLine.hasOption("r")) {
             loadingOption.setReplicationFactor(Integer.parseInt(commandLine.getOptionValue("r")));
@@ -106,10 +107,16 @@ public class CassandraUnitCommandLineLoader {
     }
 
     private static void cqlDataSetLoad(String host, String port, String file) {
-        Cluster cluster = new Cluster.Builder().addContactPoints(host).withPort(Integer.parseInt(port)).build();
-        Session session = cluster.connect();
-        CQLDataLoader dataLoader = new CQLDataLoader(session);
-        dataLoader.load(new FileCQLDataSet(file, false));
+        Session session = CQLSessionRegistry.acquire(host, Integer.parseInt(port));
+        try {
+            LoadingOption loadingOption = new LoadingOption();
+            loadingOption.setThrowawayKeyspace(commandLine.hasOption("t"));
+            CQLDataLoader dataLoader = new CQLDataLoader(session);
+            dataLoader.load(new FileCQLDataSet(file, false), loadingOption);
+        } finally {
+            CQLSessionRegistry.release(session);
+            CQLSessionRegistry.closeUnused();
+        }
     }
 
     private static boolean containBadReplicationFactorArgumentValue() {
@@ -158,6 +165,9 @@ public class CassandraUnitCommandLineLoader {
                 .withDescription("override the replication factor set in the dataset (optional)").create("r"));
         options.addOption(OptionBuilder.withLongOpt("strategy").hasArg()
                 .withDescription("override the strategy set in the dataset (optional)").create("s"));
+        options.addOption(OptionBuilder.withLongOpt("throwaway")
+                .withDescription("create keyspaces without durable writes and tables with test fixture options (optional)")
+                .create("t"));
 
     }
 
@@ -14,16 +14,24 @@ public class ClassPathDataSet implements DataSet {
     DataSet dataSet = null;
 
     public ClassPathDataSet(String dataSetLocation) {
+        this(dataSetLocation, null);
+    }
+
+    public ClassPathDataSet(String dataSetLocation, TableFilter tableFilter) {
+        this(dataSetLocation, tableFilter, null);
+    }
+
+    public ClassPathDataSet(String dataSetLocation, TableFilter tableFilter, RowSampling rowSampling) {
         DataSetFileExtensionEnum dataSetExtensionEnum = getDataSetExtension(dataSetLocation);
         switch (dataSetExtensionEnum) {
             case xml:
-                dataSet = new ClassPathXmlDataSet(dataSetLocation);
+                dataSet = new ClassPathXmlDataSet(dataSetLocation, tableFilter, rowSampling);
                 break;
             case json:
-                dataSet = new ClassPathJsonDataSet(dataSetLocation);
+                dataSet = new ClassPathJsonDataSet(dataSetLocation, tableFilter, rowSampling);
                 break;
             case yaml:
-                dataSet = new ClassPathYamlDataSet(dataSetLocation);
+                dataSet = new ClassPathYamlDataSet(dataSetLocation, tableFilter, rowSampling);
                 break;
             default:
                 throw new ParseException("dataSet file extension must be one of .xml, .json, .yaml");
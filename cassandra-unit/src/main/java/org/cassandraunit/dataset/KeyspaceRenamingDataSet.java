@@ -0,0 +1,40 @@
+package org.cassandraunit.dataset;
+
+import org.cassandraunit.model.ColumnFamilyModel;
+import org.cassandraunit.model.KeyspaceModel;
+
+import java.util.List;
+
+/**
+ * Dataset loaded into another keyspace : same column families and rows, under the keyspace keyspaceName.
+ */
+public class KeyspaceRenamingDataSet implements DataSet {
+
+    private final DataSet dataSet;
+    private final String keyspaceName;
+    private KeyspaceModel keyspace = null;
+
+    public KeyspaceRenamingDataSet(DataSet dataSet, String keyspaceName) {
+        this.dataSet = dataSet;
+        this.keyspaceName = keyspaceName;
+    }
+
+    /* a copy, kept so that loading options overriding its values apply to it only */
+    @Override
+    public synchronized KeyspaceModel getKeyspace() {
+        if (keyspace == null) {
+            KeyspaceModel originalKeyspace = dataSet.getKeyspace();
+            keyspace = new KeyspaceModel();
+            keyspace.setName(keyspaceName);
+            keyspace.setReplicationFactor(originalKeyspace.getReplicationFactor());
+            keyspace.setStrategy(originalKeyspace.getStrategy());
+            keyspace.setColumnFamilies(originalKeyspace.getColumnFamilies());
+        }
+        return keyspace;
+    }
+
+    @Override
+    public List<ColumnFamilyModel> getColumnFamilies() {
+        return dataSet.getColumnFamilies();
+    }
+}
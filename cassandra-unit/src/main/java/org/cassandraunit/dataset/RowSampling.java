@@ -0,0 +1,84 @@
+package org.cassandraunit.dataset;
+
+import org.apache.commons.lang.StringUtils;
+import org.cassandraunit.type.GenericType;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Deterministic sample of the partitions of each table (column family) of a dataset : a partition is kept according to
+ * a hash of the seed, its table and its partition key, so the same seed always keeps the same partitions.
+ * A table joined to another one keeps the partitions whose key is kept in that other table, its partition key holding
+ * the same values.
+ * <blockquote><pre>
+ * new ClassPathCQLDataSet("fixture.cql", "mykeyspace", null, new RowSampling(0.05, 42).join("orders", "users"));
+ * </pre></blockquote>
+ * Table names are compared ignoring case, partition keys as written in the dataset.
+ */
+public class RowSampling {
+
+    private final double ratio;
+    private final long seed;
+    private final Map<String, String> joins = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * @param ratio part of the partitions of each table to keep, between 0 and 1
+     */
+    public RowSampling(double ratio, long seed) {
+        if (ratio < 0 || ratio > 1) {
+            throw new IllegalArgumentException("Sampling ratio must be between 0 and 1");
+        }
+        this.ratio = ratio;
+        this.seed = seed;
+    }
+
+    /**
+     * keep the partitions of table whose partition key is kept in referencedTable
+     */
+    public RowSampling join(String table, String referencedTable) {
+        joins.put(table, referencedTable);
+        return this;
+    }
+
+    public boolean accept(String table, String partitionKey) {
+        return (hash(sampledTable(table), partitionKey) >>> 11) * 0x1.0p-53 < ratio;
+    }
+
+    public boolean accept(String table, GenericType partitionKey) {
+        if (partitionKey.getCompositeValues() != null) {
+            return accept(table, StringUtils.join(partitionKey.getCompositeValues(), ":"));
+        }
+        return accept(table, partitionKey.getValue());
+    }
+
+    /* the table at the end of the joins, bounded in case they loop */
+    private String sampledTable(String table) {
+        String sampledTable = table;
+        for (int i = 0; i < joins.size() && joins.containsKey(sampledTable); i++) {
+            sampledTable = joins.get(sampledTable);
+        }
+        return sampledTable.toLowerCase();
+    }
+
+    /* FNV-1a, then mixed as splitmix64 does so that close keys spread */
+    private long hash(String table, String partitionKey) {
+        long hash = update(seed ^ 0xcbf29ce484222325L, table);
+        hash = update(hash, String.valueOf(partitionKey));
+        hash ^= hash >>> 30;
+        hash *= 0xbf58476d1ce4e5b9L;
+        hash ^= hash >>> 27;
+        hash *= 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash;
+    }
+
+    private static long update(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= 0xff;
+        return hash * 0x100000001b3L;
+    }
+}
@@ -0,0 +1,75 @@
+package org.cassandraunit.dataset;
+
+import org.cassandraunit.model.ColumnFamilyModel;
+import org.cassandraunit.model.KeyspaceModel;
+import org.cassandraunit.model.RowModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dataset restricted to the rows of the partitions sampled by rowSampling.
+ */
+public class SamplingDataSet implements DataSet {
+
+    private final DataSet dataSet;
+    private final RowSampling rowSampling;
+    private KeyspaceModel keyspace = null;
+
+    public SamplingDataSet(DataSet dataSet, RowSampling rowSampling) {
+        this.dataSet = dataSet;
+        this.rowSampling = rowSampling;
+    }
+
+    /* a copy, kept so that loading options overriding its values apply to it only */
+    @Override
+    public synchronized KeyspaceModel getKeyspace() {
+        if (keyspace == null) {
+            KeyspaceModel originalKeyspace = dataSet.getKeyspace();
+            keyspace = new KeyspaceModel();
+            keyspace.setName(originalKeyspace.getName());
+            keyspace.setReplicationFactor(originalKeyspace.getReplicationFactor());
+            keyspace.setStrategy(originalKeyspace.getStrategy());
+            List<ColumnFamilyModel> columnFamilies = new ArrayList<ColumnFamilyModel>();
+            for (ColumnFamilyModel columnFamily : originalKeyspace.getColumnFamilies()) {
+                columnFamilies.add(sample(columnFamily));
+            }
+            keyspace.setColumnFamilies(columnFamilies);
+        }
+        return keyspace;
+    }
+
+    @Override
+    public List<ColumnFamilyModel> getColumnFamilies() {
+        return getKeyspace().getColumnFamilies();
+    }
+
+    private ColumnFamilyModel sample(ColumnFamilyModel columnFamily) {
+        ColumnFamilyModel sampledColumnFamily = new ColumnFamilyModel();
+        sampledColumnFamily.setName(columnFamily.getName());
+        sampledColumnFamily.setType(columnFamily.getType());
+        sampledColumnFamily.setKeyType(columnFamily.getKeyType());
+        sampledColumnFamily.setKeyTypeAlias(columnFamily.getKeyTypeAlias());
+        sampledColumnFamily.setComparatorType(columnFamily.getComparatorType());
+        sampledColumnFamily.setComparatorTypeAlias(columnFamily.getComparatorTypeAlias());
+        sampledColumnFamily.setSubComparatorType(columnFamily.getSubComparatorType());
+        sampledColumnFamily.setDefaultColumnValueType(columnFamily.getDefaultColumnValueType());
+        sampledColumnFamily.setComment(columnFamily.getComment());
+        sampledColumnFamily.setCompactionStrategy(columnFamily.getCompactionStrategy());
+        sampledColumnFamily.setCompactionStrategyOptions(columnFamily.getCompactionStrategyOptions());
+        sampledColumnFamily.setGcGraceSeconds(columnFamily.getGcGraceSeconds());
+        sampledColumnFamily.setMaxCompactionThreshold(columnFamily.getMaxCompactionThreshold());
+        sampledColumnFamily.setMinCompactionThreshold(columnFamily.getMinCompactionThreshold());
+        sampledColumnFamily.setReadRepairChance(columnFamily.getReadRepairChance());
+        sampledColumnFamily.setReplicationOnWrite(columnFamily.getReplicationOnWrite());
+        sampledColumnFamily.setColumnsMetadata(columnFamily.getColumnsMetadata());
+        List<RowModel> rows = new ArrayList<RowModel>();
+        for (RowModel row : columnFamily.getRows()) {
+            if (rowSampling.accept(columnFamily.getName(), row.getKey())) {
+                rows.add(row);
+            }
+        }
+        sampledColumnFamily.setRows(rows);
+        return sampledColumnFamily;
+    }
+}
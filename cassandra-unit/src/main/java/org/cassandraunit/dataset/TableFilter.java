@@ -0,0 +1,38 @@
+package org.cassandraunit.dataset;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Tables (column families) of a dataset to load : the included ones, all of them when none is included, but the
+ * excluded ones. Names are compared ignoring case.
+ * <blockquote><pre>
+ * new ClassPathCQLDataSet("fixture.cql", "mykeyspace", TableFilter.include("users", "orders"));
+ * </pre></blockquote>
+ */
+public class TableFilter {
+
+    private final Set<String> includedTables = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+    private final Set<String> excludedTables = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+
+    public TableFilter(String[] includedTables, String[] excludedTables) {
+        for (String includedTable : includedTables) {
+            this.includedTables.add(includedTable);
+        }
+        for (String excludedTable : excludedTables) {
+            this.excludedTables.add(excludedTable);
+        }
+    }
+
+    public static TableFilter include(String... tables) {
+        return new TableFilter(tables, new String[0]);
+    }
+
+    public static TableFilter exclude(String... tables) {
+        return new TableFilter(new String[0], tables);
+    }
+
+    public boolean accept(String table) {
+        return (includedTables.isEmpty() || includedTables.contains(table)) && !excludedTables.contains(table);
+    }
+}
@@ -0,0 +1,47 @@
+package org.cassandraunit.dataset;
+
+import org.cassandraunit.model.ColumnFamilyModel;
+import org.cassandraunit.model.KeyspaceModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dataset restricted to the column families accepted by tableFilter.
+ */
+public class TableFilteringDataSet implements DataSet {
+
+    private final DataSet dataSet;
+    private final TableFilter tableFilter;
+    private KeyspaceModel keyspace = null;
+
+    public TableFilteringDataSet(DataSet dataSet, TableFilter tableFilter) {
+        this.dataSet = dataSet;
+        this.tableFilter = tableFilter;
+    }
+
+    /* a copy, kept so that loading options overriding its values apply to it only */
+    @Override
+    public synchronized KeyspaceModel getKeyspace() {
+        if (keyspace == null) {
+            KeyspaceModel originalKeyspace = dataSet.getKeyspace();
+            keyspace = new KeyspaceModel();
+            keyspace.setName(originalKeyspace.getName());
+            keyspace.setReplicationFactor(originalKeyspace.getReplicationFactor());
+            keyspace.setStrategy(originalKeyspace.getStrategy());
+            List<ColumnFamilyModel> columnFamilies = new ArrayList<ColumnFamilyModel>();
+            for (ColumnFamilyModel columnFamily : originalKeyspace.getColumnFamilies()) {
+                if (tableFilter.accept(columnFamily.getName())) {
+                    columnFamilies.add(columnFamily);
+                }
+            }
+            keyspace.setColumnFamilies(columnFamilies);
+        }
+        return keyspace;
+    }
+
+    @Override
+    public List<ColumnFamilyModel> getColumnFamilies() {
+        return getKeyspace().getColumnFamilies();
+    }
+}
@@ -0,0 +1,63 @@
+package org.cassandraunit.dataset;
+
+/**
+ * Options of the tables (column families) created by a load, replacing the ones given by the dataset; a null option
+ * keeps the dataset one.
+ * <blockquote><pre>
+ * TableOptions usersOptions = TableOptions.fixture();
+ * usersOptions.setCaching("keys_only");
+ * loadingOption.setTableOptions("users", usersOptions);
+ * </pre></blockquote>
+ */
+public class TableOptions {
+
+    private Integer gcGraceSeconds = null;
+    private String caching = null;
+    private String compactionStrategy = null;
+
+    /**
+     * @return options suited to test data thrown away with the test : tombstones purged at the first compaction, no
+     * cache kept for data read a few times, and the cheapest compaction
+     */
+    public static TableOptions fixture() {
+        TableOptions tableOptions = new TableOptions();
+        tableOptions.setGcGraceSeconds(0);
+        tableOptions.setCaching("none");
+        tableOptions.setCompactionStrategy("SizeTieredCompactionStrategy");
+        return tableOptions;
+    }
+
+    public Integer getGcGraceSeconds() {
+        return gcGraceSeconds;
+    }
+
+    public void setGcGraceSeconds(Integer gcGraceSeconds) {
+        if (gcGraceSeconds != null && gcGraceSeconds < 0) {
+            throw new IllegalArgumentException("gc grace seconds must be greater than or equal to 0");
+        }
+        this.gcGraceSeconds = gcGraceSeconds;
+    }
+
+    public String getCaching() {
+        return caching;
+    }
+
+    /**
+     * @param caching all, keys_only, rows_only or none ; as hector doesn't carry it, DataLoader applies it through the
+     *                embedded cassandra, so only when loading into the embedded cassandra of the JVM
+     */
+    public void setCaching(String caching) {
+        this.caching = caching;
+    }
+
+    public String getCompactionStrategy() {
+        return compactionStrategy;
+    }
+
+    /**
+     * @param compactionStrategy class of the compaction strategy, its simple name for the strategies of cassandra
+     */
+    public void setCompactionStrategy(String compactionStrategy) {
+        this.compactionStrategy = compactionStrategy;
+    }
+}
@@ -6,6 +6,8 @@ import me.prettyprint.hector.api.ddl.ComparatorType;
 import org.apache.commons.lang.StringUtils;
 import org.cassandraunit.dataset.DataSet;
 import org.cassandraunit.dataset.ParseException;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 import org.cassandraunit.model.*;
 import org.cassandraunit.type.GenericType;
 import org.cassandraunit.type.GenericTypeEnum;
@@ -23,6 +25,12 @@ public abstract class AbstractCommonsParserDataSet implements DataSet {
 
     protected KeyspaceModel keyspace = null;
 
+    /* column families it does not accept are left out, their rows never mapped */
+    protected TableFilter tableFilter = null;
+
+    /* rows of the partitions it does not sample are left out, only their key being mapped */
+    protected RowSampling rowSampling = null;
+
     protected abstract ParsedKeyspace getParsedKeyspace();
 
     @Override
@@ -73,7 +81,9 @@ public abstract class AbstractCommonsParserDataSet implements DataSet {
         if (parsedKeyspace.getColumnFamilies() != null) {
             /* there is column families to integrate */
             for (ParsedColumnFamily parsedColumnFamily : parsedKeyspace.getColumnFamilies()) {
-                keyspace.getColumnFamilies().add(mapParsedColumnFamilyToColumnFamilyModel(parsedColumnFamily));
+                if (tableFilter == null || parsedColumnFamily == null || tableFilter.accept(parsedColumnFamily.getName())) {
+                    keyspace.getColumnFamilies().add(mapParsedColumnFamilyToColumnFamilyModel(parsedColumnFamily));
+                }
             }
         }
 
@@ -229,21 +239,24 @@ public abstract class AbstractCommonsParserDataSet implements DataSet {
                                                     ComparatorType defaultColumnValueType) {
         List<RowModel> rowsModel = new ArrayList<RowModel>();
         for (ParsedRow jsonRow : parsedColumnFamily.getRows()) {
-            rowsModel.add(mapsParsedRowToRowModel(parsedColumnFamily.getColumnsMetadata(), jsonRow, keyType, typesBelongingCompositeTypeForKeyType,
-                    comparatorType, typesBelongingCompositeTypeForComparatorType, subComparatorType,
-                    defaultColumnValueType));
+            GenericType key = TypeExtractor.constructGenericType(jsonRow.getKey(), keyType,
+                    typesBelongingCompositeTypeForKeyType);
+            if (rowSampling == null || rowSampling.accept(parsedColumnFamily.getName(), key)) {
+                rowsModel.add(mapsParsedRowToRowModel(parsedColumnFamily.getColumnsMetadata(), jsonRow, key,
+                        comparatorType, typesBelongingCompositeTypeForComparatorType, subComparatorType,
+                        defaultColumnValueType));
+            }
         }
         return rowsModel;
     }
 
-    private RowModel mapsParsedRowToRowModel(List<ParsedColumnMetadata> metaData, ParsedRow parsedRow, ComparatorType keyType,
-                                             GenericTypeEnum[] typesBelongingCompositeTypeForKeyType, ComparatorType comparatorType,
+    private RowModel mapsParsedRowToRowModel(List<ParsedColumnMetadata> metaData, ParsedRow parsedRow, GenericType key,
+                                             ComparatorType comparatorType,
                                              GenericTypeEnum[] typesBelongingCompositeTypeForComparatorType, ComparatorType subComparatorType,
                                              ComparatorType defaultColumnValueType) {
         RowModel row = new RowModel();
 
-        row.setKey(TypeExtractor.constructGenericType(parsedRow.getKey(), keyType,
-                typesBelongingCompositeTypeForKeyType));
+        row.setKey(key);
 
         row.setColumns(mapParsedColumnsToColumnsModel(metaData, parsedRow.getColumns(), comparatorType,
                 typesBelongingCompositeTypeForComparatorType, defaultColumnValueType));
@@ -3,6 +3,8 @@ package org.cassandraunit.dataset.cql;
 import org.apache.commons.lang.StringUtils;
 import org.cassandraunit.dataset.CQLDataSet;
 import org.cassandraunit.dataset.ParseException;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -10,6 +12,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author Jeremy Sevellec
@@ -17,11 +21,18 @@ import java.util.List;
 public abstract class AbstractCQLDataSet implements CQLDataSet {
 
     public static final String END_OF_STATEMENT_DELIMITER = ";";
+    private static final Pattern TABLE_STATEMENT_PATTERN = Pattern.compile("\\s*(?:"
+            + "(?:CREATE|ALTER|DROP)\\s+(?:TABLE|COLUMNFAMILY)(?:\\s+IF(?:\\s+NOT)?\\s+EXISTS)?"
+            + "|CREATE\\s+(?:CUSTOM\\s+)?INDEX(?:\\s+IF\\s+NOT\\s+EXISTS)?(?:\\s+\\w+)?\\s+ON"
+            + "|INSERT\\s+INTO|UPDATE|TRUNCATE|DELETE(?:\\s+.*?)?\\s+FROM"
+            + ")\\s+(?:(?:\\w+|\"[^\"]+\")\\.)?(\\w+|\"[^\"]+\")", Pattern.CASE_INSENSITIVE);
     private String dataSetLocation = null;
     private String keyspaceName = null;
     private boolean keyspaceCreation = true;
     private boolean keyspaceDeletion = true;
     private boolean useKeyspace = true;
+    private TableFilter tableFilter = null;
+    private RowSampling rowSampling = null;
 
     public AbstractCQLDataSet(String dataSetLocation) {
         this.dataSetLocation = dataSetLocation;
@@ -39,6 +50,24 @@ public abstract class AbstractCQLDataSet implements CQLDataSet {
     }
     
     public AbstractCQLDataSet(String dataSetLocation, boolean keyspaceCreation, boolean keyspaceDeletion, boolean useKeyspace, String keyspaceName) {
+        this(dataSetLocation, keyspaceCreation, keyspaceDeletion, useKeyspace, keyspaceName, null);
+    }
+
+    /**
+     * @param tableFilter only statements of the tables it accepts are kept, statements about no table (keyspace,
+     *                    batches...) are always kept
+     */
+    public AbstractCQLDataSet(String dataSetLocation, boolean keyspaceCreation, boolean keyspaceDeletion, boolean useKeyspace,
+                              String keyspaceName, TableFilter tableFilter) {
+        this(dataSetLocation, keyspaceCreation, keyspaceDeletion, useKeyspace, keyspaceName, tableFilter, null);
+    }
+
+    /**
+     * @param rowSampling writes of the partitions it does not sample are left out, writes to tables created outside
+     *                    the dataset or not giving their whole partition key are always kept
+     */
+    public AbstractCQLDataSet(String dataSetLocation, boolean keyspaceCreation, boolean keyspaceDeletion, boolean useKeyspace,
+                              String keyspaceName, TableFilter tableFilter, RowSampling rowSampling) {
         if (getInputDataSetLocation(dataSetLocation) == null) {
             throw new ParseException("Dataset not found");
         }
@@ -46,6 +75,8 @@ public abstract class AbstractCQLDataSet implements CQLDataSet {
         this.keyspaceCreation = keyspaceCreation;
         this.keyspaceDeletion = keyspaceDeletion;
         this.useKeyspace = useKeyspace;
+        this.tableFilter = tableFilter;
+        this.rowSampling = rowSampling;
         if (keyspaceName != null) {
             this.keyspaceName = keyspaceName.toLowerCase();
         }
@@ -62,10 +93,23 @@ public abstract class AbstractCQLDataSet implements CQLDataSet {
     private List<String> linesToCQLStatements(List<String> lines) {
         List<String> statements = new ArrayList<String>();
         StringBuffer statementUnderConstruction = new StringBuffer();
+        boolean skippingStatement = false;
+        CQLRowSampler rowSampler = rowSampling == null ? null : new CQLRowSampler(rowSampling);
         for (String line : lines) {
+            /* statements of filtered out tables are skipped from their first line when it names the table */
+            if (statementUnderConstruction.length() == 0 && !skippingStatement) {
+                skippingStatement = !isAccepted(line);
+            }
+            if (skippingStatement) {
+                skippingStatement = !endOfStatementLine(line);
+                continue;
+            }
             statementUnderConstruction.append(line.trim());
             if (endOfStatementLine(line)) {
-                statements.add(statementUnderConstruction.toString());
+                String statement = statementUnderConstruction.toString();
+                if (isAccepted(statement) && (rowSampler == null || rowSampler.accept(statement))) {
+                    statements.add(statement);
+                }
                 statementUnderConstruction.setLength(0);
             } else {
                 statementUnderConstruction.append(" ");
@@ -74,6 +118,25 @@ public abstract class AbstractCQLDataSet implements CQLDataSet {
         return statements;
     }
 
+    private boolean isAccepted(String statement) {
+        if (tableFilter == null) {
+            return true;
+        }
+        String tableName = getTableName(statement);
+        return tableName == null || tableFilter.accept(tableName);
+    }
+
+    /**
+     * @return unquoted name of the table a statement creates, alters, drops, indexes or writes to, null if none
+     */
+    public static String getTableName(String statement) {
+        Matcher matcher = TABLE_STATEMENT_PATTERN.matcher(statement);
+        if (!matcher.lookingAt()) {
+            return null;
+        }
+        return StringUtils.strip(matcher.group(1), "\"");
+    }
+
 //    private boolean spaceNeededAfter(String line) {
 //        boolean spaceNeeded = true;
 //        String[] characterWithoutSpaceNeededAfter = {"<", ">", ":", "=", "|", "("};
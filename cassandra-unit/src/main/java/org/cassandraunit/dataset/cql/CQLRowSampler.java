@@ -0,0 +1,164 @@
+package org.cassandraunit.dataset.cql;
+
+import org.apache.commons.lang.StringUtils;
+import org.cassandraunit.dataset.RowSampling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies a row sampling to the statements of a CQL dataset, in order : partition keys are learnt from the CREATE TABLE
+ * statements, then INSERT, UPDATE and DELETE statements giving the whole partition key of their table are kept when
+ * their partition is sampled. Any other statement is kept, as are writes to tables created outside the dataset.
+ */
+class CQLRowSampler {
+
+    private static final Pattern CREATE_TABLE_PATTERN = Pattern.compile(
+            "\\s*CREATE\\s+(?:TABLE|COLUMNFAMILY)\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PRIMARY_KEY_PATTERN = Pattern.compile("PRIMARY\\s+KEY", Pattern.CASE_INSENSITIVE);
+    private static final Pattern INSERT_PATTERN = Pattern.compile("\\s*INSERT\\s", Pattern.CASE_INSENSITIVE);
+    private static final Pattern UPDATE_OR_DELETE_PATTERN = Pattern.compile("\\s*(?:UPDATE|DELETE)\\s",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern EQUALITY_PATTERN = Pattern.compile("(\\w+|\"[^\"]+\")\\s*=\\s*(.+)", Pattern.DOTALL);
+
+    private final RowSampling rowSampling;
+    /* partition key columns of the tables created so far, by unquoted table name */
+    private final Map<String, List<String>> partitionKeys = new HashMap<String, List<String>>();
+
+    CQLRowSampler(RowSampling rowSampling) {
+        this.rowSampling = rowSampling;
+    }
+
+    boolean accept(String statement) {
+        String tableName = AbstractCQLDataSet.getTableName(statement);
+        if (tableName == null) {
+            return true;
+        }
+        if (CREATE_TABLE_PATTERN.matcher(statement).lookingAt()) {
+            List<String> partitionKey = parsePartitionKey(statement);
+            if (partitionKey != null) {
+                partitionKeys.put(tableKey(tableName), partitionKey);
+            }
+            return true;
+        }
+        List<String> partitionKey = partitionKeys.get(tableKey(tableName));
+        if (partitionKey == null) {
+            return true;
+        }
+        Map<String, String> values = null;
+        if (INSERT_PATTERN.matcher(statement).lookingAt()) {
+            values = parseInsertedValues(statement);
+        } else if (UPDATE_OR_DELETE_PATTERN.matcher(statement).lookingAt()) {
+            values = parseWhereEqualities(statement);
+        }
+        if (values == null) {
+            return true;
+        }
+        List<String> partitionKeyValues = new ArrayList<String>();
+        for (String column : partitionKey) {
+            String value = values.get(column);
+            if (value == null) {
+                return true;
+            }
+            partitionKeyValues.add(value);
+        }
+        return rowSampling.accept(tableName, StringUtils.join(partitionKeyValues, ":"));
+    }
+
+    /* CREATE TABLE t (id uuid PRIMARY KEY, ...) or (..., PRIMARY KEY ((a, b), c)) */
+    private static List<String> parsePartitionKey(String statement) {
+        int definitionStart = CQLSyntax.indexOfTopLevel(statement, '(', 0);
+        if (definitionStart < 0) {
+            return null;
+        }
+        int definitionEnd = CQLSyntax.closingParenthesis(statement, definitionStart);
+        if (definitionEnd < 0) {
+            return null;
+        }
+        for (String columnDefinition : CQLSyntax.split(statement.substring(definitionStart + 1, definitionEnd), ",")) {
+            String definition = columnDefinition.trim();
+            Matcher primaryKey = PRIMARY_KEY_PATTERN.matcher(definition);
+            if (!primaryKey.find()) {
+                continue;
+            }
+            if (primaryKey.start() > 0) {
+                /* the column defined along with its PRIMARY KEY keyword */
+                return singletonColumn(definition.split("\\s+")[0]);
+            }
+            String primaryKeyColumns = definition.substring(primaryKey.end()).trim();
+            primaryKeyColumns = StringUtils.removeEnd(StringUtils.removeStart(primaryKeyColumns, "("), ")");
+            String partitionKey = CQLSyntax.split(primaryKeyColumns, ",").get(0).trim();
+            if (!partitionKey.startsWith("(")) {
+                return singletonColumn(partitionKey);
+            }
+            List<String> columns = new ArrayList<String>();
+            for (String column : CQLSyntax.split(partitionKey.substring(1, partitionKey.length() - 1), ",")) {
+                columns.add(columnKey(column));
+            }
+            return columns;
+        }
+        return null;
+    }
+
+    /* INSERT INTO t (a, b) VALUES (1, 'x') [USING ...] */
+    private static Map<String, String> parseInsertedValues(String statement) {
+        int columnsStart = CQLSyntax.indexOfTopLevel(statement, '(', 0);
+        int columnsEnd = columnsStart < 0 ? -1 : CQLSyntax.closingParenthesis(statement, columnsStart);
+        int valuesStart = columnsEnd < 0 ? -1 : CQLSyntax.indexOfTopLevel(statement, '(', columnsEnd + 1);
+        int valuesEnd = valuesStart < 0 ? -1 : CQLSyntax.closingParenthesis(statement, valuesStart);
+        if (valuesEnd < 0) {
+            return null;
+        }
+        List<String> columns = CQLSyntax.split(statement.substring(columnsStart + 1, columnsEnd), ",");
+        List<String> values = CQLSyntax.split(statement.substring(valuesStart + 1, valuesEnd), ",");
+        if (columns.size() != values.size()) {
+            return null;
+        }
+        Map<String, String> insertedValues = new HashMap<String, String>();
+        for (int i = 0; i < columns.size(); i++) {
+            insertedValues.put(columnKey(columns.get(i)), values.get(i).trim());
+        }
+        return insertedValues;
+    }
+
+    /* UPDATE t ... WHERE a = 1 AND b = 'x' [IF ...] and DELETE ... FROM t ... WHERE ... */
+    private static Map<String, String> parseWhereEqualities(String statement) {
+        List<String> whereParts = CQLSyntax.split(statement, "WHERE");
+        if (whereParts.size() != 2) {
+            return null;
+        }
+        String where = StringUtils.removeEnd(CQLSyntax.split(whereParts.get(1), "IF").get(0).trim(),
+                AbstractCQLDataSet.END_OF_STATEMENT_DELIMITER);
+        Map<String, String> equalities = new HashMap<String, String>();
+        for (String condition : CQLSyntax.split(where, "AND")) {
+            Matcher equality = EQUALITY_PATTERN.matcher(condition.trim());
+            if (equality.matches()) {
+                equalities.put(columnKey(equality.group(1)), equality.group(2).trim());
+            }
+        }
+        return equalities;
+    }
+
+    private static List<String> singletonColumn(String column) {
+        List<String> columns = new ArrayList<String>();
+        columns.add(columnKey(column));
+        return columns;
+    }
+
+    /* unquoted CQL names are case insensitive */
+    private static String columnKey(String column) {
+        String trimmedColumn = column.trim();
+        if (trimmedColumn.startsWith("\"")) {
+            return StringUtils.strip(trimmedColumn, "\"");
+        }
+        return trimmedColumn.toLowerCase();
+    }
+
+    private static String tableKey(String tableName) {
+        return tableName.toLowerCase();
+    }
+}
@@ -0,0 +1,82 @@
+package org.cassandraunit.dataset.cql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scanning of CQL statements aware of quotes and brackets, for the rewritings and parsings of the datasets.
+ */
+final class CQLSyntax {
+
+    private CQLSyntax() {
+    }
+
+    static int indexOfTopLevel(String text, char searched, int from) {
+        int depth = 0;
+        for (int i = from; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = closingQuote(text, i);
+            } else if (depth == 0 && c == searched) {
+                return i;
+            } else if (c == '(' || c == '[' || c == '{' || c == '<') {
+                depth++;
+            } else if (c == ')' || c == ']' || c == '}' || c == '>') {
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    static int closingParenthesis(String text, int openingParenthesis) {
+        return indexOfTopLevel(text, ')', openingParenthesis + 1);
+    }
+
+    /* quotes are escaped by doubling them */
+    private static int closingQuote(String text, int openingQuote) {
+        char quote = text.charAt(openingQuote);
+        for (int i = openingQuote + 1; i < text.length(); i++) {
+            if (text.charAt(i) == quote) {
+                if (i + 1 < text.length() && text.charAt(i + 1) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * @param separator a punctuation character, or a keyword matched as a whole word ignoring case
+     * @return parts of text separated by separator outside of quotes and brackets
+     */
+    static List<String> split(String text, String separator) {
+        boolean keyword = Character.isLetter(separator.charAt(0));
+        List<String> parts = new ArrayList<String>();
+        int depth = 0;
+        int partStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '"') {
+                i = closingQuote(text, i);
+            } else if (c == '(' || c == '[' || c == '{' || c == '<') {
+                depth++;
+            } else if (c == ')' || c == ']' || c == '}' || c == '>') {
+                depth--;
+            } else if (depth == 0 && text.regionMatches(keyword, i, separator, 0, separator.length())
+                    && (!keyword || isWordBoundary(text, i - 1) && isWordBoundary(text, i + separator.length()))) {
+                parts.add(text.substring(partStart, i));
+                partStart = i + separator.length();
+                i = partStart - 1;
+            }
+        }
+        parts.add(text.substring(Math.min(partStart, text.length())));
+        return parts;
+    }
+
+    private static boolean isWordBoundary(String text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index))
+                && text.charAt(index) != '_';
+    }
+}
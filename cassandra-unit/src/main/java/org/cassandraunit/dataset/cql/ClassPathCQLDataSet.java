@@ -1,6 +1,8 @@
 package org.cassandraunit.dataset.cql;
 
 import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 
 import java.io.InputStream;
 
@@ -38,6 +40,24 @@ public class ClassPathCQLDataSet extends AbstractCQLDataSet implements CQLDataSe
         super(dataSetLocation, keyspaceCreation, keyspaceDeletion, useKeyspace, keyspaceName);
     }
 
+    public ClassPathCQLDataSet(String dataSetLocation, String keyspaceName, TableFilter tableFilter) {
+        super(dataSetLocation, true, true, true, keyspaceName, tableFilter);
+    }
+
+    public ClassPathCQLDataSet(String dataSetLocation, boolean keyspaceCreation, boolean keyspaceDeletion, boolean useKeyspace,
+                               String keyspaceName, TableFilter tableFilter) {
+        super(dataSetLocation, keyspaceCreation, keyspaceDeletion, useKeyspace, keyspaceName, tableFilter);
+    }
+
+    public ClassPathCQLDataSet(String dataSetLocation, String keyspaceName, TableFilter tableFilter, RowSampling rowSampling) {
+        super(dataSetLocation, true, true, true, keyspaceName, tableFilter, rowSampling);
+    }
+
+    public ClassPathCQLDataSet(String dataSetLocation, boolean keyspaceCreation, boolean keyspaceDeletion, boolean useKeyspace,
+                               String keyspaceName, TableFilter tableFilter, RowSampling rowSampling) {
+        super(dataSetLocation, keyspaceCreation, keyspaceDeletion, useKeyspace, keyspaceName, tableFilter, rowSampling);
+    }
+
     @Override
     protected InputStream getInputDataSetLocation(String dataSetLocation) {
         InputStream inputDataSetLocation = this.getClass().getResourceAsStream("/" + dataSetLocation);
@@ -0,0 +1,119 @@
+package org.cassandraunit.dataset.cql;
+
+import org.cassandraunit.CQLDataLoader;
+import org.cassandraunit.dataset.CQLDataSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * CQL dataset loaded into another keyspace : the keyspace of the dataset (the default one when it has none) is renamed
+ * keyspaceName in its statements (CREATE/ALTER/DROP KEYSPACE, USE, qualified table names). Other keyspaces created by
+ * the dataset are renamed keyspaceName_1, keyspaceName_2...
+ * Statements are rewritten textually, a string value looking like a qualified name of a renamed keyspace would be
+ * rewritten too.
+ */
+public class KeyspaceRenamingCQLDataSet implements CQLDataSet {
+
+    private static final Pattern CREATE_KEYSPACE_PATTERN = Pattern.compile(
+            "\\s*CREATE\\s+(?:KEYSPACE|SCHEMA)\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(\\w+|\"[^\"]+\")", Pattern.CASE_INSENSITIVE);
+
+    private final CQLDataSet dataSet;
+    private final String keyspaceName;
+    private Map<String, String> renamedKeyspaces = null;
+    private List<String> statements = null;
+
+    public KeyspaceRenamingCQLDataSet(CQLDataSet dataSet, String keyspaceName) {
+        this.dataSet = dataSet;
+        this.keyspaceName = keyspaceName.toLowerCase();
+    }
+
+    @Override
+    public synchronized List<String> getCQLStatements() {
+        if (statements == null) {
+            List<String> originalStatements = dataSet.getCQLStatements();
+            Map<String, String> renames = getRenamedKeyspaces(originalStatements);
+            statements = new ArrayList<String>();
+            for (String statement : originalStatements) {
+                statements.add(rename(statement, renames));
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @return renamed keyspaces, by their name in the dataset
+     */
+    public synchronized Map<String, String> getRenamedKeyspaces() {
+        return getRenamedKeyspaces(dataSet.getCQLStatements());
+    }
+
+    private Map<String, String> getRenamedKeyspaces(List<String> originalStatements) {
+        if (renamedKeyspaces == null) {
+            renamedKeyspaces = new LinkedHashMap<String, String>();
+            if (dataSet.getKeyspaceName() != null) {
+                renamedKeyspaces.put(dataSet.getKeyspaceName(), keyspaceName);
+            } else if (dataSet.isKeyspaceCreation()) {
+                renamedKeyspaces.put(CQLDataLoader.DEFAULT_KEYSPACE_NAME, keyspaceName);
+            }
+            for (String statement : originalStatements) {
+                Matcher createKeyspace = CREATE_KEYSPACE_PATTERN.matcher(statement);
+                if (createKeyspace.lookingAt()) {
+                    String createdKeyspace = unquote(createKeyspace.group(1));
+                    if (!renamedKeyspaces.containsKey(createdKeyspace)) {
+                        /* a dataset managing its own keyspace gets the new name for it */
+                        renamedKeyspaces.put(createdKeyspace, renamedKeyspaces.isEmpty() ? keyspaceName
+                                : keyspaceName + "_" + renamedKeyspaces.size());
+                    }
+                }
+            }
+        }
+        return renamedKeyspaces;
+    }
+
+    private static String unquote(String name) {
+        if (name.startsWith("\"")) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name.toLowerCase();
+    }
+
+    private static String rename(String statement, Map<String, String> renames) {
+        for (Map.Entry<String, String> rename : renames.entrySet()) {
+            String name = "(?:(?i:" + Pattern.quote(rename.getKey()) + ")|\"" + Pattern.quote(rename.getKey()) + "\")";
+            String replacement = Matcher.quoteReplacement(rename.getValue());
+            statement = Pattern.compile("(?i)(\\b(?:KEYSPACE|SCHEMA|USE)\\s+(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?)" + name + "(?![\\w\"])")
+                    .matcher(statement).replaceAll("$1" + replacement);
+            statement = Pattern.compile("(?<![\\w.\"'])" + name + "(?=\\s*\\.\\s*[\\w\"])")
+                    .matcher(statement).replaceAll(replacement);
+        }
+        return statement;
+    }
+
+    @Override
+    public String getKeyspaceName() {
+        if (dataSet.getKeyspaceName() == null && getRenamedKeyspaces().isEmpty()) {
+            return null;
+        }
+        return keyspaceName;
+    }
+
+    @Override
+    public boolean isKeyspaceCreation() {
+        return dataSet.isKeyspaceCreation();
+    }
+
+    @Override
+    public boolean isKeyspaceDeletion() {
+        return dataSet.isKeyspaceDeletion();
+    }
+
+    @Override
+    public boolean isUseKeyspace() {
+        return dataSet.isUseKeyspace();
+    }
+}
@@ -0,0 +1,57 @@
+package org.cassandraunit.dataset.cql;
+
+import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.RowSampling;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CQL dataset restricted to the writes of the partitions sampled by rowSampling, partition keys being those of the
+ * tables the dataset creates; any other statement is kept.
+ */
+public class SamplingCQLDataSet implements CQLDataSet {
+
+    private final CQLDataSet dataSet;
+    private final RowSampling rowSampling;
+    private List<String> statements = null;
+
+    public SamplingCQLDataSet(CQLDataSet dataSet, RowSampling rowSampling) {
+        this.dataSet = dataSet;
+        this.rowSampling = rowSampling;
+    }
+
+    @Override
+    public synchronized List<String> getCQLStatements() {
+        if (statements == null) {
+            statements = new ArrayList<String>();
+            CQLRowSampler rowSampler = new CQLRowSampler(rowSampling);
+            for (String statement : dataSet.getCQLStatements()) {
+                if (rowSampler.accept(statement)) {
+                    statements.add(statement);
+                }
+            }
+        }
+        return statements;
+    }
+
+    @Override
+    public String getKeyspaceName() {
+        return dataSet.getKeyspaceName();
+    }
+
+    @Override
+    public boolean isKeyspaceCreation() {
+        return dataSet.isKeyspaceCreation();
+    }
+
+    @Override
+    public boolean isKeyspaceDeletion() {
+        return dataSet.isKeyspaceDeletion();
+    }
+
+    @Override
+    public boolean isUseKeyspace() {
+        return dataSet.isUseKeyspace();
+    }
+}
@@ -0,0 +1,146 @@
+package org.cassandraunit.dataset.cql;
+
+import org.apache.commons.lang.StringUtils;
+import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.TableOptions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * CQL dataset whose CREATE KEYSPACE statements disable durable writes, if asked, and whose CREATE TABLE statements get
+ * the options of their table, replacing the same options of the statement. Table names are compared ignoring case.
+ */
+public class SchemaOptionsCQLDataSet implements CQLDataSet {
+
+    private static final Pattern CREATE_KEYSPACE_PATTERN = Pattern.compile("\\s*CREATE\\s+(?:KEYSPACE|SCHEMA)\\s",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_TABLE_PATTERN = Pattern.compile("\\s*CREATE\\s+(?:TABLE|COLUMNFAMILY)\\s",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern WITH_PATTERN = Pattern.compile("WITH\\b", Pattern.CASE_INSENSITIVE);
+
+    private final CQLDataSet dataSet;
+    private final boolean durableWrites;
+    private final Map<String, TableOptions> tableOptions = new TreeMap<String, TableOptions>(String.CASE_INSENSITIVE_ORDER);
+    private final TableOptions otherTablesOptions;
+    private List<String> statements = null;
+
+    /**
+     * @param tableOptions       options by table
+     * @param otherTablesOptions options of the tables without options of their own, may be null
+     */
+    public SchemaOptionsCQLDataSet(CQLDataSet dataSet, boolean durableWrites, Map<String, TableOptions> tableOptions,
+                                   TableOptions otherTablesOptions) {
+        this.dataSet = dataSet;
+        this.durableWrites = durableWrites;
+        this.tableOptions.putAll(tableOptions);
+        this.otherTablesOptions = otherTablesOptions;
+    }
+
+    @Override
+    public synchronized List<String> getCQLStatements() {
+        if (statements == null) {
+            statements = new ArrayList<String>();
+            for (String statement : dataSet.getCQLStatements()) {
+                statements.add(rewrite(statement));
+            }
+        }
+        return statements;
+    }
+
+    private String rewrite(String statement) {
+        String trimmedStatement = statement.trim();
+        boolean delimited = trimmedStatement.endsWith(AbstractCQLDataSet.END_OF_STATEMENT_DELIMITER);
+        trimmedStatement = StringUtils.removeEnd(trimmedStatement, AbstractCQLDataSet.END_OF_STATEMENT_DELIMITER);
+        String rewrittenStatement = null;
+        if (!durableWrites && CREATE_KEYSPACE_PATTERN.matcher(trimmedStatement).lookingAt()) {
+            Map<String, String> properties = new LinkedHashMap<String, String>();
+            properties.put("durable_writes", "false");
+            rewrittenStatement = replaceProperties(trimmedStatement,
+                    CQLSyntax.split(trimmedStatement, "WITH").get(0).length(), properties);
+        } else if (CREATE_TABLE_PATTERN.matcher(trimmedStatement).lookingAt()) {
+            TableOptions options = tableOptions.get(AbstractCQLDataSet.getTableName(trimmedStatement));
+            if (options == null) {
+                options = otherTablesOptions;
+            }
+            int definitionStart = CQLSyntax.indexOfTopLevel(trimmedStatement, '(', 0);
+            int definitionEnd = definitionStart < 0 ? -1 : CQLSyntax.closingParenthesis(trimmedStatement, definitionStart);
+            if (options != null && definitionEnd >= 0) {
+                rewrittenStatement = replaceProperties(trimmedStatement, definitionEnd + 1, toProperties(options));
+            }
+        }
+        if (rewrittenStatement == null) {
+            return statement;
+        }
+        return rewrittenStatement + (delimited ? AbstractCQLDataSet.END_OF_STATEMENT_DELIMITER : "");
+    }
+
+    private static Map<String, String> toProperties(TableOptions options) {
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+        if (options.getGcGraceSeconds() != null) {
+            properties.put("gc_grace_seconds", options.getGcGraceSeconds().toString());
+        }
+        if (options.getCaching() != null) {
+            properties.put("caching", quote(options.getCaching()));
+        }
+        if (options.getCompactionStrategy() != null) {
+            properties.put("compaction", "{'class' : " + quote(options.getCompactionStrategy()) + "}");
+        }
+        return properties;
+    }
+
+    /**
+     * @param propertiesStart where the optional WITH clause of statement stands
+     * @return null if the properties of statement can't be told apart
+     */
+    private static String replaceProperties(String statement, int propertiesStart, Map<String, String> properties) {
+        if (properties.isEmpty()) {
+            return null;
+        }
+        String with = statement.substring(propertiesStart).trim();
+        List<String> keptProperties = new ArrayList<String>();
+        if (!with.isEmpty()) {
+            if (!WITH_PATTERN.matcher(with).lookingAt()) {
+                return null;
+            }
+            for (String property : CQLSyntax.split(with.substring("WITH".length()), "AND")) {
+                String name = StringUtils.substringBefore(property, "=").trim();
+                if (!property.contains("=") || !properties.containsKey(name.toLowerCase())) {
+                    keptProperties.add(property.trim());
+                }
+            }
+        }
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            keptProperties.add(property.getKey() + " = " + property.getValue());
+        }
+        return statement.substring(0, propertiesStart).trim() + " WITH " + StringUtils.join(keptProperties, " AND ");
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    @Override
+    public String getKeyspaceName() {
+        return dataSet.getKeyspaceName();
+    }
+
+    @Override
+    public boolean isKeyspaceCreation() {
+        return dataSet.isKeyspaceCreation();
+    }
+
+    @Override
+    public boolean isKeyspaceDeletion() {
+        return dataSet.isKeyspaceDeletion();
+    }
+
+    @Override
+    public boolean isUseKeyspace() {
+        return dataSet.isUseKeyspace();
+    }
+}
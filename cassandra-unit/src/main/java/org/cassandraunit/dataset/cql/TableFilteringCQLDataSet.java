@@ -0,0 +1,57 @@
+package org.cassandraunit.dataset.cql;
+
+import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.TableFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CQL dataset restricted to the tables accepted by tableFilter : statements creating, altering, dropping, indexing or
+ * writing to other tables are left out, statements about no table (keyspace, batches...) are kept.
+ */
+public class TableFilteringCQLDataSet implements CQLDataSet {
+
+    private final CQLDataSet dataSet;
+    private final TableFilter tableFilter;
+    private List<String> statements = null;
+
+    public TableFilteringCQLDataSet(CQLDataSet dataSet, TableFilter tableFilter) {
+        this.dataSet = dataSet;
+        this.tableFilter = tableFilter;
+    }
+
+    @Override
+    public synchronized List<String> getCQLStatements() {
+        if (statements == null) {
+            statements = new ArrayList<String>();
+            for (String statement : dataSet.getCQLStatements()) {
+                String tableName = AbstractCQLDataSet.getTableName(statement);
+                if (tableName == null || tableFilter.accept(tableName)) {
+                    statements.add(statement);
+                }
+            }
+        }
+        return statements;
+    }
+
+    @Override
+    public String getKeyspaceName() {
+        return dataSet.getKeyspaceName();
+    }
+
+    @Override
+    public boolean isKeyspaceCreation() {
+        return dataSet.isKeyspaceCreation();
+    }
+
+    @Override
+    public boolean isKeyspaceDeletion() {
+        return dataSet.isKeyspaceDeletion();
+    }
+
+    @Override
+    public boolean isUseKeyspace() {
+        return dataSet.isUseKeyspace();
+    }
+}
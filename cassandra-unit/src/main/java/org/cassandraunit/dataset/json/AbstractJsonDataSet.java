@@ -1,6 +1,8 @@
 package org.cassandraunit.dataset.json;
 
 import org.cassandraunit.dataset.ParseException;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 import org.cassandraunit.dataset.commons.AbstractCommonsParserDataSet;
 import org.cassandraunit.dataset.commons.ParsedKeyspace;
 import org.codehaus.jackson.JsonParseException;
@@ -15,7 +17,17 @@ public abstract class AbstractJsonDataSet extends AbstractCommonsParserDataSet {
     protected String dataSetLocation = null;
 
     public AbstractJsonDataSet(String dataSetLocation) {
+        this(dataSetLocation, null);
+    }
+
+    public AbstractJsonDataSet(String dataSetLocation, TableFilter tableFilter) {
+        this(dataSetLocation, tableFilter, null);
+    }
+
+    public AbstractJsonDataSet(String dataSetLocation, TableFilter tableFilter, RowSampling rowSampling) {
         this.dataSetLocation = dataSetLocation;
+        this.tableFilter = tableFilter;
+        this.rowSampling = rowSampling;
         if (getInputDataSetLocation(dataSetLocation) == null) {
             throw new ParseException("Dataset not found");
         }
@@ -1,6 +1,8 @@
 package org.cassandraunit.dataset.json;
 
 import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 
 import java.io.InputStream;
 
@@ -13,6 +15,14 @@ public class ClassPathJsonDataSet extends AbstractJsonDataSet implements DataSet
         super(dataSetLocation);
     }
 
+    public ClassPathJsonDataSet(String dataSetLocation, TableFilter tableFilter) {
+        super(dataSetLocation, tableFilter);
+    }
+
+    public ClassPathJsonDataSet(String dataSetLocation, TableFilter tableFilter, RowSampling rowSampling) {
+        super(dataSetLocation, tableFilter, rowSampling);
+    }
+
     protected InputStream getInputDataSetLocation(String dataSetLocation) {
         InputStream inputDataSetLocation = this.getClass().getResourceAsStream("/" + dataSetLocation);
         return inputDataSetLocation;
@@ -6,6 +6,8 @@ import me.prettyprint.hector.api.ddl.ComparatorType;
 import org.apache.commons.lang.StringUtils;
 import org.cassandraunit.dataset.DataSet;
 import org.cassandraunit.dataset.ParseException;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 import org.cassandraunit.model.*;
 import org.cassandraunit.type.GenericType;
 import org.cassandraunit.type.GenericTypeEnum;
@@ -33,8 +35,28 @@ public abstract class AbstractXmlDataSet implements DataSet {
 
     private KeyspaceModel keyspace = null;
 
+    private TableFilter tableFilter = null;
+
+    private RowSampling rowSampling = null;
+
     public AbstractXmlDataSet(String dataSetLocation) {
+        this(dataSetLocation, null);
+    }
+
+    /**
+     * @param tableFilter column families it does not accept are left out, their rows never mapped
+     */
+    public AbstractXmlDataSet(String dataSetLocation, TableFilter tableFilter) {
+        this(dataSetLocation, tableFilter, null);
+    }
+
+    /**
+     * @param rowSampling rows of the partitions it does not sample are left out, only their key being mapped
+     */
+    public AbstractXmlDataSet(String dataSetLocation, TableFilter tableFilter, RowSampling rowSampling) {
         this.dataSetLocation = dataSetLocation;
+        this.tableFilter = tableFilter;
+        this.rowSampling = rowSampling;
         if (getInputDataSetLocation(dataSetLocation) == null) {
             throw new ParseException("Dataset not found");
         }
@@ -100,7 +122,9 @@ public abstract class AbstractXmlDataSet implements DataSet {
             /* there is column families to integrate */
             for (org.cassandraunit.dataset.xml.ColumnFamily xmlColumnFamily : xmlKeyspace.getColumnFamilies()
                     .getColumnFamily()) {
-                keyspace.getColumnFamilies().add(mapXmlColumnFamilyToColumnFamilyModel(xmlColumnFamily));
+                if (tableFilter == null || tableFilter.accept(xmlColumnFamily.getName())) {
+                    keyspace.getColumnFamilies().add(mapXmlColumnFamilyToColumnFamilyModel(xmlColumnFamily));
+                }
             }
         }
     }
@@ -244,19 +268,22 @@ public abstract class AbstractXmlDataSet implements DataSet {
             columnMetaData = xmlColumnFamily.getColumnMetadata();
         }
         for (Row rowType : xmlColumnFamily.getRow()) {
-            rowsModel.add(mapsXmlRowToRowModel(columnMetaData, rowType, keyType, typesBelongingCompositeTypeForKeyType, comparatorType,
-                    typesBelongingCompositeTypeForComparatorType, subcomparatorType, defaultColumnValueType));
+            GenericType key = TypeExtractor.constructGenericType(rowType.getKey(), keyType, typesBelongingCompositeTypeForKeyType);
+            if (rowSampling == null || rowSampling.accept(xmlColumnFamily.getName(), key)) {
+                rowsModel.add(mapsXmlRowToRowModel(columnMetaData, rowType, key, comparatorType,
+                        typesBelongingCompositeTypeForComparatorType, subcomparatorType, defaultColumnValueType));
+            }
         }
         return rowsModel;
     }
 
-    private RowModel mapsXmlRowToRowModel(List<ColumnMetadata> columnMetaData, Row xmlRow, ComparatorType keyType,
-                                          GenericTypeEnum[] typesBelongingCompositeTypeForKeyType, ComparatorType comparatorType,
+    private RowModel mapsXmlRowToRowModel(List<ColumnMetadata> columnMetaData, Row xmlRow, GenericType key,
+                                          ComparatorType comparatorType,
                                           GenericTypeEnum[] typesBelongingCompositeTypeForComparatorType, ComparatorType subComparatorType,
                                           ComparatorType defaultColumnValueType) {
         RowModel row = new RowModel();
 
-        row.setKey(TypeExtractor.constructGenericType(xmlRow.getKey(), keyType, typesBelongingCompositeTypeForKeyType));
+        row.setKey(key);
 
         row.setColumns(mapXmlColumnsToColumnsModel(columnMetaData, xmlRow.getColumn(), comparatorType,
                 typesBelongingCompositeTypeForComparatorType, defaultColumnValueType));
@@ -1,6 +1,8 @@
 package org.cassandraunit.dataset.xml;
 
 import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 
 import java.io.InputStream;
 
@@ -10,6 +12,14 @@ public class ClassPathXmlDataSet extends AbstractXmlDataSet implements DataSet {
         super(dataSetLocation);
     }
 
+    public ClassPathXmlDataSet(String dataSetLocation, TableFilter tableFilter) {
+        super(dataSetLocation, tableFilter);
+    }
+
+    public ClassPathXmlDataSet(String dataSetLocation, TableFilter tableFilter, RowSampling rowSampling) {
+        super(dataSetLocation, tableFilter, rowSampling);
+    }
+
     @Override
     protected InputStream getInputDataSetLocation(String dataSetLocation) {
         InputStream inputDataSetLocation = this.getClass().getResourceAsStream("/" + dataSetLocation);
@@ -2,6 +2,8 @@ package org.cassandraunit.dataset.yaml;
 
 import org.cassandraunit.dataset.DataSet;
 import org.cassandraunit.dataset.ParseException;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 import org.cassandraunit.dataset.commons.AbstractCommonsParserDataSet;
 import org.cassandraunit.dataset.commons.ParsedKeyspace;
 import org.yaml.snakeyaml.Yaml;
@@ -14,7 +16,17 @@ public abstract class AbstractYamlDataSet extends AbstractCommonsParserDataSet i
     private String dataSetLocation = null;
 
     public AbstractYamlDataSet(String dataSetLocation) {
+        this(dataSetLocation, null);
+    }
+
+    public AbstractYamlDataSet(String dataSetLocation, TableFilter tableFilter) {
+        this(dataSetLocation, tableFilter, null);
+    }
+
+    public AbstractYamlDataSet(String dataSetLocation, TableFilter tableFilter, RowSampling rowSampling) {
         this.dataSetLocation = dataSetLocation;
+        this.tableFilter = tableFilter;
+        this.rowSampling = rowSampling;
         if (getInputDataSetLocation(dataSetLocation) == null) {
             throw new ParseException("Dataset not found");
         }
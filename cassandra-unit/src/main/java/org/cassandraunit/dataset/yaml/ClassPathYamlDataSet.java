@@ -1,6 +1,8 @@
 package org.cassandraunit.dataset.yaml;
 
 import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 
 import java.io.InputStream;
 
@@ -10,6 +12,14 @@ public class ClassPathYamlDataSet extends AbstractYamlDataSet implements DataSet
         super(dataSetLocation);
     }
 
+    public ClassPathYamlDataSet(String dataSetLocation, TableFilter tableFilter) {
+        super(dataSetLocation, tableFilter);
+    }
+
+    public ClassPathYamlDataSet(String dataSetLocation, TableFilter tableFilter, RowSampling rowSampling) {
+        super(dataSetLocation, tableFilter, rowSampling);
+    }
+
     @Override
     protected InputStream getInputDataSetLocation(String dataSetLocation) {
         InputStream inputDataSetLocation = this.getClass().getResourceAsStream("/" + dataSetLocation);
@@ -0,0 +1,148 @@
+package org.cassandraunit.metrics;
+
+import com.yammer.metrics.Metrics;
+import com.yammer.metrics.core.Counter;
+import com.yammer.metrics.core.Gauge;
+import com.yammer.metrics.core.Metric;
+import com.yammer.metrics.core.MetricName;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Snapshot of the metrics of the embedded cassandra : per table activity (expect system tables) and completed /
+ * blocked tasks per thread pool. The difference of two snapshots gives the activity in between.
+ * <blockquote><pre>
+ * CassandraMetrics before = CassandraMetrics.snapshot();
+ * ...
+ * CassandraMetrics activity = CassandraMetrics.snapshot().minus(before);
+ * assertThat(activity.getTable("mykeyspace", "users").getMaxSSTablesPerRead(), lessThan(3L));
+ * </pre></blockquote>
+ */
+public class CassandraMetrics {
+
+    private static final String THREAD_POOLS_METRIC_TYPE = "ThreadPools";
+    private static final String COMPLETED_TASKS_METRIC_NAME = "CompletedTasks";
+    private static final String TOTAL_BLOCKED_TASKS_METRIC_NAME = "TotalBlockedTasks";
+
+    private final Map<String, TableMetrics> tables;
+    private final Map<String, Long> completedTasks;
+    private final Map<String, Long> blockedTasks;
+
+    private CassandraMetrics(Map<String, TableMetrics> tables, Map<String, Long> completedTasks, Map<String, Long> blockedTasks) {
+        this.tables = tables;
+        this.completedTasks = completedTasks;
+        this.blockedTasks = blockedTasks;
+    }
+
+    public static CassandraMetrics snapshot() {
+        if (!EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("Embedded cassandra must be started in this JVM");
+        }
+
+        Map<String, TableMetrics> tables = new TreeMap<String, TableMetrics>();
+        for (ColumnFamilyStore columnFamilyStore : EmbeddedCassandraServerHelper.getUserColumnFamilyStores()) {
+            TableMetrics tableMetrics = TableMetrics.of(columnFamilyStore);
+            tables.put(getTableKey(tableMetrics.getKeyspace(), tableMetrics.getTable()), tableMetrics);
+        }
+
+        Map<String, Long> completedTasks = new TreeMap<String, Long>();
+        Map<String, Long> blockedTasks = new TreeMap<String, Long>();
+        for (Map.Entry<MetricName, Metric> entry : Metrics.defaultRegistry().allMetrics().entrySet()) {
+            MetricName metricName = entry.getKey();
+            if (!THREAD_POOLS_METRIC_TYPE.equals(metricName.getType())) {
+                continue;
+            }
+            if (COMPLETED_TASKS_METRIC_NAME.equals(metricName.getName())) {
+                completedTasks.put(metricName.getScope(), ((Number) ((Gauge<?>) entry.getValue()).value()).longValue());
+            } else if (TOTAL_BLOCKED_TASKS_METRIC_NAME.equals(metricName.getName())) {
+                blockedTasks.put(metricName.getScope(), ((Counter) entry.getValue()).count());
+            }
+        }
+        return new CassandraMetrics(tables, completedTasks, blockedTasks);
+    }
+
+    /**
+     * @return activity between before and this, tables without activity are left out
+     */
+    public CassandraMetrics minus(CassandraMetrics before) {
+        Map<String, TableMetrics> tablesDiff = new TreeMap<String, TableMetrics>();
+        for (Map.Entry<String, TableMetrics> entry : tables.entrySet()) {
+            TableMetrics beforeTableMetrics = before.tables.get(entry.getKey());
+            TableMetrics tableMetrics = beforeTableMetrics == null ? entry.getValue() : entry.getValue().minus(beforeTableMetrics);
+            if (tableMetrics.hasActivity()) {
+                tablesDiff.put(entry.getKey(), tableMetrics);
+            }
+        }
+        return new CassandraMetrics(tablesDiff, minus(completedTasks, before.completedTasks),
+                minus(blockedTasks, before.blockedTasks));
+    }
+
+    private static Map<String, Long> minus(Map<String, Long> after, Map<String, Long> before) {
+        Map<String, Long> diff = new TreeMap<String, Long>();
+        for (Map.Entry<String, Long> entry : after.entrySet()) {
+            Long beforeValue = before.get(entry.getKey());
+            long value = entry.getValue() - (beforeValue == null ? 0 : beforeValue);
+            if (value != 0) {
+                diff.put(entry.getKey(), value);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * @return metrics of keyspace.table, with no activity when it is unknown
+     */
+    public TableMetrics getTable(String keyspace, String table) {
+        TableMetrics tableMetrics = tables.get(getTableKey(keyspace, table));
+        if (tableMetrics == null) {
+            return TableMetrics.empty(keyspace, table);
+        }
+        return tableMetrics;
+    }
+
+    public Collection<TableMetrics> getTables() {
+        return new ArrayList<TableMetrics>(tables.values());
+    }
+
+    /**
+     * @return completed tasks by thread pool name
+     */
+    public Map<String, Long> getCompletedTasks() {
+        return completedTasks;
+    }
+
+    /**
+     * @return blocked tasks by thread pool name
+     */
+    public Map<String, Long> getBlockedTasks() {
+        return blockedTasks;
+    }
+
+    private static String getTableKey(String keyspace, String table) {
+        return keyspace.toLowerCase() + "." + table.toLowerCase();
+    }
+
+    public String report() {
+        List<String> lines = new ArrayList<String>();
+        for (TableMetrics tableMetrics : tables.values()) {
+            lines.add(tableMetrics.toString());
+        }
+        lines.add("thread pools : completed tasks=" + completedTasks + ", blocked tasks=" + blockedTasks);
+        StringBuilder report = new StringBuilder();
+        for (String line : lines) {
+            report.append(line).append(System.getProperty("line.separator"));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
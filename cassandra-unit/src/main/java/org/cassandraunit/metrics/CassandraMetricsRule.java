@@ -0,0 +1,74 @@
+package org.cassandraunit.metrics;
+
+import org.junit.rules.MethodRule;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshot the embedded cassandra metrics before each test, and log the activity of the test per table afterwards.
+ * The rule starting cassandra and loading the dataset (CassandraUnit, CassandraCQLUnit...) can be given to it, so that
+ * it is applied first and the load is not part of the test activity.
+ * <blockquote><pre>
+ * public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("dataset.cql", "mykeyspace"));
+ *
+ * &#64;Rule
+ * public CassandraMetricsRule metrics = new CassandraMetricsRule(cassandraCQLUnit);
+ *
+ * &#64;Test
+ * public void test() {
+ *     ...
+ *     assertThat(metrics.sinceStart().getTable("mykeyspace", "users").getTombstonesScanned(), is(0L));
+ * }
+ * </pre></blockquote>
+ */
+public class CassandraMetricsRule implements MethodRule {
+
+    private static final Logger log = LoggerFactory.getLogger(CassandraMetricsRule.class);
+
+    private final MethodRule cassandraUnit;
+    private CassandraMetrics start;
+
+    public CassandraMetricsRule() {
+        this(null);
+    }
+
+    public CassandraMetricsRule(MethodRule cassandraUnit) {
+        this.cassandraUnit = cassandraUnit;
+    }
+
+    @Override
+    public Statement apply(final Statement base, FrameworkMethod method, Object target) {
+        Statement statement = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                before();
+                try {
+                    base.evaluate();
+                } finally {
+                    after();
+                }
+            }
+        };
+        if (cassandraUnit == null) {
+            return statement;
+        }
+        return cassandraUnit.apply(statement, method, target);
+    }
+
+    protected void before() {
+        start = CassandraMetrics.snapshot();
+    }
+
+    protected void after() {
+        log.info("Embedded cassandra activity during test :" + System.getProperty("line.separator") + sinceStart().report());
+    }
+
+    /**
+     * @return activity of the embedded cassandra since the test started
+     */
+    public CassandraMetrics sinceStart() {
+        return CassandraMetrics.snapshot().minus(start);
+    }
+}
@@ -0,0 +1,129 @@
+package org.cassandraunit.metrics;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.metrics.ColumnFamilyMetrics;
+
+/**
+ * Read/write activity of a table, as recorded by cassandra metrics. Counters are cumulative since the table was
+ * opened, unless this is the difference of two snapshots.
+ */
+public class TableMetrics {
+
+    private final String keyspace;
+    private final String table;
+    private final long readCount;
+    private final long readLatencyInMicros;
+    private final long writeCount;
+    private final long writeLatencyInMicros;
+    private final long sstablesPerReadCount;
+    private final long sstablesPerReadSum;
+    private final long maxSSTablesPerRead;
+    private final long tombstonesScanned;
+    private final long liveCellsScanned;
+    private final long flushCount;
+
+    private TableMetrics(String keyspace, String table, long readCount, long readLatencyInMicros, long writeCount,
+                         long writeLatencyInMicros, long sstablesPerReadCount, long sstablesPerReadSum,
+                         long maxSSTablesPerRead, long tombstonesScanned, long liveCellsScanned, long flushCount) {
+        this.keyspace = keyspace;
+        this.table = table;
+        this.readCount = readCount;
+        this.readLatencyInMicros = readLatencyInMicros;
+        this.writeCount = writeCount;
+        this.writeLatencyInMicros = writeLatencyInMicros;
+        this.sstablesPerReadCount = sstablesPerReadCount;
+        this.sstablesPerReadSum = sstablesPerReadSum;
+        this.maxSSTablesPerRead = maxSSTablesPerRead;
+        this.tombstonesScanned = tombstonesScanned;
+        this.liveCellsScanned = liveCellsScanned;
+        this.flushCount = flushCount;
+    }
+
+    static TableMetrics of(ColumnFamilyStore columnFamilyStore) {
+        ColumnFamilyMetrics metric = columnFamilyStore.metric;
+        return new TableMetrics(columnFamilyStore.keyspace.getName(), columnFamilyStore.name,
+                metric.readLatency.latency.count(), metric.readLatency.totalLatency.count(),
+                metric.writeLatency.latency.count(), metric.writeLatency.totalLatency.count(),
+                metric.sstablesPerReadHistogram.count(), (long) metric.sstablesPerReadHistogram.sum(),
+                (long) metric.sstablesPerReadHistogram.max(),
+                (long) metric.tombstoneScannedHistogram.sum(), (long) metric.liveScannedHistogram.sum(),
+                metric.memtableSwitchCount.count());
+    }
+
+    static TableMetrics empty(String keyspace, String table) {
+        return new TableMetrics(keyspace, table, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @return activity between before and this
+     */
+    TableMetrics minus(TableMetrics before) {
+        long sstablesPerReadCountBetween = sstablesPerReadCount - before.sstablesPerReadCount;
+        return new TableMetrics(keyspace, table, readCount - before.readCount,
+                readLatencyInMicros - before.readLatencyInMicros, writeCount - before.writeCount,
+                writeLatencyInMicros - before.writeLatencyInMicros, sstablesPerReadCountBetween,
+                sstablesPerReadSum - before.sstablesPerReadSum, sstablesPerReadCountBetween == 0 ? 0 : maxSSTablesPerRead,
+                tombstonesScanned - before.tombstonesScanned, liveCellsScanned - before.liveCellsScanned,
+                flushCount - before.flushCount);
+    }
+
+    boolean hasActivity() {
+        return readCount != 0 || writeCount != 0 || flushCount != 0;
+    }
+
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public long getReadCount() {
+        return readCount;
+    }
+
+    public double getMeanReadLatencyInMicros() {
+        return readCount == 0 ? 0 : (double) readLatencyInMicros / readCount;
+    }
+
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    public double getMeanWriteLatencyInMicros() {
+        return writeCount == 0 ? 0 : (double) writeLatencyInMicros / writeCount;
+    }
+
+    public double getMeanSSTablesPerRead() {
+        return sstablesPerReadCount == 0 ? 0 : (double) sstablesPerReadSum / sstablesPerReadCount;
+    }
+
+    /**
+     * @return the biggest number of sstables a single read went through since the table was opened, 0 when there
+     * was no read (between the two snapshots for a difference)
+     */
+    public long getMaxSSTablesPerRead() {
+        return maxSSTablesPerRead;
+    }
+
+    public long getTombstonesScanned() {
+        return tombstonesScanned;
+    }
+
+    public long getLiveCellsScanned() {
+        return liveCellsScanned;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s.%s : reads=%d (mean %.0f us, sstables/read mean %.1f max %d), writes=%d (mean %.0f us), " +
+                "tombstones scanned=%d, live cells scanned=%d, flushes=%d", keyspace, table, readCount,
+                getMeanReadLatencyInMicros(), getMeanSSTablesPerRead(), getMaxSSTablesPerRead(), writeCount,
+                getMeanWriteLatencyInMicros(), tombstonesScanned, liveCellsScanned, flushCount);
+    }
+}
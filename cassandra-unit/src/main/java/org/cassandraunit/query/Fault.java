@@ -0,0 +1,135 @@
+package org.cassandraunit.query;
+
+import org.apache.cassandra.auth.Auth;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.tracing.Tracing;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Misbehaviour of the embedded cassandra on the CQL requests matching a keyspace, a table and a type, with a
+ * probability. Without restriction a fault applies to every request, but those on system keyspaces.
+ * <blockquote><pre>
+ * EmbeddedCassandraServerHelper.injectFault(Fault.latency(50, 200, TimeUnit.MILLISECONDS).on(QueryType.READ).onTable("users").withProbability(0.1));
+ * </pre></blockquote>
+ *
+ * @see org.cassandraunit.utils.EmbeddedCassandraServerHelper#injectFault(Fault)
+ */
+public class Fault {
+
+    private static final Set<String> SYSTEM_KEYSPACES = new HashSet<String>(Arrays.asList(Keyspace.SYSTEM_KS,
+            Auth.AUTH_KS, Tracing.TRACE_KS));
+
+    public enum Kind {
+        /** request served after an additional delay */
+        LATENCY,
+        /** no response until faults are cleared or the request timeout of the node, then a timeout error */
+        DROP,
+        /** read or write timeout error */
+        TIMEOUT,
+        /** unavailable error */
+        UNAVAILABLE
+    }
+
+    private final Kind kind;
+    private final long minLatencyInMillis;
+    private final long maxLatencyInMillis;
+    private String keyspace;
+    private String table;
+    private QueryType type;
+    private double probability = 1;
+
+    private Fault(Kind kind, long minLatencyInMillis, long maxLatencyInMillis) {
+        this.kind = kind;
+        this.minLatencyInMillis = minLatencyInMillis;
+        this.maxLatencyInMillis = maxLatencyInMillis;
+    }
+
+    public static Fault latency(long latency, TimeUnit unit) {
+        return latency(latency, latency, unit);
+    }
+
+    /**
+     * @return additional latency uniformly distributed between min and max
+     */
+    public static Fault latency(long min, long max, TimeUnit unit) {
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("Latency must be between " + min + " and " + max);
+        }
+        return new Fault(Kind.LATENCY, unit.toMillis(min), unit.toMillis(max));
+    }
+
+    public static Fault drop() {
+        return new Fault(Kind.DROP, 0, 0);
+    }
+
+    public static Fault timeout() {
+        return new Fault(Kind.TIMEOUT, 0, 0);
+    }
+
+    public static Fault unavailable() {
+        return new Fault(Kind.UNAVAILABLE, 0, 0);
+    }
+
+    public Fault onKeyspace(String keyspace) {
+        this.keyspace = keyspace;
+        return this;
+    }
+
+    /**
+     * @param table table name, optionally prefixed by its keyspace (keyspace.table)
+     */
+    public Fault onTable(String table) {
+        this.table = table;
+        return this;
+    }
+
+    public Fault on(QueryType type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * @param probability between 0 and 1, chance of a matching request to be affected
+     */
+    public Fault withProbability(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1");
+        }
+        this.probability = probability;
+        return this;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    boolean matches(RecordedQuery query) {
+        /* requests of drivers on their own (cluster metadata...) are left alone */
+        if (SYSTEM_KEYSPACES.contains(query.getKeyspace())) {
+            return false;
+        }
+        return (keyspace == null || keyspace.equalsIgnoreCase(query.getKeyspace()))
+                && (table == null || query.isOn(table))
+                && (type == null || type == query.getType());
+    }
+
+    boolean happens(Random random) {
+        return probability >= 1 || random.nextDouble() < probability;
+    }
+
+    long nextLatencyInMillis(Random random) {
+        return minLatencyInMillis + (long) (random.nextDouble() * (maxLatencyInMillis - minLatencyInMillis));
+    }
+
+    @Override
+    public String toString() {
+        return kind + (kind == Kind.LATENCY ? " " + minLatencyInMillis + "-" + maxLatencyInMillis + " ms" : "")
+                + (type == null ? "" : " on " + type) + (keyspace == null ? "" : " in " + keyspace)
+                + (table == null ? "" : " on " + table) + " with probability " + probability;
+    }
+}
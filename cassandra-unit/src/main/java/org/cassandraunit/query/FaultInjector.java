@@ -0,0 +1,175 @@
+package org.cassandraunit.query;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.CQLStatement;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.hooks.BatchExecutionContext;
+import org.apache.cassandra.cql3.hooks.ExecutionContext;
+import org.apache.cassandra.cql3.hooks.PreExecutionHook;
+import org.apache.cassandra.cql3.statements.BatchStatement;
+import org.apache.cassandra.cql3.statements.ModificationStatement;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.WriteType;
+import org.apache.cassandra.exceptions.ReadTimeoutException;
+import org.apache.cassandra.exceptions.RequestExecutionException;
+import org.apache.cassandra.exceptions.UnavailableException;
+import org.apache.cassandra.exceptions.WriteTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Apply the injected faults to the CQL requests executed by the embedded cassandra, through a query processor hook.
+ * Only the first fault matching a request applies.
+ */
+public class FaultInjector {
+
+    private static final Logger log = LoggerFactory.getLogger(FaultInjector.class);
+
+    private static final List<Fault> faults = new CopyOnWriteArrayList<Fault>();
+    private static final Random random = new Random();
+    private static final Object dropLock = new Object();
+    private static long dropGeneration = 0;
+    private static boolean hookInstalled = false;
+
+    public static synchronized void inject(Fault fault) {
+        if (!hookInstalled) {
+            QueryRecorder.installHooks();
+            QueryProcessor.addPreExecutionHook(new Hook());
+            hookInstalled = true;
+        }
+        log.debug("Injecting fault " + fault);
+        faults.add(fault);
+    }
+
+    /**
+     * Remove every fault, requests held by a drop fault are then answered with a timeout
+     */
+    public static void clear() {
+        faults.clear();
+        synchronized (dropLock) {
+            dropGeneration++;
+            dropLock.notifyAll();
+        }
+    }
+
+    public static List<Fault> getFaults() {
+        return new ArrayList<Fault>(faults);
+    }
+
+    private static void apply(List<RecordedQuery> queries, ConsistencyLevel consistency, boolean batch)
+            throws RequestExecutionException {
+        if (faults.isEmpty()) {
+            return;
+        }
+        for (Fault fault : faults) {
+            for (RecordedQuery query : queries) {
+                if (fault.matches(query)) {
+                    if (fault.happens(random)) {
+                        apply(fault, query, consistency, batch);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void apply(Fault fault, RecordedQuery query, ConsistencyLevel consistency, boolean batch)
+            throws RequestExecutionException {
+        switch (fault.getKind()) {
+            case LATENCY:
+                sleep(fault.nextLatencyInMillis(random));
+                break;
+            case DROP:
+                awaitClear(requestTimeoutInMillis(query, batch));
+                throw timeout(query, consistency, batch);
+            case TIMEOUT:
+                throw timeout(query, consistency, batch);
+            case UNAVAILABLE:
+                throw new UnavailableException(consistency, 1, 0);
+        }
+    }
+
+    private static RequestExecutionException timeout(RecordedQuery query, ConsistencyLevel consistency, boolean batch) {
+        if (query.getType() == QueryType.READ) {
+            return new ReadTimeoutException(consistency, 0, 1, false);
+        }
+        return new WriteTimeoutException(batch ? WriteType.BATCH : WriteType.SIMPLE, consistency, 0, 1);
+    }
+
+    /* a dropped request is held no longer than the node would wait for the replicas, as a server request thread */
+    private static long requestTimeoutInMillis(RecordedQuery query, boolean batch) {
+        if (batch) {
+            return DatabaseDescriptor.getWriteRpcTimeout();
+        }
+        switch (query.getType()) {
+            case READ:
+                return DatabaseDescriptor.getReadRpcTimeout();
+            case WRITE:
+            case DELETE:
+                return DatabaseDescriptor.getWriteRpcTimeout();
+            case TRUNCATE:
+                return DatabaseDescriptor.getTruncateRpcTimeout();
+            default:
+                return DatabaseDescriptor.getRpcTimeout();
+        }
+    }
+
+    private static void awaitClear(long maxMillis) {
+        long deadline = System.currentTimeMillis() + maxMillis;
+        synchronized (dropLock) {
+            long generation = dropGeneration;
+            long remaining;
+            while (generation == dropGeneration && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    dropLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Hook implements PreExecutionHook {
+
+        @Override
+        public CQLStatement processStatement(CQLStatement statement, ExecutionContext context) throws RequestExecutionException {
+            if (statement instanceof BatchStatement) {
+                apply(toRecordedQueries((BatchStatement) statement), context.queryOptions.getConsistency(), true);
+            } else {
+                List<RecordedQuery> queries = new ArrayList<RecordedQuery>();
+                queries.add(QueryRecorder.toRecordedQuery(statement, null, false));
+                apply(queries, context.queryOptions.getConsistency(), false);
+            }
+            return statement;
+        }
+
+        @Override
+        public BatchStatement processBatch(BatchStatement batch, BatchExecutionContext context) throws RequestExecutionException {
+            /* the consistency level of a batch is not given to the hooks */
+            apply(toRecordedQueries(batch), ConsistencyLevel.ONE, true);
+            return batch;
+        }
+
+        private List<RecordedQuery> toRecordedQueries(BatchStatement batch) {
+            List<RecordedQuery> queries = new ArrayList<RecordedQuery>();
+            for (ModificationStatement statement : batch.getStatements()) {
+                queries.add(QueryRecorder.toRecordedQuery(statement, null, true));
+            }
+            return queries;
+        }
+    }
+}
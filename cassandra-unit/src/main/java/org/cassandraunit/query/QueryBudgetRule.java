@@ -0,0 +1,150 @@
+package org.cassandraunit.query;
+
+import org.junit.rules.MethodRule;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Count the CQL requests received by the embedded cassandra during each test, and check query budgets after it.
+ * Requests are recorded on the server side, so whatever the driver used by the application.
+ * The rule starting cassandra and loading the dataset (CassandraUnit, CassandraCQLUnit...) can be given to it, so that
+ * it is applied first and the load is not counted.
+ * Requests of every client of the embedded cassandra are counted, tests running in parallel in the same JVM included,
+ * unless the rule is restricted to the keyspaces under test with onKeyspaces().
+ * <blockquote><pre>
+ * public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("dataset.cql", "mykeyspace"));
+ *
+ * &#64;Rule
+ * public QueryBudgetRule queries = new QueryBudgetRule(cassandraCQLUnit).atMost(3, QueryType.READ, "users").noAllowFiltering();
+ * </pre></blockquote>
+ */
+public class QueryBudgetRule implements MethodRule {
+
+    private final MethodRule cassandraUnit;
+    private QueryRecorder recorder = new QueryRecorder();
+    private final List<Budget> budgets = new ArrayList<Budget>();
+    private boolean noAllowFiltering = false;
+
+    public QueryBudgetRule() {
+        this(null);
+    }
+
+    public QueryBudgetRule(MethodRule cassandraUnit) {
+        this.cassandraUnit = cassandraUnit;
+    }
+
+    /**
+     * Expect at most max requests of this type on this table in each test
+     *
+     * @param type  type of request, or null for any type
+     * @param table table name, optionally prefixed by its keyspace (keyspace.table), or null for any table
+     */
+    public QueryBudgetRule atMost(int max, QueryType type, String table) {
+        budgets.add(new Budget(max, type, table));
+        return this;
+    }
+
+    /**
+     * Count only the requests on these keyspaces
+     */
+    public QueryBudgetRule onKeyspaces(String... keyspaces) {
+        recorder = new QueryRecorder(keyspaces);
+        return this;
+    }
+
+    /**
+     * Expect no select with ALLOW FILTERING in each test
+     */
+    public QueryBudgetRule noAllowFiltering() {
+        noAllowFiltering = true;
+        return this;
+    }
+
+    @Override
+    public Statement apply(final Statement base, FrameworkMethod method, Object target) {
+        Statement statement = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                recorder.clear();
+                recorder.start();
+                try {
+                    base.evaluate();
+                } finally {
+                    recorder.stop();
+                }
+                verify();
+            }
+        };
+        if (cassandraUnit == null) {
+            return statement;
+        }
+        return cassandraUnit.apply(statement, method, target);
+    }
+
+    /**
+     * @return requests received since the test started
+     */
+    public List<RecordedQuery> getQueries() {
+        return recorder.getQueries();
+    }
+
+    /**
+     * @param type  type of request, or null for any type
+     * @param table table name, optionally prefixed by its keyspace (keyspace.table), or null for any table
+     */
+    public int count(QueryType type, String table) {
+        return recorder.count(type, table);
+    }
+
+    public Map<String, Integer> countByStatement() {
+        return recorder.countByStatement();
+    }
+
+    /**
+     * Check the budgets at this point of the test
+     */
+    public void verify() {
+        List<String> violations = new ArrayList<String>();
+        for (Budget budget : budgets) {
+            int count = count(budget.type, budget.table);
+            if (count > budget.max) {
+                violations.add("expected at most " + budget.max + " " + (budget.type == null ? "request" : budget.type)
+                        + "(s)" + (budget.table == null ? "" : " on " + budget.table) + " but got " + count);
+            }
+        }
+        if (noAllowFiltering) {
+            for (RecordedQuery query : getQueries()) {
+                if (query.isAllowFiltering()) {
+                    violations.add("unexpected ALLOW FILTERING : " + query.getStatement());
+                }
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Query budget exceeded : " + violations + report());
+        }
+    }
+
+    private String report() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : countByStatement().entrySet()) {
+            report.append(System.getProperty("line.separator")).append(entry.getValue()).append(" x ").append(entry.getKey());
+        }
+        return report.toString();
+    }
+
+    private static class Budget {
+        private final int max;
+        private final QueryType type;
+        private final String table;
+
+        private Budget(int max, QueryType type, String table) {
+            this.max = max;
+            this.type = type;
+            this.table = table;
+        }
+    }
+}
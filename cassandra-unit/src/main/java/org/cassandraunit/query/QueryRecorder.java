@@ -0,0 +1,218 @@
+package org.cassandraunit.query;
+
+import org.apache.cassandra.cql3.CQLStatement;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.hooks.BatchExecutionContext;
+import org.apache.cassandra.cql3.hooks.ExecutionContext;
+import org.apache.cassandra.cql3.hooks.PostPreparationHook;
+import org.apache.cassandra.cql3.hooks.PreExecutionHook;
+import org.apache.cassandra.cql3.hooks.PreparationContext;
+import org.apache.cassandra.cql3.statements.AlterKeyspaceStatement;
+import org.apache.cassandra.cql3.statements.BatchStatement;
+import org.apache.cassandra.cql3.statements.CFStatement;
+import org.apache.cassandra.cql3.statements.CreateKeyspaceStatement;
+import org.apache.cassandra.cql3.statements.DeleteStatement;
+import org.apache.cassandra.cql3.statements.DropKeyspaceStatement;
+import org.apache.cassandra.cql3.statements.ModificationStatement;
+import org.apache.cassandra.cql3.statements.SchemaAlteringStatement;
+import org.apache.cassandra.cql3.statements.SelectStatement;
+import org.apache.cassandra.cql3.statements.TruncateStatement;
+import org.cassandraunit.exception.CassandraUnitException;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Record the CQL requests executed by the embedded cassandra, whatever the client driver, through the query
+ * processor hooks. Statements prepared while the hooks are installed keep their query, so that later executions can
+ * be reported with it.
+ * The hooks are installed in the whole embedded cassandra, shared by the JVM : a started recorder gets the requests
+ * of every client, including tests running in parallel. Give it the keyspaces under test to record only the requests
+ * on them.
+ */
+public class QueryRecorder {
+
+    private static final Map<CQLStatement, String> preparedQueries = Collections.synchronizedMap(new WeakHashMap<CQLStatement, String>());
+    private static final List<QueryRecorder> recorders = new CopyOnWriteArrayList<QueryRecorder>();
+    private static boolean hooksInstalled = false;
+    private static Field allowFilteringField;
+
+    private final Set<String> keyspaces = new HashSet<String>();
+    private final List<RecordedQuery> queries = Collections.synchronizedList(new ArrayList<RecordedQuery>());
+
+    /**
+     * @param keyspaces keyspaces of the requests to record, none to record the requests on any keyspace
+     */
+    public QueryRecorder(String... keyspaces) {
+        for (String keyspace : keyspaces) {
+            this.keyspaces.add(keyspace.toLowerCase());
+        }
+    }
+
+    /**
+     * Install the hooks in the embedded cassandra, as soon as possible so that prepared statements are known.
+     */
+    public static synchronized void installHooks() {
+        if (hooksInstalled) {
+            return;
+        }
+        try {
+            allowFilteringField = SelectStatement.Parameters.class.getDeclaredField("allowFiltering");
+            allowFilteringField.setAccessible(true);
+        } catch (NoSuchFieldException e) {
+            throw new CassandraUnitException("Unable to inspect select statements of this cassandra version", e);
+        }
+        Hook hook = new Hook();
+        QueryProcessor.addPostPreparationHook(hook);
+        QueryProcessor.addPreExecutionHook(hook);
+        hooksInstalled = true;
+    }
+
+    public void start() {
+        installHooks();
+        recorders.add(this);
+    }
+
+    public void stop() {
+        recorders.remove(this);
+    }
+
+    public void clear() {
+        queries.clear();
+    }
+
+    public List<RecordedQuery> getQueries() {
+        synchronized (queries) {
+            return new ArrayList<RecordedQuery>(queries);
+        }
+    }
+
+    /**
+     * @param table table name, optionally prefixed by its keyspace (keyspace.table), or null for any table
+     */
+    public int count(QueryType type, String table) {
+        int count = 0;
+        for (RecordedQuery query : getQueries()) {
+            if ((type == null || query.getType() == type) && (table == null || query.isOn(table))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return number of executions by statement, in order of first execution
+     */
+    public Map<String, Integer> countByStatement() {
+        Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+        for (RecordedQuery query : getQueries()) {
+            Integer count = counts.get(query.getStatement());
+            counts.put(query.getStatement(), count == null ? 1 : count + 1);
+        }
+        return counts;
+    }
+
+    private static void record(CQLStatement statement, String query, boolean inBatch) {
+        if (statement instanceof BatchStatement) {
+            for (ModificationStatement batchedStatement : ((BatchStatement) statement).getStatements()) {
+                record(batchedStatement, preparedQueries.get(batchedStatement), true);
+            }
+            return;
+        }
+
+        RecordedQuery recordedQuery = toRecordedQuery(statement, query, inBatch);
+        for (QueryRecorder recorder : recorders) {
+            if (recorder.accepts(recordedQuery)) {
+                recorder.queries.add(recordedQuery);
+            }
+        }
+    }
+
+    private boolean accepts(RecordedQuery query) {
+        return keyspaces.isEmpty()
+                || query.getKeyspace() != null && keyspaces.contains(query.getKeyspace().toLowerCase());
+    }
+
+    /**
+     * @param statement any statement but a batch
+     * @param query     CQL query of the statement, if known
+     */
+    static RecordedQuery toRecordedQuery(CQLStatement statement, String query, boolean inBatch) {
+        QueryType type = QueryType.OTHER;
+        String keyspace = null;
+        String table = null;
+        boolean allowFiltering = false;
+        if (statement instanceof SelectStatement) {
+            SelectStatement select = (SelectStatement) statement;
+            type = QueryType.READ;
+            keyspace = select.keyspace();
+            table = select.columnFamily();
+            allowFiltering = isAllowFiltering(select);
+        } else if (statement instanceof ModificationStatement) {
+            ModificationStatement modification = (ModificationStatement) statement;
+            type = statement instanceof DeleteStatement ? QueryType.DELETE : QueryType.WRITE;
+            keyspace = modification.keyspace();
+            table = modification.columnFamily();
+        } else if (statement instanceof CFStatement) {
+            CFStatement cfStatement = (CFStatement) statement;
+            type = statement instanceof TruncateStatement ? QueryType.TRUNCATE
+                    : statement instanceof SchemaAlteringStatement ? QueryType.SCHEMA : QueryType.OTHER;
+            keyspace = cfStatement.keyspace();
+            /* keyspace level statements have no table name at all */
+            if (!(statement instanceof CreateKeyspaceStatement || statement instanceof AlterKeyspaceStatement
+                    || statement instanceof DropKeyspaceStatement)) {
+                table = cfStatement.columnFamily();
+            }
+        }
+        if (query == null) {
+            query = "prepared " + type + (table == null ? "" : " on " + keyspace + "." + table);
+        }
+        return new RecordedQuery(query, type, keyspace, table, allowFiltering, inBatch);
+    }
+
+    private static boolean isAllowFiltering(SelectStatement select) {
+        try {
+            return (Boolean) allowFilteringField.get(select.parameters);
+        } catch (IllegalAccessException e) {
+            throw new CassandraUnitException("Unable to inspect select statement", e);
+        }
+    }
+
+    private static class Hook implements PreExecutionHook, PostPreparationHook {
+
+        @Override
+        public void processStatement(CQLStatement statement, PreparationContext context) {
+            preparedQueries.put(statement, context.queryString);
+        }
+
+        @Override
+        public CQLStatement processStatement(CQLStatement statement, ExecutionContext context) {
+            if (!recorders.isEmpty()) {
+                String query = context.queryString.isPresent() ? context.queryString.get() : preparedQueries.get(statement);
+                record(statement, query, false);
+            }
+            return statement;
+        }
+
+        @Override
+        public BatchStatement processBatch(BatchStatement batch, BatchExecutionContext context) {
+            if (!recorders.isEmpty()) {
+                List<ModificationStatement> statements = batch.getStatements();
+                for (int i = 0; i < statements.size(); i++) {
+                    Object queryOrId = context.queryOrIdList.get(i);
+                    String query = queryOrId instanceof String ? (String) queryOrId : preparedQueries.get(statements.get(i));
+                    record(statements.get(i), query, true);
+                }
+            }
+            return batch;
+        }
+    }
+}
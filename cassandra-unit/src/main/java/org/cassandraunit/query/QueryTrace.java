@@ -0,0 +1,95 @@
+package org.cassandraunit.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A traced request (system_traces.sessions) and its steps.
+ */
+public class QueryTrace {
+
+    private static final Pattern TOMBSTONED_CELLS_PATTERN = Pattern.compile("Read \\d+ live and (\\d+) tombstoned cells");
+
+    private final UUID sessionId;
+    private final String request;
+    private final String query;
+    private final String coordinator;
+    private final int durationInMicros;
+    private final List<TraceEvent> events = new ArrayList<TraceEvent>();
+
+    QueryTrace(UUID sessionId, String request, String query, String coordinator, int durationInMicros) {
+        this.sessionId = sessionId;
+        this.request = request;
+        this.query = query;
+        this.coordinator = coordinator;
+        this.durationInMicros = durationInMicros;
+    }
+
+    void addEvent(TraceEvent event) {
+        events.add(event);
+    }
+
+    public UUID getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return kind of request (Execute CQL3 query, Execute CQL3 prepared query...)
+     */
+    public String getRequest() {
+        return request;
+    }
+
+    /**
+     * @return the CQL query, null for prepared statements and batches
+     */
+    public String getQuery() {
+        return query;
+    }
+
+    public String getCoordinator() {
+        return coordinator;
+    }
+
+    /**
+     * @return server side latency of the request, as seen by the coordinator
+     */
+    public int getDurationInMicros() {
+        return durationInMicros;
+    }
+
+    public List<TraceEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * @return tombstoned cells read by the request, on all replicas
+     */
+    public int getTombstonedCells() {
+        int tombstonedCells = 0;
+        for (TraceEvent event : events) {
+            Matcher matcher = TOMBSTONED_CELLS_PATTERN.matcher(event.getActivity());
+            if (matcher.find()) {
+                tombstonedCells += Integer.parseInt(matcher.group(1));
+            }
+        }
+        return tombstonedCells;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder trace = new StringBuilder();
+        trace.append(durationInMicros).append(" us : ").append(query == null ? request : query);
+        int tombstonedCells = getTombstonedCells();
+        if (tombstonedCells > 0) {
+            trace.append(" (WARNING : ").append(tombstonedCells).append(" tombstoned cells read)");
+        }
+        for (TraceEvent event : events) {
+            trace.append(System.getProperty("line.separator")).append("    ").append(event);
+        }
+        return trace.toString();
+    }
+}
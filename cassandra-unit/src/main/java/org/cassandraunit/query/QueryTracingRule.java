@@ -0,0 +1,272 @@
+package org.cassandraunit.query;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import org.apache.cassandra.cql3.CQLStatement;
+import org.apache.cassandra.cql3.QueryProcessor;
+import org.apache.cassandra.cql3.hooks.BatchExecutionContext;
+import org.apache.cassandra.cql3.hooks.ExecutionContext;
+import org.apache.cassandra.cql3.hooks.PostPreparationHook;
+import org.apache.cassandra.cql3.hooks.PreExecutionHook;
+import org.apache.cassandra.cql3.hooks.PreparationContext;
+import org.apache.cassandra.cql3.statements.BatchStatement;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.tracing.Tracing;
+import org.cassandraunit.CassandraCQLUnit;
+import org.junit.rules.MethodRule;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Trace every CQL request received by the embedded cassandra during each test, then collect the traces from
+ * system_traces with the session of the CassandraCQLUnit, log them and check latency budgets.
+ * The session ids of the traces are taken by query processor hooks, so that only the traces of the test are read.
+ * Tracing adds some overhead to each request, budgets should leave room for it.
+ * <blockquote><pre>
+ * public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("dataset.cql", "mykeyspace"));
+ *
+ * &#64;Rule
+ * public QueryTracingRule tracing = new QueryTracingRule(cassandraCQLUnit).p99Latency(10, TimeUnit.MILLISECONDS);
+ * </pre></blockquote>
+ */
+public class QueryTracingRule implements MethodRule {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryTracingRule.class);
+
+    private static final long TRACES_TIMEOUT_IN_MILLIS = 5000;
+    private static final Pattern SYSTEM_QUERY_PATTERN = Pattern.compile("(?is).*\\bFROM\\s+\"?system(_traces)?\"?\\..*");
+
+    private static final List<QueryTracingRule> activeRules = new CopyOnWriteArrayList<QueryTracingRule>();
+    private static boolean hooksInstalled = false;
+
+    private final CassandraCQLUnit cassandraCQLUnit;
+    private final Session session;
+    private Long maxLatencyInMicros;
+    private Long p99LatencyInMicros;
+    private final Set<UUID> sessionIds = Collections.synchronizedSet(new LinkedHashSet<UUID>());
+    private List<QueryTrace> traces = new ArrayList<QueryTrace>();
+
+    /**
+     * @param cassandraCQLUnit applied first, its session is used to read the traces
+     */
+    public QueryTracingRule(CassandraCQLUnit cassandraCQLUnit) {
+        this.cassandraCQLUnit = cassandraCQLUnit;
+        this.session = null;
+    }
+
+    /**
+     * @param session used to read the traces, connected to the embedded cassandra
+     */
+    public QueryTracingRule(Session session) {
+        this.cassandraCQLUnit = null;
+        this.session = session;
+    }
+
+    /**
+     * Expect every request of each test to be served within this latency
+     */
+    public QueryTracingRule maxLatency(long latency, TimeUnit unit) {
+        maxLatencyInMicros = unit.toMicros(latency);
+        return this;
+    }
+
+    /**
+     * Expect 99% of the requests of each test to be served within this latency
+     */
+    public QueryTracingRule p99Latency(long latency, TimeUnit unit) {
+        p99LatencyInMicros = unit.toMicros(latency);
+        return this;
+    }
+
+    @Override
+    public Statement apply(final Statement base, FrameworkMethod method, Object target) {
+        Statement statement = new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                installHooks();
+                double traceProbability = StorageService.instance.getTracingProbability();
+                sessionIds.clear();
+                activeRules.add(QueryTracingRule.this);
+                StorageService.instance.setTraceProbability(1);
+                try {
+                    base.evaluate();
+                } finally {
+                    StorageService.instance.setTraceProbability(traceProbability);
+                    activeRules.remove(QueryTracingRule.this);
+                    traces = collectTraces();
+                    log.info("Requests traced during test :" + report());
+                }
+                verify();
+            }
+        };
+        if (cassandraCQLUnit == null) {
+            return statement;
+        }
+        return cassandraCQLUnit.apply(statement, method, target);
+    }
+
+    /**
+     * @return requests traced during the test, available once it is over
+     */
+    public List<QueryTrace> getTraces() {
+        return traces;
+    }
+
+    public long getMaxLatencyInMicros() {
+        return getPercentileLatencyInMicros(1);
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     */
+    public long getPercentileLatencyInMicros(double percentile) {
+        if (traces.isEmpty()) {
+            return 0;
+        }
+        List<Integer> latencies = new ArrayList<Integer>();
+        for (QueryTrace trace : traces) {
+            latencies.add(trace.getDurationInMicros());
+        }
+        Collections.sort(latencies);
+        int index = (int) Math.ceil(percentile * latencies.size()) - 1;
+        return latencies.get(Math.max(0, index));
+    }
+
+    /**
+     * Check the latency budgets against the traces of the test
+     */
+    public void verify() {
+        List<String> violations = new ArrayList<String>();
+        if (maxLatencyInMicros != null && getMaxLatencyInMicros() > maxLatencyInMicros) {
+            violations.add("expected max latency within " + maxLatencyInMicros + " us but got " + getMaxLatencyInMicros() + " us");
+        }
+        if (p99LatencyInMicros != null && getPercentileLatencyInMicros(0.99) > p99LatencyInMicros) {
+            violations.add("expected p99 latency within " + p99LatencyInMicros + " us but got "
+                    + getPercentileLatencyInMicros(0.99) + " us");
+        }
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Latency budget exceeded : " + violations + report());
+        }
+    }
+
+    private static synchronized void installHooks() {
+        if (hooksInstalled) {
+            return;
+        }
+        Hook hook = new Hook();
+        QueryProcessor.addPostPreparationHook(hook);
+        QueryProcessor.addPreExecutionHook(hook);
+        hooksInstalled = true;
+    }
+
+    /* the hooks run in the thread serving the request, where its tracing session is current */
+    private static void addTracingSession() {
+        if (activeRules.isEmpty() || !Tracing.isTracing()) {
+            return;
+        }
+        UUID sessionId = Tracing.instance.getSessionId();
+        for (QueryTracingRule rule : activeRules) {
+            rule.sessionIds.add(sessionId);
+        }
+    }
+
+    private List<QueryTrace> collectTraces() throws InterruptedException {
+        Session session = cassandraCQLUnit == null ? this.session : cassandraCQLUnit.session;
+        PreparedStatement selectSession = session.prepare("SELECT session_id, request, parameters, coordinator, duration FROM system_traces.sessions WHERE session_id = ?");
+        List<UUID> pendingSessionIds;
+        synchronized (sessionIds) {
+            pendingSessionIds = new ArrayList<UUID>(sessionIds);
+        }
+        long timeout = System.currentTimeMillis() + TRACES_TIMEOUT_IN_MILLIS;
+        Map<UUID, Row> sessions = new HashMap<UUID, Row>();
+        /* traces are written asynchronously, the duration of a request is written last */
+        while (true) {
+            for (Iterator<UUID> iterator = pendingSessionIds.iterator(); iterator.hasNext(); ) {
+                UUID sessionId = iterator.next();
+                Row row = session.execute(selectSession.bind(sessionId)).one();
+                if (row != null && !row.isNull("duration")) {
+                    sessions.put(sessionId, row);
+                    iterator.remove();
+                }
+            }
+            if (pendingSessionIds.isEmpty() || System.currentTimeMillis() > timeout) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+
+        PreparedStatement selectEvents = session.prepare("SELECT activity, source, source_elapsed, thread FROM system_traces.events WHERE session_id = ?");
+        List<QueryTrace> traces = new ArrayList<QueryTrace>();
+        for (Row row : orderedByTracing(sessions)) {
+            Map<String, String> parameters = row.getMap("parameters", String.class, String.class);
+            String query = parameters.get("query");
+            if (query != null && SYSTEM_QUERY_PATTERN.matcher(query).matches()) {
+                continue;
+            }
+            QueryTrace trace = new QueryTrace(row.getUUID("session_id"), row.getString("request"), query,
+                    row.getInet("coordinator").getHostAddress(), row.getInt("duration"));
+            for (Row event : session.execute(selectEvents.bind(trace.getSessionId()))) {
+                trace.addEvent(new TraceEvent(event.getString("activity"), event.getInet("source").getHostAddress(),
+                        event.getInt("source_elapsed"), event.getString("thread")));
+            }
+            traces.add(trace);
+        }
+        return traces;
+    }
+
+    private List<Row> orderedByTracing(Map<UUID, Row> sessions) {
+        List<Row> rows = new ArrayList<Row>();
+        synchronized (sessionIds) {
+            for (UUID sessionId : sessionIds) {
+                if (sessions.containsKey(sessionId)) {
+                    rows.add(sessions.get(sessionId));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private String report() {
+        StringBuilder report = new StringBuilder();
+        for (QueryTrace trace : traces) {
+            report.append(System.getProperty("line.separator")).append(trace);
+        }
+        return report.toString();
+    }
+
+    private static class Hook implements PreExecutionHook, PostPreparationHook {
+
+        @Override
+        public void processStatement(CQLStatement statement, PreparationContext context) {
+            addTracingSession();
+        }
+
+        @Override
+        public CQLStatement processStatement(CQLStatement statement, ExecutionContext context) {
+            addTracingSession();
+            return statement;
+        }
+
+        @Override
+        public BatchStatement processBatch(BatchStatement batch, BatchExecutionContext context) {
+            addTracingSession();
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.cassandraunit.query;
+
+/**
+ * Kind of CQL request received by the embedded cassandra.
+ */
+public enum QueryType {
+    READ, WRITE, DELETE, TRUNCATE, SCHEMA, OTHER
+}
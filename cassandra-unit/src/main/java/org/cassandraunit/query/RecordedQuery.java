@@ -0,0 +1,69 @@
+package org.cassandraunit.query;
+
+/**
+ * A CQL request received by the embedded cassandra. Statements of a batch are recorded one by one.
+ */
+public class RecordedQuery {
+
+    private final String statement;
+    private final QueryType type;
+    private final String keyspace;
+    private final String table;
+    private final boolean allowFiltering;
+    private final boolean inBatch;
+
+    RecordedQuery(String statement, QueryType type, String keyspace, String table, boolean allowFiltering, boolean inBatch) {
+        this.statement = statement;
+        this.type = type;
+        this.keyspace = keyspace;
+        this.table = table;
+        this.allowFiltering = allowFiltering;
+        this.inBatch = inBatch;
+    }
+
+    /**
+     * @return the CQL query, as sent by the client, or a description of the statement when it was prepared before
+     * recording started
+     */
+    public String getStatement() {
+        return statement;
+    }
+
+    public QueryType getType() {
+        return type;
+    }
+
+    public String getKeyspace() {
+        return keyspace;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public boolean isAllowFiltering() {
+        return allowFiltering;
+    }
+
+    public boolean isInBatch() {
+        return inBatch;
+    }
+
+    /**
+     * @param table table name, optionally prefixed by its keyspace (keyspace.table)
+     */
+    public boolean isOn(String table) {
+        if (this.table == null) {
+            return false;
+        }
+        if (table.contains(".")) {
+            return table.equalsIgnoreCase(keyspace + "." + this.table);
+        }
+        return table.equalsIgnoreCase(this.table);
+    }
+
+    @Override
+    public String toString() {
+        return type + (table == null ? "" : " on " + keyspace + "." + table) + (inBatch ? " (in batch)" : "") + " : " + statement;
+    }
+}
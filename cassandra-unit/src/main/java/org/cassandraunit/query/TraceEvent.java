@@ -0,0 +1,46 @@
+package org.cassandraunit.query;
+
+/**
+ * A step of a traced request (system_traces.events), on the coordinator or on a replica.
+ */
+public class TraceEvent {
+
+    private final String activity;
+    private final String source;
+    private final int sourceElapsedInMicros;
+    private final String thread;
+
+    TraceEvent(String activity, String source, int sourceElapsedInMicros, String thread) {
+        this.activity = activity;
+        this.source = source;
+        this.sourceElapsedInMicros = sourceElapsedInMicros;
+        this.thread = thread;
+    }
+
+    public String getActivity() {
+        return activity;
+    }
+
+    /**
+     * @return address of the node where the step happened
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return time elapsed on the source node since it started working on the request
+     */
+    public int getSourceElapsedInMicros() {
+        return sourceElapsedInMicros;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    @Override
+    public String toString() {
+        return source + " +" + sourceElapsedInMicros + " us [" + thread + "] " + activity;
+    }
+}
@@ -0,0 +1,146 @@
+package org.cassandraunit.utils;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Driver clusters shared by everything connecting to the same contact points and port (CassandraCQLUnit, test
+ * listeners, command line loader...), instead of one Cluster, with its own event loop, connection pools and metadata
+ * refresh, per connection.
+ * Each acquire() gets a session of its own on the shared cluster, as the keyspace a session is logged into by USE
+ * statements is a state of the session. acquire() and release() go together : release() closes the session, and the
+ * cluster is reference counted by its open sessions. A cluster no longer used is kept open for the next acquire,
+ * until closeUnused() is called or the JVM exits.
+ * <blockquote><pre>
+ * Session session = CQLSessionRegistry.acquire("localhost", 9142);
+ * try {
+ *     ...
+ * } finally {
+ *     CQLSessionRegistry.release(session);
+ * }
+ * </pre></blockquote>
+ * The cluster of an acquired session is shared and must not be closed by its users.
+ */
+public final class CQLSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CQLSessionRegistry.class);
+
+    private static final Map<String, SharedCluster> clusters = new HashMap<String, SharedCluster>();
+    private static boolean shutdownHookRegistered = false;
+
+    private CQLSessionRegistry() {
+    }
+
+    public static Session acquire(String host, int port) {
+        return acquire(new String[]{host}, port);
+    }
+
+    public static synchronized Session acquire(String[] contactPoints, int port) {
+        String key = key(contactPoints, port);
+        SharedCluster sharedCluster = clusters.get(key);
+        if (sharedCluster != null && sharedCluster.cluster.isClosed()) {
+            log.debug("evicting closed connection to " + key);
+            clusters.remove(key);
+            sharedCluster = null;
+        }
+        if (sharedCluster == null) {
+            log.debug("connecting to " + key);
+            sharedCluster = new SharedCluster(new Cluster.Builder().addContactPoints(contactPoints).withPort(port).build());
+            clusters.put(key, sharedCluster);
+            registerShutdownHook();
+        }
+        Session session;
+        try {
+            session = sharedCluster.cluster.connect();
+        } catch (RuntimeException e) {
+            if (sharedCluster.sessions.isEmpty()) {
+                clusters.remove(key);
+                sharedCluster.cluster.close();
+            }
+            throw e;
+        }
+        sharedCluster.sessions.add(session);
+        return session;
+    }
+
+    public static synchronized void release(Session session) {
+        for (SharedCluster sharedCluster : clusters.values()) {
+            if (sharedCluster.sessions.remove(session)) {
+                session.close();
+                return;
+            }
+            if (sharedCluster.cluster == session.getCluster()) {
+                throw new IllegalStateException("Session released more times than acquired");
+            }
+        }
+        throw new IllegalArgumentException("Session was not acquired from the registry");
+    }
+
+    public static synchronized int getReferenceCount(String host, int port) {
+        SharedCluster sharedCluster = clusters.get(key(new String[]{host}, port));
+        return sharedCluster == null ? 0 : sharedCluster.sessions.size();
+    }
+
+    /**
+     * close clusters which no session acquired by anyone uses
+     */
+    public static synchronized void closeUnused() {
+        Iterator<Map.Entry<String, SharedCluster>> iterator = clusters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, SharedCluster> entry = iterator.next();
+            if (entry.getValue().sessions.isEmpty()) {
+                close(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+    }
+
+    public static synchronized void closeAll() {
+        for (Map.Entry<String, SharedCluster> entry : clusters.entrySet()) {
+            close(entry.getKey(), entry.getValue());
+        }
+        clusters.clear();
+    }
+
+    private static void close(String key, SharedCluster sharedCluster) {
+        log.debug("closing connection to " + key);
+        sharedCluster.cluster.close();
+    }
+
+    private static String key(String[] contactPoints, int port) {
+        String[] sortedContactPoints = contactPoints.clone();
+        Arrays.sort(sortedContactPoints);
+        return Arrays.toString(sortedContactPoints) + ":" + port;
+    }
+
+    private static void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread("cassandra-unit-sessions-shutdown") {
+                @Override
+                public void run() {
+                    closeAll();
+                }
+            });
+            shutdownHookRegistered = true;
+        }
+    }
+
+    private static class SharedCluster {
+        private final Cluster cluster;
+        /* sessions acquired and not released yet */
+        private final List<Session> sessions = new ArrayList<Session>();
+
+        private SharedCluster(Cluster cluster) {
+            this.cluster = cluster;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package org.cassandraunit.utils;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Host;
+import org.apache.cassandra.dht.ByteOrderedPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.RandomPartitioner;
+import org.apache.cassandra.io.util.FileUtils;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local cassandra cluster of N nodes, each one in its own forked JVM and bound to its own loopback address
+ * (127.0.0.1, 127.0.0.2...), as cassandra can only run one node per JVM. Configurations are generated from a yaml of
+ * the classpath, with the first node as seed and tokens evenly spaced by the partitioner of the configuration
+ * (Murmur3Partitioner, RandomPartitioner or ByteOrderedPartitioner, other ones are rejected). On Mac OS, the loopback aliases must exist
+ * (sudo ifconfig lo0 alias 127.0.0.2 up).
+ * <blockquote><pre>
+ * CassandraClusterLauncher launcher = new CassandraClusterLauncher(3);
+ * launcher.start();
+ * ...
+ * launcher.stopNode(2);
+ * </pre></blockquote>
+ */
+public class CassandraClusterLauncher {
+
+    private static final Logger log = LoggerFactory.getLogger(CassandraClusterLauncher.class);
+
+    public static final String DEFAULT_BASE_DIR = "target/cassandraCluster";
+    public static final String DEFAULT_ADDRESS_PREFIX = "127.0.0.";
+    /* ports differ from the embedded cassandra ones, so that both can run side by side on 127.0.0.1 */
+    public static final int DEFAULT_STORAGE_PORT = 7020;
+    public static final int DEFAULT_NATIVE_TRANSPORT_PORT = 9152;
+    public static final int DEFAULT_RPC_PORT = 9181;
+    private static final String DEFAULT_MAX_HEAP = "256m";
+    private static final long DEFAULT_START_TIMEOUT_IN_MILLIS = TimeUnit.MINUTES.toMillis(2);
+    private static final String CASSANDRA_DAEMON_CLASS = "org.apache.cassandra.service.CassandraDaemon";
+    private static final BigInteger MURMUR3_TOKEN_RANGE = BigInteger.valueOf(2).pow(64);
+    private static final BigInteger MURMUR3_MIN_TOKEN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger RANDOM_TOKEN_RANGE = BigInteger.valueOf(2).pow(127);
+    /* byte ordered tokens are spaced over their first two bytes */
+    private static final int BYTE_ORDERED_TOKEN_RANGE = 1 << 16;
+    private static final String PARTITIONER_PACKAGE = "org.apache.cassandra.dht.";
+
+    private final int nodeCount;
+    private final String yamlFile;
+    private String baseDir = DEFAULT_BASE_DIR;
+    private String addressPrefix = DEFAULT_ADDRESS_PREFIX;
+    private String maxHeap = DEFAULT_MAX_HEAP;
+    private long startTimeoutInMillis = DEFAULT_START_TIMEOUT_IN_MILLIS;
+    private final List<String> jvmArguments = new ArrayList<String>();
+    private final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+    private final Map<Integer, Process> processes = new HashMap<Integer, Process>();
+    private Thread shutdownHook;
+
+    public CassandraClusterLauncher(int nodeCount) {
+        this(nodeCount, EmbeddedCassandraServerHelper.DEFAULT_CASSANDRA_YML_FILE);
+    }
+
+    public CassandraClusterLauncher(int nodeCount, String yamlFile) {
+        if (nodeCount <= 0) {
+            throw new IllegalArgumentException("A cluster needs at least one node");
+        }
+        this.nodeCount = nodeCount;
+        this.yamlFile = yamlFile;
+        properties.put("storage_port", DEFAULT_STORAGE_PORT);
+        properties.put("ssl_storage_port", DEFAULT_STORAGE_PORT + 1);
+        properties.put("native_transport_port", DEFAULT_NATIVE_TRANSPORT_PORT);
+        properties.put("rpc_port", DEFAULT_RPC_PORT);
+    }
+
+    public CassandraClusterLauncher withBaseDir(String baseDir) {
+        this.baseDir = baseDir;
+        return this;
+    }
+
+    /**
+     * @param addressPrefix nodes are bound to addressPrefix + 1, addressPrefix + 2...
+     */
+    public CassandraClusterLauncher withAddressPrefix(String addressPrefix) {
+        this.addressPrefix = addressPrefix;
+        return this;
+    }
+
+    /**
+     * @param maxHeap heap of each node, as given to -Xmx
+     */
+    public CassandraClusterLauncher withMaxHeap(String maxHeap) {
+        this.maxHeap = maxHeap;
+        return this;
+    }
+
+    public CassandraClusterLauncher withStartTimeout(long timeout, TimeUnit unit) {
+        this.startTimeoutInMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    public CassandraClusterLauncher withJvmArguments(String... jvmArguments) {
+        this.jvmArguments.addAll(Arrays.asList(jvmArguments));
+        return this;
+    }
+
+    /**
+     * Override a configuration property of every node
+     */
+    public CassandraClusterLauncher with(String property, Object value) {
+        properties.put(property, value);
+        return this;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param node from 1 to the node count
+     */
+    public String getAddress(int node) {
+        return addressPrefix + node;
+    }
+
+    public String[] getContactPoints() {
+        String[] contactPoints = new String[nodeCount];
+        for (int node = 1; node <= nodeCount; node++) {
+            contactPoints[node - 1] = getAddress(node);
+        }
+        return contactPoints;
+    }
+
+    public int getNativeTransportPort() {
+        return ((Number) properties.get("native_transport_port")).intValue();
+    }
+
+    public synchronized boolean isStarted() {
+        return !processes.isEmpty();
+    }
+
+    /**
+     * Start every node from empty data directories, and wait until each of them sees the whole cluster up.
+     */
+    public synchronized void start() throws IOException, InterruptedException {
+        if (isStarted()) {
+            return;
+        }
+        if (new File(baseDir).exists()) {
+            FileUtils.deleteRecursive(new File(baseDir));
+        }
+        for (int node = 1; node <= nodeCount; node++) {
+            startNode(node);
+        }
+        waitForClusterUp();
+        if (shutdownHook == null) {
+            shutdownHook = new Thread("cassandra-cluster-shutdown") {
+                @Override
+                public void run() {
+                    CassandraClusterLauncher.this.stop();
+                }
+            };
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    /**
+     * Start a node, stopped or never started, keeping its data if any.
+     */
+    public synchronized void startNode(int node) throws IOException, InterruptedException {
+        if (processes.containsKey(node)) {
+            return;
+        }
+        File nodeDir = new File(baseDir, "node" + node);
+        File yaml = writeConfiguration(node, nodeDir);
+        File log4jConfiguration = new File(nodeDir, "log4j-server.properties");
+        writeLog4jConfiguration(log4jConfiguration, new File(nodeDir, "system.log"));
+
+        List<String> command = new ArrayList<String>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Xmx" + maxHeap);
+        command.add("-Dcassandra.config=file:" + yaml.getAbsolutePath());
+        command.add("-Dcassandra-foreground=true");
+        command.add("-Dcassandra.ring_delay_ms=1000");
+        command.add("-Dlog4j.configuration=file:" + log4jConfiguration.getAbsolutePath());
+        command.addAll(getInheritedJvmArguments());
+        command.addAll(jvmArguments);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(CASSANDRA_DAEMON_CLASS);
+
+        log.debug("Starting cassandra node " + node + " on " + getAddress(node));
+        ProcessBuilder processBuilder = new ProcessBuilder(command).directory(nodeDir).redirectErrorStream(true);
+        Process process = processBuilder.start();
+        pipe(process.getInputStream(), new File(nodeDir, "output.log"));
+        processes.put(node, process);
+        waitForNativeTransport(node);
+    }
+
+    /**
+     * Kill a node, its data is kept so that it can be started again.
+     */
+    public synchronized void stopNode(int node) throws InterruptedException {
+        Process process = processes.remove(node);
+        if (process != null) {
+            log.debug("Stopping cassandra node " + node);
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    public synchronized void stop() {
+        for (Integer node : new ArrayList<Integer>(processes.keySet())) {
+            try {
+                stopNode(node);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private File writeConfiguration(int node, File nodeDir) throws IOException {
+        Map<String, Object> seedParameters = new HashMap<String, Object>();
+        seedParameters.put("seeds", getAddress(1));
+        Map<String, Object> seedProvider = new LinkedHashMap<String, Object>();
+        seedProvider.put("class_name", "org.apache.cassandra.locator.SimpleSeedProvider");
+        seedProvider.put("parameters", Collections.singletonList(seedParameters));
+
+        EmbeddedCassandraConfigurationBuilder configuration = new EmbeddedCassandraConfigurationBuilder(yamlFile)
+                .withStorageDirectory(new File(nodeDir, "storage").getAbsolutePath())
+                .with("listen_address", getAddress(node))
+                .with("rpc_address", getAddress(node))
+                .with("seed_provider", Collections.singletonList(seedProvider))
+                .with("num_tokens", 1)
+                /* a brand new cluster, nothing to stream */
+                .with("auto_bootstrap", false);
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            configuration.with(property.getKey(), property.getValue());
+        }
+        if (!properties.containsKey("initial_token")) {
+            configuration.with("initial_token", getToken(node, (String) configuration.build().get("partitioner")));
+        }
+        return configuration.writeTo(nodeDir.getPath());
+    }
+
+    /**
+     * @return token of the node, evenly spaced with the other ones in the token range of the partitioner
+     */
+    String getToken(int node, String partitioner) {
+        String partitionerClass = partitioner == null || partitioner.contains(".") ? partitioner
+                : PARTITIONER_PACKAGE + partitioner;
+        BigInteger position = BigInteger.valueOf(node - 1);
+        BigInteger count = BigInteger.valueOf(nodeCount);
+        if (Murmur3Partitioner.class.getName().equals(partitionerClass)) {
+            return MURMUR3_TOKEN_RANGE.multiply(position).divide(count).add(MURMUR3_MIN_TOKEN).toString();
+        }
+        if (RandomPartitioner.class.getName().equals(partitionerClass)) {
+            return RANDOM_TOKEN_RANGE.multiply(position).divide(count).toString();
+        }
+        if (ByteOrderedPartitioner.class.getName().equals(partitionerClass)) {
+            return String.format("%04x", BigInteger.valueOf(BYTE_ORDERED_TOKEN_RANGE).multiply(position).divide(count));
+        }
+        throw new CassandraUnitException("Tokens of " + partitioner + " can't be spaced evenly, use Murmur3Partitioner,"
+                + " RandomPartitioner or ByteOrderedPartitioner");
+    }
+
+    private void writeLog4jConfiguration(File file, File logFile) throws IOException {
+        file.getParentFile().mkdirs();
+        String configuration = "log4j.rootLogger=INFO,R\n"
+                + "log4j.appender.R=org.apache.log4j.FileAppender\n"
+                + "log4j.appender.R.File=" + logFile.getAbsolutePath() + "\n"
+                + "log4j.appender.R.layout=org.apache.log4j.PatternLayout\n"
+                + "log4j.appender.R.layout.ConversionPattern=%5p [%t] %d{ISO8601} %F (line %L) %m%n\n";
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(configuration);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * @return module flags given to this JVM, needed for cassandra to run on recent JVMs as well
+     */
+    private List<String> getInheritedJvmArguments() {
+        List<String> inheritedJvmArguments = new ArrayList<String>();
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("--add-opens") || argument.startsWith("--add-exports")) {
+                inheritedJvmArguments.add(argument);
+            }
+        }
+        return inheritedJvmArguments;
+    }
+
+    private void pipe(final InputStream in, final File file) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+        Thread thread = new Thread("cassandra-cluster-output-" + file.getParentFile().getName()) {
+            @Override
+            public void run() {
+                try {
+                    byte[] buffer = new byte[4096];
+                    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                        out.write(buffer, 0, read);
+                    }
+                } catch (IOException e) {
+                    /* the node is gone */
+                } finally {
+                    FileUtils.closeQuietly(out);
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void waitForNativeTransport(int node) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + startTimeoutInMillis;
+        while (true) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(getAddress(node), getNativeTransportPort()), 1000);
+                return;
+            } catch (IOException e) {
+                checkNodeAlive(node);
+                if (System.currentTimeMillis() > deadline) {
+                    throw new CassandraUnitException("Cassandra node " + node + " not started after "
+                            + startTimeoutInMillis + " ms, see " + new File(baseDir, "node" + node));
+                }
+                Thread.sleep(200);
+            } finally {
+                FileUtils.closeQuietly(socket);
+            }
+        }
+    }
+
+    private void checkNodeAlive(int node) {
+        try {
+            int exitValue = processes.get(node).exitValue();
+            processes.remove(node);
+            throw new CassandraUnitException("Cassandra node " + node + " exited with " + exitValue + ", see "
+                    + new File(baseDir, "node" + node));
+        } catch (IllegalThreadStateException e) {
+            /* still running */
+        }
+    }
+
+    private void waitForClusterUp() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + startTimeoutInMillis;
+        Cluster cluster = new Cluster.Builder().addContactPoints(getContactPoints()).withPort(getNativeTransportPort()).build();
+        try {
+            while (true) {
+                int upHosts = 0;
+                for (Host host : cluster.getMetadata().getAllHosts()) {
+                    if (host.isUp()) {
+                        upHosts++;
+                    }
+                }
+                if (upHosts == nodeCount) {
+                    return;
+                }
+                if (System.currentTimeMillis() > deadline) {
+                    throw new CassandraUnitException("Only " + upHosts + " cassandra nodes up of " + nodeCount
+                            + " after " + startTimeoutInMillis + " ms");
+                }
+                Thread.sleep(200);
+            }
+        } finally {
+            cluster.close();
+        }
+    }
+}
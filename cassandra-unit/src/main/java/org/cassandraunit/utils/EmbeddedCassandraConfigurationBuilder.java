@@ -0,0 +1,193 @@
+package org.cassandraunit.utils;
+
+import org.apache.commons.lang.StringUtils;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the yaml configuration of the embedded cassandra from a configuration file of the classpath.
+ * <p/>
+ * When a preset is chosen, memtable space, key cache, concurrent reads/writes, compaction and flush settings are
+ * sized from the heap and the processors available to the JVM, so that the embedded node fits alongside the code
+ * under test.
+ * <blockquote><pre>
+ * EmbeddedCassandraServerHelper.startEmbeddedCassandra(new EmbeddedCassandraConfigurationBuilder()
+ *         .withPreset(EmbeddedCassandraConfigurationBuilder.Preset.LOW_MEMORY_CI));
+ * </pre></blockquote>
+ */
+public class EmbeddedCassandraConfigurationBuilder {
+
+    public enum Preset {
+        /* smallest footprint : small memtables and caches, few threads, heap allocated memtables */
+        LOW_MEMORY_CI,
+        /* fastest loads : big memtables, many threads and unthrottled compaction */
+        THROUGHPUT,
+        /* close to the defaults cassandra computes for a production node */
+        LATENCY_REALISTIC
+    }
+
+    private static final long ONE_MB = 1024 * 1024;
+    private static final long MAX_KEY_CACHE_SIZE_IN_MB = 100;
+    private static final String HEAP_ALLOCATOR = "org.apache.cassandra.utils.HeapAllocator";
+
+    private final String yamlFile;
+    private Preset preset = null;
+    private long maxHeapInBytes = Runtime.getRuntime().maxMemory();
+    private int availableProcessors = Runtime.getRuntime().availableProcessors();
+    private final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+
+    public EmbeddedCassandraConfigurationBuilder() {
+        this(EmbeddedCassandraServerHelper.DEFAULT_CASSANDRA_YML_FILE);
+    }
+
+    public EmbeddedCassandraConfigurationBuilder(String yamlFile) {
+        if (!StringUtils.startsWith(yamlFile, "/")) {
+            yamlFile = "/" + yamlFile;
+        }
+        this.yamlFile = yamlFile;
+    }
+
+    public EmbeddedCassandraConfigurationBuilder withPreset(Preset preset) {
+        this.preset = preset;
+        return this;
+    }
+
+    public EmbeddedCassandraConfigurationBuilder withMaxHeap(long maxHeapInBytes) {
+        if (maxHeapInBytes <= 0) {
+            throw new IllegalArgumentException("Max heap must be greater than 0");
+        }
+        this.maxHeapInBytes = maxHeapInBytes;
+        return this;
+    }
+
+    public EmbeddedCassandraConfigurationBuilder withAvailableProcessors(int availableProcessors) {
+        if (availableProcessors <= 0) {
+            throw new IllegalArgumentException("Available processors must be greater than 0");
+        }
+        this.availableProcessors = availableProcessors;
+        return this;
+    }
+
+    /**
+     * Put data, commitlog and saved caches directories into storageDir.
+     */
+    public EmbeddedCassandraConfigurationBuilder withStorageDirectory(String storageDir) {
+        properties.put("data_file_directories", Arrays.asList(storageDir + "/data"));
+        properties.put("commitlog_directory", storageDir + "/commitlog");
+        properties.put("saved_caches_directory", storageDir + "/saved_caches");
+        return this;
+    }
+
+    /**
+     * Set any cassandra.yaml property, it takes precedence over the values computed from the preset.
+     */
+    public EmbeddedCassandraConfigurationBuilder with(String property, Object value) {
+        properties.put(property, value);
+        return this;
+    }
+
+    public String getFileName() {
+        return yamlFile.substring(yamlFile.lastIndexOf("/") + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> build() {
+        InputStream is = EmbeddedCassandraConfigurationBuilder.class.getResourceAsStream(yamlFile);
+        if (is == null) {
+            throw new CassandraUnitException("Configuration file " + yamlFile + " not found in classpath");
+        }
+
+        Map<String, Object> configuration;
+        try {
+            configuration = (Map<String, Object>) new Yaml().load(is);
+        } finally {
+            closeQuietly(is);
+        }
+
+        if (preset != null) {
+            configuration.putAll(computePresetProperties());
+        }
+        configuration.putAll(properties);
+        return configuration;
+    }
+
+    /**
+     * Write the configuration into directory.
+     *
+     * @return the yaml file written
+     */
+    public File writeTo(String directory) throws IOException {
+        DumperOptions dumperOptions = new DumperOptions();
+        dumperOptions.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+
+        new File(directory).mkdirs();
+        File file = new File(directory, getFileName());
+        Writer writer = new FileWriter(file);
+        try {
+            new Yaml(dumperOptions).dump(build(), writer);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private Map<String, Object> computePresetProperties() {
+        long heapInMb = Math.max(1, maxHeapInBytes / ONE_MB);
+        Map<String, Object> presetProperties = new LinkedHashMap<String, Object>();
+        switch (preset) {
+            case LOW_MEMORY_CI:
+                presetProperties.put("memtable_total_space_in_mb", Math.max(8, heapInMb / 16));
+                /* slab allocator reserves 1MB regions per memtable, far too much for many small tables */
+                presetProperties.put("memtable_allocator", HEAP_ALLOCATOR);
+                presetProperties.put("memtable_flush_writers", 1);
+                presetProperties.put("key_cache_size_in_mb", heapInMb / 64);
+                presetProperties.put("row_cache_size_in_mb", 0);
+                presetProperties.put("file_cache_size_in_mb", Math.max(8, heapInMb / 32));
+                presetProperties.put("concurrent_reads", 4);
+                presetProperties.put("concurrent_writes", Math.max(2, availableProcessors));
+                presetProperties.put("concurrent_compactors", 1);
+                presetProperties.put("in_memory_compaction_limit_in_mb", Math.max(4, heapInMb / 64));
+                presetProperties.put("compaction_throughput_mb_per_sec", 0);
+                break;
+            case THROUGHPUT:
+                presetProperties.put("memtable_total_space_in_mb", Math.max(16, heapInMb / 4));
+                presetProperties.put("memtable_flush_writers", Math.max(1, availableProcessors / 2));
+                presetProperties.put("key_cache_size_in_mb", Math.min(MAX_KEY_CACHE_SIZE_IN_MB, heapInMb / 20));
+                presetProperties.put("concurrent_reads", 8 * availableProcessors);
+                presetProperties.put("concurrent_writes", 8 * availableProcessors);
+                presetProperties.put("concurrent_compactors", availableProcessors);
+                presetProperties.put("compaction_throughput_mb_per_sec", 0);
+                break;
+            case LATENCY_REALISTIC:
+                presetProperties.put("memtable_total_space_in_mb", Math.max(16, heapInMb / 4));
+                presetProperties.put("memtable_flush_writers", 1);
+                presetProperties.put("key_cache_size_in_mb", Math.min(MAX_KEY_CACHE_SIZE_IN_MB, heapInMb / 20));
+                presetProperties.put("concurrent_reads", 32);
+                presetProperties.put("concurrent_writes", 8 * availableProcessors);
+                presetProperties.put("concurrent_compactors", availableProcessors);
+                presetProperties.put("compaction_throughput_mb_per_sec", 16);
+                break;
+            default:
+                break;
+        }
+        return presetProperties;
+    }
+
+    private static void closeQuietly(InputStream is) {
+        try {
+            is.close();
+        } catch (IOException e) {
+            /* nothing to do */
+        }
+    }
+}
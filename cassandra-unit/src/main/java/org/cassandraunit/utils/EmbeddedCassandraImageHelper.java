@@ -0,0 +1,217 @@
+package org.cassandraunit.utils;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Directories;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.commons.lang.StringUtils;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Node images : archives of the data directories of an embedded cassandra (system keyspaces included) taken after
+ * schema creation and dataset load, so that a later start can boot from them instead of bootstrapping a fresh node.
+ * Images are kept in the build directory by default, and cleaned with it. Passing USER_IMAGES_DIR as images directory
+ * shares them between builds and projects of the same user instead.
+ *
+ * @see EmbeddedCassandraServerHelper#startEmbeddedCassandraFromImage(String, String)
+ */
+public class EmbeddedCassandraImageHelper {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddedCassandraImageHelper.class);
+
+    public static final String DEFAULT_IMAGES_DIR = "target/cassandraImages";
+    public static final String USER_IMAGES_DIR = System.getProperty("user.home") + "/.cassandra-unit/images";
+    public static final String IMAGE_FILE_EXTENSION = ".zip";
+    private static final String IMAGE_SNAPSHOT_NAME = "cassandra-unit-image";
+    private static final String DATA_ENTRY_PREFIX = "data/";
+
+    /**
+     * Compute an image key from the content of the configuration file and of the datasets (classpath resources),
+     * and from the cassandra version as it defines the sstables format.
+     */
+    public static String computeImageKey(String yamlFile, String... dataSetLocations) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(FBUtilities.getReleaseVersionString().getBytes("UTF-8"));
+            updateDigest(digest, yamlFile);
+            for (String dataSetLocation : dataSetLocations) {
+                updateDigest(digest, dataSetLocation);
+            }
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new CassandraUnitException("Unable to compute image key", e);
+        } catch (IOException e) {
+            throw new CassandraUnitException("Unable to compute image key", e);
+        }
+    }
+
+    public static File getImageFile(String imagesDir, String imageKey) {
+        return new File(imagesDir, imageKey + IMAGE_FILE_EXTENSION);
+    }
+
+    /**
+     * Archive the data directories of the running embedded cassandra. A snapshot is taken first, so that the
+     * archive is consistent even if flushes or compactions happen meanwhile.
+     */
+    static void saveImage(File imageFile) throws IOException {
+        log.debug("Saving embedded cassandra image into " + imageFile);
+        for (Keyspace keyspace : Keyspace.all()) {
+            keyspace.snapshot(IMAGE_SNAPSHOT_NAME, null);
+        }
+
+        File parent = imageFile.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        /* written aside then renamed, so that concurrent builds never read a partial image */
+        File tmpImageFile = File.createTempFile(imageFile.getName(), ".tmp", parent);
+        ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(tmpImageFile));
+        try {
+            String[] dataFileLocations = DatabaseDescriptor.getAllDataFileLocations();
+            for (int i = 0; i < dataFileLocations.length; i++) {
+                addSnapshotToImage(zip, new File(dataFileLocations[i]), DATA_ENTRY_PREFIX + i + "/");
+            }
+        } finally {
+            zip.close();
+            for (Keyspace keyspace : Keyspace.all()) {
+                keyspace.clearSnapshot(IMAGE_SNAPSHOT_NAME);
+            }
+        }
+
+        if (!tmpImageFile.renameTo(imageFile)) {
+            tmpImageFile.delete();
+            if (!imageFile.exists()) {
+                throw new IOException("Unable to write image " + imageFile);
+            }
+        }
+    }
+
+    /**
+     * Unpack an image into the (empty) data directories, before the embedded cassandra is activated.
+     */
+    static void restoreImage(File imageFile) throws IOException {
+        restoreImage(imageFile, DatabaseDescriptor.getAllDataFileLocations());
+    }
+
+    /**
+     * Unpack an image into dataFileLocations, rejecting any entry which would be written outside of them.
+     */
+    static void restoreImage(File imageFile, String[] dataFileLocations) throws IOException {
+        log.debug("Restoring embedded cassandra image from " + imageFile);
+        ZipInputStream zip = new ZipInputStream(new FileInputStream(imageFile));
+        try {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                File file = getRestoredFile(imageFile, entry, dataFileLocations);
+                file.getParentFile().mkdirs();
+                OutputStream out = new FileOutputStream(file);
+                try {
+                    copy(zip, out);
+                } finally {
+                    out.close();
+                }
+            }
+        } finally {
+            zip.close();
+        }
+    }
+
+    /**
+     * entries are named data/index of the data directory/path in that directory
+     */
+    private static File getRestoredFile(File imageFile, ZipEntry entry, String[] dataFileLocations) throws IOException {
+        String path = StringUtils.removeStart(entry.getName(), DATA_ENTRY_PREFIX);
+        String location = StringUtils.substringBefore(path, "/");
+        if (path.equals(entry.getName()) || StringUtils.isEmpty(location) || !StringUtils.isNumeric(location)) {
+            throw new IOException("Image " + imageFile + " holds an unexpected entry " + entry.getName());
+        }
+        int index = Integer.parseInt(location);
+        if (index >= dataFileLocations.length) {
+            throw new IOException("Image " + imageFile + " doesn't match the data directories of the configuration");
+        }
+        File root = new File(dataFileLocations[index]).getCanonicalFile();
+        File file = new File(root, StringUtils.substringAfter(path, "/")).getCanonicalFile();
+        if (!file.getPath().startsWith(root.getPath() + File.separator)) {
+            throw new IOException("Image " + imageFile + " holds an entry outside of the data directories " + entry.getName());
+        }
+        return file;
+    }
+
+    /**
+     * data directories are laid out as keyspace/table/snapshots/name/files, they are archived as keyspace/table/files
+     */
+    private static void addSnapshotToImage(ZipOutputStream zip, File dataFileLocation, String entryPrefix) throws IOException {
+        File[] keyspaceDirectories = dataFileLocation.listFiles();
+        if (keyspaceDirectories == null) {
+            return;
+        }
+        for (File keyspaceDirectory : keyspaceDirectories) {
+            File[] tableDirectories = keyspaceDirectory.listFiles();
+            if (tableDirectories == null) {
+                continue;
+            }
+            for (File tableDirectory : tableDirectories) {
+                File snapshotDirectory = new File(tableDirectory, Directories.SNAPSHOT_SUBDIR + "/" + IMAGE_SNAPSHOT_NAME);
+                File[] files = snapshotDirectory.listFiles();
+                if (files == null) {
+                    continue;
+                }
+                for (File file : files) {
+                    zip.putNextEntry(new ZipEntry(entryPrefix + keyspaceDirectory.getName() + "/"
+                            + tableDirectory.getName() + "/" + file.getName()));
+                    InputStream in = new FileInputStream(file);
+                    try {
+                        copy(in, zip);
+                    } finally {
+                        in.close();
+                    }
+                    zip.closeEntry();
+                }
+            }
+        }
+    }
+
+    private static void updateDigest(MessageDigest digest, String resource) throws IOException {
+        if (!StringUtils.startsWith(resource, "/")) {
+            resource = "/" + resource;
+        }
+        InputStream in = EmbeddedCassandraImageHelper.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new CassandraUnitException(resource + " not found in classpath");
+        }
+        try {
+            digest.update(resource.getBytes("UTF-8"));
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                digest.update(buf, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte buf[] = new byte[8192];
+        int len;
+        while ((len = in.read(buf)) > 0) {
+            out.write(buf, 0, len);
+        }
+    }
+}
@@ -1,24 +1,62 @@
 package org.cassandraunit.utils;
 
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
 import me.prettyprint.cassandra.service.CassandraHostConfigurator;
 import me.prettyprint.hector.api.Cluster;
 import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
 import me.prettyprint.hector.api.factory.HFactory;
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.config.KSMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.commitlog.CommitLog;
 import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.sstable.Component;
+import org.apache.cassandra.io.sstable.Descriptor;
+import org.apache.cassandra.io.sstable.SSTable;
+import org.apache.cassandra.io.sstable.SSTableReader;
 import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.service.CassandraDaemon;
+import org.apache.cassandra.service.MigrationManager;
+import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.thrift.ThriftServer;
+import org.apache.cassandra.transport.Server;
+import org.apache.cassandra.utils.FBUtilities;
 import org.apache.commons.lang.StringUtils;
 import org.apache.thrift.transport.TTransportException;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.query.Fault;
+import org.cassandraunit.query.FaultInjector;
+import org.cassandraunit.query.QueryRecorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -32,13 +70,22 @@ public class EmbeddedCassandraServerHelper {
     public static final String DEFAULT_TMP_DIR = "target/embeddedCassandra";
     public static final String DEFAULT_CASSANDRA_YML_FILE = "cu-cassandra.yaml";
     public static final String DEFAULT_LOG4J_CONFIG_FILE = "/log4j-embedded-cassandra.properties";
+    public static final String DEFAULT_RAM_DIR = "/dev/shm";
+    private static final int DEFAULT_WARMUP_ITERATIONS = 1000;
+    private static final int IN_MEMORY_COMMITLOG_SEGMENT_SIZE_IN_MB = 8;
     private static final String INTERNAL_CASSANDRA_KEYSPACE = "system";
     private static final String INTERNAL_CASSANDRA_AUTH_KEYSPACE = "system_auth";
     private static final String INTERNAL_CASSANDRA_TRACES_KEYSPACE = "system_traces";
 
-    private static CassandraDaemon cassandraDaemon = null;
+    private static volatile CassandraDaemon cassandraDaemon = null;
     static ExecutorService executor;
     private static String launchedYamlFile;
+    private static volatile boolean stopped = false;
+    private static volatile boolean inMemory = false;
+    /* write count of each table (by id, so that a recreated table is not mistaken for the old one) at the last clean */
+    private static final Map<UUID, Long> writeCountsAtLastClean = new ConcurrentHashMap<UUID, Long>();
+    private static Session cleaningSession = null;
+    private static Future<Integer> warmup = null;
 
     public static void startEmbeddedCassandra() throws TTransportException, IOException, InterruptedException,
             ConfigurationException {
@@ -49,22 +96,99 @@ public class EmbeddedCassandraServerHelper {
         startEmbeddedCassandra(yamlFile, DEFAULT_TMP_DIR);
     }
 
-    public static void startEmbeddedCassandra(String yamlFile, String tmpDir) throws TTransportException, IOException, ConfigurationException {
-        if (cassandraDaemon != null) {
-            /* nothing to do Cassandra is already started */
-            return;
-        }
-
+    public static synchronized void startEmbeddedCassandra(String yamlFile, String tmpDir) throws TTransportException, IOException, ConfigurationException {
         if (!StringUtils.startsWith(yamlFile, "/")) {
             yamlFile = "/" + yamlFile;
         }
 
+        if (cassandraDaemon != null) {
+            /* Cassandra is already started or only needs to be restarted */
+            File file = new File(tmpDir + yamlFile);
+            if (isRestartWithAnotherConfiguration(file)) {
+                copy(yamlFile, tmpDir);
+            }
+            restartIfStopped(file);
+            return;
+        }
+
         rmdir(tmpDir);
         copy(yamlFile, tmpDir);
         File file = new File(tmpDir + yamlFile);
         startEmbeddedCassandra(file, tmpDir);
     }
 
+    public static void startEmbeddedCassandra(EmbeddedCassandraConfigurationBuilder configurationBuilder) throws TTransportException, IOException, ConfigurationException {
+        startEmbeddedCassandra(configurationBuilder, DEFAULT_TMP_DIR);
+    }
+
+    /**
+     * Start an embedded cassandra with the configuration computed by configurationBuilder, written into tmpDir.
+     */
+    public static synchronized void startEmbeddedCassandra(EmbeddedCassandraConfigurationBuilder configurationBuilder, String tmpDir) throws TTransportException, IOException, ConfigurationException {
+        if (cassandraDaemon != null) {
+            /* Cassandra is already started or only needs to be restarted */
+            File file = new File(tmpDir, configurationBuilder.getFileName());
+            if (isRestartWithAnotherConfiguration(file)) {
+                configurationBuilder.writeTo(tmpDir);
+            }
+            restartIfStopped(file);
+            return;
+        }
+
+        rmdir(tmpDir);
+        File file = configurationBuilder.writeTo(tmpDir);
+        startEmbeddedCassandra(file, tmpDir);
+    }
+
+    public static void startEmbeddedCassandraInMemory() throws TTransportException, IOException, ConfigurationException {
+        startEmbeddedCassandraInMemory(DEFAULT_CASSANDRA_YML_FILE);
+    }
+
+    public static void startEmbeddedCassandraInMemory(String yamlFile) throws TTransportException, IOException, ConfigurationException {
+        startEmbeddedCassandraInMemory(yamlFile, DEFAULT_TMP_DIR, DEFAULT_RAM_DIR);
+    }
+
+    /**
+     * Start an embedded cassandra whose data, commitlog and saved caches directories are put on a RAM backed
+     * filesystem (ramDir, /dev/shm by default). When ramDir is not available, they are put into tmpDir on disk.
+     * Commitlog segments are kept small as they are preallocated in memory. As the storage is wiped at each start,
+     * the keyspaces created by the data loaders on such a node have no durable writes, their data never going through
+     * the commitlog.
+     *
+     * @param yamlFile configuration file in the classpath, its storage directories are overridden
+     * @param tmpDir   directory where the configuration file is copied
+     * @param ramDir   RAM backed filesystem
+     */
+    public static synchronized void startEmbeddedCassandraInMemory(String yamlFile, String tmpDir, String ramDir) throws TTransportException, IOException, ConfigurationException {
+        if (!StringUtils.startsWith(yamlFile, "/")) {
+            yamlFile = "/" + yamlFile;
+        }
+
+        if (cassandraDaemon != null) {
+            /* Cassandra is already started or only needs to be restarted */
+            restartIfStopped(new File(tmpDir + yamlFile));
+            return;
+        }
+
+        String storageDir = getInMemoryStorageDir(tmpDir, ramDir);
+        rmdir(storageDir);
+        startEmbeddedCassandra(new EmbeddedCassandraConfigurationBuilder(yamlFile)
+                .withStorageDirectory(storageDir)
+                .with("commitlog_segment_size_in_mb", IN_MEMORY_COMMITLOG_SEGMENT_SIZE_IN_MB), tmpDir);
+        inMemory = true;
+    }
+
+    private static String getInMemoryStorageDir(String tmpDir, String ramDir) {
+        File ramDirFile = new File(ramDir);
+        if (!ramDirFile.isDirectory() || !ramDirFile.canWrite()) {
+            log.info("RAM backed filesystem " + ramDir + " is not available, storage directories stay in " + tmpDir);
+            return tmpDir;
+        }
+        /* one directory per project, so that builds running side by side don't share their storage */
+        String projectId = Integer.toHexString(new File(tmpDir).getAbsolutePath().hashCode());
+        return new File(ramDirFile, "cassandra-unit-" + projectId).getAbsolutePath();
+    }
+
     /**
      * Set embedded cassandra up and spawn it in a new thread.
      *
@@ -72,13 +196,69 @@ public class EmbeddedCassandraServerHelper {
      * @throws IOException
      * @throws InterruptedException
      */
-    public static void startEmbeddedCassandra(File file, String tmpDir) throws TTransportException, IOException, ConfigurationException {
+    public static synchronized void startEmbeddedCassandra(File file, String tmpDir) throws TTransportException, IOException, ConfigurationException {
         if (cassandraDaemon != null) {
-            /* nothing to do Cassandra is already started */
+            /* Cassandra is already started or only needs to be restarted */
+            restartIfStopped(file);
             return;
         }
 
-        checkConfigNameForRestart(file.getAbsolutePath());
+        startEmbeddedCassandra(file, tmpDir, null);
+    }
+
+    public static boolean startEmbeddedCassandraFromImage(String yamlFile, String imageKey) throws TTransportException, IOException, ConfigurationException {
+        return startEmbeddedCassandraFromImage(yamlFile, DEFAULT_TMP_DIR, EmbeddedCassandraImageHelper.DEFAULT_IMAGES_DIR, imageKey);
+    }
+
+    /**
+     * Start an embedded cassandra booting from the node image imageKey when it exists in imagesDir, or a fresh one
+     * otherwise. In the latter case, schema and datasets should be loaded then saved with saveImage(imageKey).
+     *
+     * @param imagesDir EmbeddedCassandraImageHelper.DEFAULT_IMAGES_DIR, in the build directory, or USER_IMAGES_DIR to
+     *                  share images between builds
+     * @param imageKey see EmbeddedCassandraImageHelper.computeImageKey
+     * @return true when the node booted from the image
+     */
+    public static synchronized boolean startEmbeddedCassandraFromImage(String yamlFile, String tmpDir, String imagesDir, String imageKey) throws TTransportException, IOException, ConfigurationException {
+        if (!StringUtils.startsWith(yamlFile, "/")) {
+            yamlFile = "/" + yamlFile;
+        }
+
+        if (cassandraDaemon != null) {
+            /* Cassandra is already started or only needs to be restarted */
+            File file = new File(tmpDir + yamlFile);
+            if (isRestartWithAnotherConfiguration(file)) {
+                copy(yamlFile, tmpDir);
+            }
+            restartIfStopped(file);
+            return false;
+        }
+
+        File image = EmbeddedCassandraImageHelper.getImageFile(imagesDir, imageKey);
+        boolean bootFromImage = image.exists();
+        rmdir(tmpDir);
+        copy(yamlFile, tmpDir);
+        File file = new File(tmpDir + yamlFile);
+        startEmbeddedCassandra(file, tmpDir, bootFromImage ? image : null);
+        return bootFromImage;
+    }
+
+    public static void saveImage(String imageKey) throws IOException {
+        saveImage(EmbeddedCassandraImageHelper.DEFAULT_IMAGES_DIR, imageKey);
+    }
+
+    /**
+     * Save the data directories of the running embedded cassandra, system keyspaces included, as the node image
+     * imageKey into imagesDir.
+     */
+    public static synchronized void saveImage(String imagesDir, String imageKey) throws IOException {
+        checkEmbeddedCassandraStarted();
+        awaitWarmup();
+        EmbeddedCassandraImageHelper.saveImage(EmbeddedCassandraImageHelper.getImageFile(imagesDir, imageKey));
+    }
+
+    private static void startEmbeddedCassandra(File file, String tmpDir, File image) throws IOException {
+        launchedYamlFile = file.getAbsolutePath();
 
         log.debug("Starting cassandra...");
         log.debug("Initialization needed");
@@ -93,6 +273,9 @@ public class EmbeddedCassandraServerHelper {
         }
 
         cleanupAndLeaveDirs();
+        if (image != null) {
+            EmbeddedCassandraImageHelper.restoreImage(image);
+        }
         final CountDownLatch startupLatch = new CountDownLatch(1);
         executor = Executors.newSingleThreadExecutor();
         executor.execute(new Runnable() {
@@ -100,6 +283,8 @@ public class EmbeddedCassandraServerHelper {
             public void run() {
                 cassandraDaemon = new CassandraDaemon();
                 cassandraDaemon.activate();
+                /* as soon as possible, so that the queries of the statements prepared by the tests are known */
+                QueryRecorder.installHooks();
                 startupLatch.countDown();
             }
         });
@@ -111,29 +296,456 @@ public class EmbeddedCassandraServerHelper {
         }
     }
 
-    private static void checkConfigNameForRestart(String yamlFile) {
-        boolean wasPreviouslyLaunched = launchedYamlFile != null;
-        if (wasPreviouslyLaunched && !launchedYamlFile.equals(yamlFile)) {
-            throw new UnsupportedOperationException("We can't launch two Cassandra configurations in the same JVM instance");
+    /**
+     * @return true if the node is stopped and file is not the configuration it runs with
+     */
+    private static boolean isRestartWithAnotherConfiguration(File file) {
+        return stopped && !file.getAbsolutePath().equals(launchedYamlFile);
+    }
+
+    /**
+     * Restart the client transports of a previously stopped embedded cassandra, after reloading the configuration
+     * when file is another one than the running configuration.
+     * The already initialized storage engine is reused, so the storage settings of that configuration must stay the same.
+     *
+     * @param file yaml configuration file asked for
+     */
+    private static void restartIfStopped(File file) throws ConfigurationException {
+        if (!stopped) {
+            if (!file.getAbsolutePath().equals(launchedYamlFile)) {
+                log.warn("Cassandra is already running with {}, {} is ignored : stop the running one first to launch "
+                        + "another configuration", launchedYamlFile, file);
+            }
+            /* nothing to do Cassandra is already started */
+            return;
         }
-        launchedYamlFile = yamlFile;
+        if (!file.getAbsolutePath().equals(launchedYamlFile)) {
+            reloadConfiguration(file);
+        }
+
+        log.debug("Restarting cassandra...");
+        cassandraDaemon.start();
+        stopped = false;
     }
 
     /**
-     * Now deprecated, previous version was not fully operating.
-     * This is now an empty method, will be pruned in future versions.
+     * Make file the configuration of the stopped node, its transports being created again to listen to the new
+     * address and ports. The services already running (snitch, schema, storage) keep the settings they were
+     * initialized with, only the settings read on demand from the configuration change.
      */
-    @Deprecated
-    public static void stopEmbeddedCassandra() {
-        log.warn("EmbeddedCassandraServerHelper.stopEmbeddedCassandra() is now deprecated, " +
-                "previous version was not fully operating");
+    private static void reloadConfiguration(File file) throws ConfigurationException {
+        log.debug("Reloading cassandra configuration from {}", file);
+        String launchedConfig = System.getProperty("cassandra.config");
+        System.setProperty("cassandra.config", "file:" + file.getAbsolutePath());
+        Config config;
+        try {
+            config = (Config) invokeDatabaseDescriptor("loadConfig");
+            checkSameStorage(config);
+        } catch (ConfigurationException e) {
+            System.setProperty("cassandra.config", launchedConfig);
+            throw e;
+        } catch (UnsupportedOperationException e) {
+            System.setProperty("cassandra.config", launchedConfig);
+            throw e;
+        }
+        setDatabaseDescriptorField("conf", config);
+        setDatabaseDescriptorField("rpcAddress", rpcAddress(config));
+        cassandraDaemon.thriftServer = new ThriftServer(DatabaseDescriptor.getRpcAddress(), DatabaseDescriptor.getRpcPort());
+        cassandraDaemon.nativeServer = new Server(DatabaseDescriptor.getNativeTransportAddress(),
+                DatabaseDescriptor.getNativeTransportPort());
+        launchedYamlFile = file.getAbsolutePath();
+    }
+
+    private static InetAddress rpcAddress(Config config) throws ConfigurationException {
+        if (config.rpc_address == null) {
+            return FBUtilities.getLocalAddress();
+        }
+        try {
+            return InetAddress.getByName(config.rpc_address);
+        } catch (UnknownHostException e) {
+            throw new ConfigurationException("Unknown host in rpc_address " + config.rpc_address);
+        }
+    }
+
+    /* the storage engine is only initialized once per JVM */
+    private static void checkSameStorage(Config config) throws ConfigurationException {
+        if (!FBUtilities.newPartitioner(config.partitioner).getClass().equals(DatabaseDescriptor.getPartitioner().getClass())
+                || !Arrays.equals(config.data_file_directories, DatabaseDescriptor.getAllDataFileLocations())
+                || !StringUtils.equals(config.commitlog_directory, DatabaseDescriptor.getCommitLogLocation())
+                || !StringUtils.equals(config.saved_caches_directory, DatabaseDescriptor.getSavedCachesLocation())) {
+            throw new UnsupportedOperationException("Cassandra initializes its storage only once per JVM instance, "
+                    + "partitioner and directories must stay the ones launched with " + launchedYamlFile);
+        }
+    }
+
+    private static Object invokeDatabaseDescriptor(String methodName) throws ConfigurationException {
+        try {
+            Method method = DatabaseDescriptor.class.getDeclaredMethod(methodName);
+            method.setAccessible(true);
+            return method.invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new CassandraUnitException("Unable to reload cassandra configuration", e);
+        } catch (IllegalAccessException e) {
+            throw new CassandraUnitException("Unable to reload cassandra configuration", e);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof ConfigurationException) {
+                throw (ConfigurationException) e.getCause();
+            }
+            throw new CassandraUnitException("Unable to reload cassandra configuration", e.getCause());
+        }
+    }
+
+    private static void setDatabaseDescriptorField(String fieldName, Object value) {
+        try {
+            Field field = DatabaseDescriptor.class.getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(null, value);
+        } catch (NoSuchFieldException e) {
+            throw new CassandraUnitException("Unable to reload cassandra configuration", e);
+        } catch (IllegalAccessException e) {
+            throw new CassandraUnitException("Unable to reload cassandra configuration", e);
+        }
+    }
+
+    /**
+     * Stop the embedded cassandra : thrift and native transports are shut down with their threads, memtables are
+     * flushed and key/row caches are invalidated so that their memory can be reclaimed.
+     * A later call to one of the startEmbeddedCassandra methods restarts it, possibly with another configuration
+     * sharing the same partitioner and directories.
+     */
+    public static synchronized void stopEmbeddedCassandra() {
+        if (cassandraDaemon == null || stopped) {
+            /* nothing to do Cassandra is not started */
+            return;
+        }
+
+        log.debug("Stopping cassandra...");
+        awaitWarmup();
+        closeCleaningSession();
+        /* the shared connections left would still see the node down once restarted */
+        CQLSessionRegistry.closeUnused();
+        cassandraDaemon.deactivate();
+        for (Keyspace keyspace : Keyspace.all()) {
+            FBUtilities.waitOnFutures(keyspace.flush());
+        }
+        CacheService.instance.invalidateKeyCache();
+        CacheService.instance.invalidateRowCache();
+        executor.shutdown();
+        stopped = true;
+    }
+
+    public static boolean isEmbeddedCassandraStarted() {
+        return cassandraDaemon != null && !stopped;
+    }
+
+    /**
+     * @return true if the embedded cassandra of this JVM was started with its storage in memory
+     */
+    public static boolean isEmbeddedCassandraInMemory() {
+        return cassandraDaemon != null && inMemory;
+    }
+
+    /**
+     * Flush the memtables of tables (all of them when none is given) of keyspace into sstables.
+     */
+    public static void flush(String keyspace, String... tables) {
+        checkEmbeddedCassandraStarted();
+        try {
+            StorageService.instance.forceKeyspaceFlush(keyspace, tables);
+        } catch (IOException e) {
+            throw new CassandraUnitException("Unable to flush keyspace " + keyspace, e);
+        }
+    }
+
+    /**
+     * Run a major compaction of tables (all of them when none is given) of keyspace, leaving one sstable per table.
+     */
+    public static void compact(String keyspace, String... tables) {
+        checkEmbeddedCassandraStarted();
+        try {
+            StorageService.instance.forceKeyspaceCompaction(keyspace, tables);
+        } catch (IOException e) {
+            throw new CassandraUnitException("Unable to compact keyspace " + keyspace, e);
+        } catch (ExecutionException e) {
+            throw new CassandraUnitException("Unable to compact keyspace " + keyspace, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CassandraUnitException("Interrupted while compacting keyspace " + keyspace, e);
+        }
+    }
+
+    public static void disableAutoCompaction(String keyspace, String... tables) {
+        checkEmbeddedCassandraStarted();
+        try {
+            StorageService.instance.disableAutoCompaction(keyspace, tables);
+        } catch (IOException e) {
+            throw new CassandraUnitException("Unable to disable auto compaction of keyspace " + keyspace, e);
+        }
+    }
+
+    public static void enableAutoCompaction(String keyspace, String... tables) {
+        checkEmbeddedCassandraStarted();
+        try {
+            StorageService.instance.enableAutoCompaction(keyspace, tables);
+        } catch (IOException e) {
+            throw new CassandraUnitException("Unable to enable auto compaction of keyspace " + keyspace, e);
+        }
+    }
+
+    public static int getSSTableCount(String keyspace, String table) {
+        checkEmbeddedCassandraStarted();
+        return Keyspace.open(keyspace).getColumnFamilyStore(table).getLiveSSTableCount();
+    }
+
+    /**
+     * Clone sourceKeyspace into the new keyspace targetKeyspace : same schema, and the sstables of the source, once
+     * flushed, hard linked into the tables of the clone. Cloning costs a few links per sstable whatever the number of
+     * rows, and sstables being immutable, data written afterwards to one keyspace is not seen by the other.
+     */
+    public static void cloneKeyspace(String sourceKeyspace, String targetKeyspace) {
+        checkEmbeddedCassandraStarted();
+        KSMetaData source = Schema.instance.getKSMetaData(sourceKeyspace);
+        if (source == null) {
+            throw new IllegalArgumentException("Keyspace " + sourceKeyspace + " does not exist");
+        }
+        if (Schema.instance.getKSMetaData(targetKeyspace) != null) {
+            throw new IllegalArgumentException("Keyspace " + targetKeyspace + " already exists");
+        }
+        log.debug("Cloning keyspace " + sourceKeyspace + " into " + targetKeyspace);
+        FBUtilities.waitOnFutures(Keyspace.open(sourceKeyspace).flush());
+
+        List<CFMetaData> columnFamilies = new ArrayList<CFMetaData>();
+        for (CFMetaData columnFamily : source.cfMetaData().values()) {
+            columnFamilies.add(copyColumnFamily(columnFamily, targetKeyspace));
+        }
+        try {
+            MigrationManager.announceNewKeyspace(KSMetaData.newKeyspace(targetKeyspace, source.strategyClass,
+                    source.strategyOptions, source.durableWrites, columnFamilies));
+        } catch (ConfigurationException e) {
+            throw new CassandraUnitException("Unable to create keyspace " + targetKeyspace, e);
+        }
+
+        for (ColumnFamilyStore sourceStore : Keyspace.open(sourceKeyspace).getColumnFamilyStores()) {
+            ColumnFamilyStore targetStore = Keyspace.open(targetKeyspace).getColumnFamilyStore(sourceStore.name);
+            File targetDirectory = targetStore.directories.getDirectoryForNewSSTables();
+            /* referenced, so that a compaction can't delete them while they are linked */
+            Collection<SSTableReader> sstables = sourceStore.markCurrentSSTablesReferenced();
+            try {
+                for (SSTableReader sstable : sstables) {
+                    Descriptor descriptor = sstable.descriptor;
+                    Descriptor link = new Descriptor(descriptor.version, targetDirectory, targetKeyspace,
+                            descriptor.cfname, descriptor.generation, false);
+                    for (Component component : SSTable.componentsFor(descriptor)) {
+                        FileUtils.createHardLink(new File(descriptor.filenameFor(component)),
+                                new File(link.filenameFor(component)));
+                    }
+                }
+            } finally {
+                SSTableReader.releaseReferences(sstables);
+            }
+            /* secondary indexes are built from the linked sstables */
+            targetStore.loadNewSSTables();
+        }
+    }
+
+    private static CFMetaData copyColumnFamily(CFMetaData columnFamily, String keyspace) {
+        CFMetaData copy = new CFMetaData(keyspace, columnFamily.cfName, columnFamily.cfType, columnFamily.comparator);
+        try {
+            /* same copy of the options as CFMetaData.rename, which keeps the keyspace */
+            Method copyOpts = CFMetaData.class.getDeclaredMethod("copyOpts", CFMetaData.class, CFMetaData.class);
+            copyOpts.setAccessible(true);
+            return (CFMetaData) copyOpts.invoke(null, copy, columnFamily);
+        } catch (NoSuchMethodException e) {
+            throw new CassandraUnitException("Unable to copy table " + columnFamily.cfName, e);
+        } catch (IllegalAccessException e) {
+            throw new CassandraUnitException("Unable to copy table " + columnFamily.cfName, e);
+        } catch (InvocationTargetException e) {
+            throw new CassandraUnitException("Unable to copy table " + columnFamily.cfName, e.getCause());
+        }
+    }
+
+    public static int warmup() {
+        return warmup(DEFAULT_WARMUP_ITERATIONS);
+    }
+
+    /**
+     * Send a synthetic read/write workload of about 3 * iterations requests, through the native protocol, so that
+     * the first tests don't pay for cold JIT, class loading and empty caches. The workload uses a scratch keyspace
+     * dropped afterwards.
+     *
+     * @return number of requests sent
+     */
+    public static int warmup(int iterations) {
+        checkEmbeddedCassandraStarted();
+        try {
+            int requests = new EmbeddedCassandraWarmup(iterations).call();
+            log.info("Embedded cassandra warmed up with " + requests + " requests");
+            return requests;
+        } catch (Exception e) {
+            throw new CassandraUnitException("Unable to warm up embedded cassandra", e);
+        }
+    }
+
+    public static Future<Integer> warmupInBackground() {
+        return warmupInBackground(DEFAULT_WARMUP_ITERATIONS);
+    }
+
+    /**
+     * Same as warmup, while the tests go on (parsing their datasets, loading their keyspaces...). Cleaning,
+     * stopping or saving an image of the embedded cassandra waits for the end of the warmup.
+     *
+     * @return number of requests sent, once done
+     */
+    public static synchronized Future<Integer> warmupInBackground(final int iterations) {
+        checkEmbeddedCassandraStarted();
+        FutureTask<Integer> task = new FutureTask<Integer>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                long start = System.currentTimeMillis();
+                int requests = new EmbeddedCassandraWarmup(iterations).call();
+                log.info("Embedded cassandra warmed up in background with " + requests + " requests in "
+                        + (System.currentTimeMillis() - start) + " ms");
+                return requests;
+            }
+        });
+        Thread thread = new Thread(task, "cassandra-unit-warmup");
+        thread.setDaemon(true);
+        thread.start();
+        warmup = task;
+        return task;
+    }
+
+    private static synchronized void awaitWarmup() {
+        if (warmup == null) {
+            return;
+        }
+        try {
+            warmup.get();
+        } catch (ExecutionException e) {
+            log.warn("Embedded cassandra warmup failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        warmup = null;
+    }
+
+    /**
+     * Make the embedded cassandra misbehave (latency, dropped requests, timeouts, unavailables) on the CQL requests
+     * matching the fault, until clearFaults is called.
+     */
+    public static void injectFault(Fault fault) {
+        checkEmbeddedCassandraStarted();
+        FaultInjector.inject(fault);
+    }
+
+    public static void clearFaults() {
+        FaultInjector.clear();
+    }
+
+    private static void checkEmbeddedCassandraStarted() {
+        if (!isEmbeddedCassandraStarted()) {
+            throw new IllegalStateException("Embedded cassandra must be started in this JVM");
+        }
     }
 
     /**
      * drop all keyspaces (expect system)
      */
-    public static void cleanEmbeddedCassandra() {
+    public static synchronized void cleanEmbeddedCassandra() {
+        awaitWarmup();
         dropKeyspaces();
+        writeCountsAtLastClean.clear();
+    }
+
+    /**
+     * truncate, in parallel, the tables (expect system) written since the last clean. Unlike cleanEmbeddedCassandra,
+     * the schema is kept and untouched tables cost nothing.
+     */
+    public static synchronized void cleanDirtyTables() {
+        awaitWarmup();
+        List<ColumnFamilyStore> dirtyTables = new ArrayList<ColumnFamilyStore>();
+        List<Long> writeCounts = new ArrayList<Long>();
+        for (ColumnFamilyStore columnFamilyStore : getUserColumnFamilyStores()) {
+            /* read before truncating, so that a write racing with the truncation keeps the table dirty */
+            long writeCount = getWriteCount(columnFamilyStore);
+            if (writeCount != getWriteCountAtLastClean(columnFamilyStore)) {
+                dirtyTables.add(columnFamilyStore);
+                writeCounts.add(writeCount);
+            }
+        }
+        if (dirtyTables.isEmpty()) {
+            return;
+        }
+
+        log.debug("Truncating dirty tables " + dirtyTables);
+        Session session = getCleaningSession();
+        List<ResultSetFuture> truncations = new ArrayList<ResultSetFuture>();
+        for (ColumnFamilyStore columnFamilyStore : dirtyTables) {
+            truncations.add(session.executeAsync("TRUNCATE \"" + columnFamilyStore.keyspace.getName() + "\".\""
+                    + columnFamilyStore.name + "\""));
+        }
+        for (ResultSetFuture truncation : truncations) {
+            truncation.getUninterruptibly();
+        }
+        for (int i = 0; i < dirtyTables.size(); i++) {
+            writeCountsAtLastClean.put(dirtyTables.get(i).metadata.cfId, writeCounts.get(i));
+        }
+    }
+
+    /**
+     * @return tables (expect system) written since the last clean, as keyspace.table
+     */
+    public static List<String> getDirtyTables() {
+        List<String> dirtyTables = new ArrayList<String>();
+        for (ColumnFamilyStore columnFamilyStore : getUserColumnFamilyStores()) {
+            if (getWriteCount(columnFamilyStore) != getWriteCountAtLastClean(columnFamilyStore)) {
+                dirtyTables.add(columnFamilyStore.keyspace.getName() + "." + columnFamilyStore.name);
+            }
+        }
+        return dirtyTables;
+    }
+
+    /**
+     * @return tables of the embedded cassandra, expect system ones
+     */
+    public static List<ColumnFamilyStore> getUserColumnFamilyStores() {
+        List<ColumnFamilyStore> columnFamilyStores = new ArrayList<ColumnFamilyStore>();
+        for (Keyspace keyspace : Keyspace.all()) {
+            if (!isInternalKeyspace(keyspace.getName())) {
+                columnFamilyStores.addAll(keyspace.getColumnFamilyStores());
+            }
+        }
+        return columnFamilyStores;
+    }
+
+    private static long getWriteCount(ColumnFamilyStore columnFamilyStore) {
+        return columnFamilyStore.metric.writeLatency.latency.count();
+    }
+
+    private static long getWriteCountAtLastClean(ColumnFamilyStore columnFamilyStore) {
+        Long writeCount = writeCountsAtLastClean.get(columnFamilyStore.metadata.cfId);
+        return writeCount == null ? 0 : writeCount;
+    }
+
+    private static synchronized Session getCleaningSession() {
+        if (cleaningSession == null) {
+            cleaningSession = CQLSessionRegistry.acquire(DatabaseDescriptor.getRpcAddress().getHostAddress(),
+                    DatabaseDescriptor.getNativeTransportPort());
+        }
+        return cleaningSession;
+    }
+
+    private static synchronized void closeCleaningSession() {
+        if (cleaningSession != null) {
+            CQLSessionRegistry.release(cleaningSession);
+            cleaningSession = null;
+        }
+    }
+
+    private static boolean isInternalKeyspace(String keyspaceName) {
+        return INTERNAL_CASSANDRA_KEYSPACE.equals(keyspaceName)
+                || INTERNAL_CASSANDRA_AUTH_KEYSPACE.equals(keyspaceName)
+                || INTERNAL_CASSANDRA_TRACES_KEYSPACE.equals(keyspaceName);
     }
 
     private static void dropKeyspaces() {
@@ -148,9 +760,7 @@ public class EmbeddedCassandraServerHelper {
         for (KeyspaceDefinition keyspaceDefinition : keyspaces) {
             String keyspaceName = keyspaceDefinition.getName();
 
-            if (!INTERNAL_CASSANDRA_KEYSPACE.equals(keyspaceName)
-                    && !INTERNAL_CASSANDRA_AUTH_KEYSPACE.equals(keyspaceName)
-                    && !INTERNAL_CASSANDRA_TRACES_KEYSPACE.equals(keyspaceName)) {
+            if (!isInternalKeyspace(keyspaceName)) {
                 cluster.dropKeyspace(keyspaceName);
             }
         }
@@ -0,0 +1,93 @@
+package org.cassandraunit.utils;
+
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.service.StorageService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Synthetic read/write workload sent through the native protocol to a freshly started embedded cassandra, so that the
+ * request path is loaded, JIT compiled and its caches filled before the first tests run. It works in a scratch
+ * keyspace, dropped afterwards, and gives the number of requests sent.
+ */
+class EmbeddedCassandraWarmup implements Callable<Integer> {
+
+    static final String WARMUP_KEYSPACE = "cassandra_unit_warmup";
+    private static final int MAX_REQUESTS_IN_FLIGHT = 32;
+    private static final int BUCKETS_PER_PARTITION = 10;
+
+    private final int iterations;
+    private final List<ResultSetFuture> requestsInFlight = new ArrayList<ResultSetFuture>();
+    private int requestCount = 0;
+
+    EmbeddedCassandraWarmup(int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        Session session = CQLSessionRegistry.acquire(DatabaseDescriptor.getRpcAddress().getHostAddress(),
+                DatabaseDescriptor.getNativeTransportPort());
+        try {
+            execute(session, "DROP KEYSPACE IF EXISTS " + WARMUP_KEYSPACE);
+            execute(session, "CREATE KEYSPACE " + WARMUP_KEYSPACE
+                    + " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': 1} AND durable_writes = false");
+            execute(session, "CREATE TABLE " + WARMUP_KEYSPACE + ".warmup (id int, bucket int, value text, PRIMARY KEY (id, bucket))");
+
+            PreparedStatement insert = session.prepare("INSERT INTO " + WARMUP_KEYSPACE + ".warmup (id, bucket, value) VALUES (?, ?, ?)");
+            for (int i = 0; i < iterations; i++) {
+                send(session.executeAsync(insert.bind(i / BUCKETS_PER_PARTITION, i % BUCKETS_PER_PARTITION, "value" + i)));
+            }
+            awaitRequestsInFlight();
+
+            /* read from memtables, then from sstables so that the key cache is used as well */
+            read(session);
+            StorageService.instance.forceKeyspaceFlush(WARMUP_KEYSPACE);
+            read(session);
+
+            execute(session, "DROP KEYSPACE " + WARMUP_KEYSPACE);
+            return requestCount;
+        } finally {
+            CQLSessionRegistry.release(session);
+        }
+    }
+
+    private void read(Session session) {
+        PreparedStatement select = session.prepare("SELECT * FROM " + WARMUP_KEYSPACE + ".warmup WHERE id = ?");
+        int partitions = Math.max(1, iterations / BUCKETS_PER_PARTITION);
+        for (int i = 0; i < partitions; i++) {
+            if (i % BUCKETS_PER_PARTITION == 0) {
+                /* unprepared requests go through the CQL parser */
+                send(session.executeAsync("SELECT value FROM " + WARMUP_KEYSPACE + ".warmup WHERE id = " + i + " AND bucket = 0"));
+            } else {
+                send(session.executeAsync(select.bind(i)));
+            }
+        }
+        awaitRequestsInFlight();
+    }
+
+    private void execute(Session session, String query) {
+        session.execute(query);
+        requestCount++;
+    }
+
+    private void send(ResultSetFuture request) {
+        requestsInFlight.add(request);
+        requestCount++;
+        if (requestsInFlight.size() >= MAX_REQUESTS_IN_FLIGHT) {
+            awaitRequestsInFlight();
+        }
+    }
+
+    private void awaitRequestsInFlight() {
+        for (ResultSetFuture request : requestsInFlight) {
+            request.getUninterruptibly();
+        }
+        requestsInFlight.clear();
+    }
+}
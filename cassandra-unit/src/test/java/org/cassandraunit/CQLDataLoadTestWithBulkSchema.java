@@ -0,0 +1,40 @@
+package org.cassandraunit;
+
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithBulkSchema {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/severalTables.cql", "bulkschemakeyspace"),
+            bulkSchema());
+
+    private static LoadingOption bulkSchema() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setBulkSchema(true);
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldCreateAllTablesAndLoadData() throws Exception {
+        assertThat(cassandraCQLUnit.session.getLoggedKeyspace(), is("bulkschemakeyspace"));
+        assertThat(cassandraCQLUnit.session.execute("SELECT name FROM users WHERE id=1").one().getString("name"), is("user1"));
+        assertThat(cassandraCQLUnit.session.execute("SELECT type FROM events WHERE user_id=1").one().getString("type"), is("login"));
+        assertThat(cassandraCQLUnit.session.execute("SELECT hits FROM counters WHERE id=1").one().getLong("hits"), is(2L));
+        assertThat(cassandraCQLUnit.session.execute("SELECT text FROM comments WHERE id=1").one().getString("text"), is("first"));
+    }
+
+    @Test
+    public void shouldCreateTablesQualifiedWithTheirKeyspace() throws Exception {
+        new CQLDataLoader(cassandraCQLUnit.session).load(new ClassPathCQLDataSet("cql/qualifiedNames.cql", "mykeyspace"),
+                bulkSchema());
+        assertThat(cassandraCQLUnit.session.execute("SELECT name FROM mykeyspace.users WHERE id=1").one().getString("name"),
+                is("mykeyspace.users"));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM otherkeyspace.logs").all().size(), is(0));
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.Schema;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class CQLDataLoadTestWithDeferredIndexCreation {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/indexedTable.cql", "indexedkeyspace"),
+            deferIndexCreation());
+
+    private static LoadingOption deferIndexCreation() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setDeferIndexCreation(true);
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldCreateIndexesOnceDataIsLoaded() throws Exception {
+        assertThat(Schema.instance.getCFMetaData("indexedkeyspace", "users").getColumnDefinitionForIndex("users_city"), notNullValue());
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM users WHERE city = 'Paris'").all().size(), is(2));
+    }
+
+    @Test
+    public void shouldBuildIndexesOfAKeyspaceLoadedAgain() throws Exception {
+        new CQLDataLoader(cassandraCQLUnit.session).load(new ClassPathCQLDataSet("cql/indexedTable.cql", "indexedkeyspace"),
+                deferIndexCreation());
+
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM users WHERE city = 'Lyon'").all().size(), is(1));
+    }
+}
@@ -0,0 +1,29 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.ResultSet;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithDirtyTablesCleaning {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "dirtytableskeyspace"));
+
+    @Test
+    public void shouldTruncateTablesWrittenSinceTheLastClean() throws Exception {
+        assertThat(EmbeddedCassandraServerHelper.getDirtyTables(), hasItem("dirtytableskeyspace.testcqltable"));
+
+        EmbeddedCassandraServerHelper.cleanDirtyTables();
+
+        assertThat(EmbeddedCassandraServerHelper.getDirtyTables().isEmpty(), is(true));
+        ResultSet result = cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable");
+        assertThat(result.all().isEmpty(), is(true));
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.exceptions.ReadTimeoutException;
+import com.datastax.driver.core.exceptions.UnavailableException;
+import com.datastax.driver.core.exceptions.WriteTimeoutException;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.query.Fault;
+import org.cassandraunit.query.QueryType;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+public class CQLDataLoadTestWithFaultInjection {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "faultkeyspace"));
+
+    @After
+    public void clearFaults() {
+        EmbeddedCassandraServerHelper.clearFaults();
+    }
+
+    @Test
+    public void shouldAddLatencyToTheRequestsOfATable() throws Exception {
+        EmbeddedCassandraServerHelper.injectFault(Fault.latency(200, TimeUnit.MILLISECONDS).onTable("faultkeyspace.testCQLTable"));
+        long start = System.currentTimeMillis();
+        cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable");
+        assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(200L));
+    }
+
+    @Test(expected = ReadTimeoutException.class)
+    public void shouldTimeoutReads() throws Exception {
+        EmbeddedCassandraServerHelper.injectFault(Fault.timeout().on(QueryType.READ));
+        cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable");
+    }
+
+    @Test(expected = WriteTimeoutException.class)
+    public void shouldTimeoutWrites() throws Exception {
+        EmbeddedCassandraServerHelper.injectFault(Fault.timeout().on(QueryType.WRITE));
+        cassandraCQLUnit.session.execute("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'BLA3')");
+    }
+
+    @Test
+    public void shouldHoldDroppedRequestsUntilTheRequestTimeout() throws Exception {
+        EmbeddedCassandraServerHelper.injectFault(Fault.drop().on(QueryType.WRITE));
+        long start = System.currentTimeMillis();
+        try {
+            cassandraCQLUnit.session.execute("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'BLA3')");
+            fail("a dropped write should time out");
+        } catch (WriteTimeoutException e) {
+            assertThat(System.currentTimeMillis() - start, greaterThanOrEqualTo(DatabaseDescriptor.getWriteRpcTimeout()));
+        }
+    }
+
+    @Test(expected = UnavailableException.class)
+    public void shouldAnswerUnavailableOnAKeyspace() throws Exception {
+        EmbeddedCassandraServerHelper.injectFault(Fault.unavailable().onKeyspace("faultkeyspace"));
+        cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable");
+    }
+
+    @Test(expected = UnavailableException.class)
+    public void shouldAffectKeyspacesNamedLikeSystemOnes() throws Exception {
+        cassandraCQLUnit.session.execute("CREATE KEYSPACE IF NOT EXISTS systemfaultkeyspace "
+                + "WITH replication = {'class': 'SimpleStrategy', 'replication_factor': 1}");
+        cassandraCQLUnit.session.execute("CREATE TABLE IF NOT EXISTS systemfaultkeyspace.events (id int PRIMARY KEY)");
+        EmbeddedCassandraServerHelper.injectFault(Fault.unavailable());
+        cassandraCQLUnit.session.execute("SELECT * FROM systemfaultkeyspace.events");
+    }
+
+    @Test
+    public void shouldNotAffectRequestsWithoutLuck() throws Exception {
+        EmbeddedCassandraServerHelper.injectFault(Fault.timeout().withProbability(0));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+    }
+
+}
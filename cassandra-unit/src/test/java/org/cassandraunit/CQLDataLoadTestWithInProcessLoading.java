@@ -0,0 +1,30 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.ResultSet;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithInProcessLoading {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "inprocesskeyspace"),
+            inProcess());
+
+    private static LoadingOption inProcess() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setInProcess(true);
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldHaveLoadedDataInProcess() throws Exception {
+        assertThat(cassandraCQLUnit.session.getLoggedKeyspace(), is("inprocesskeyspace"));
+        ResultSet result = cassandraCQLUnit.session.execute("select * from testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+        assertThat(result.iterator().next().getString("value"), is("Cql loaded string"));
+    }
+
+}
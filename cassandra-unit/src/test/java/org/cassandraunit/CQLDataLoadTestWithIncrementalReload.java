@@ -0,0 +1,62 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.Row;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CQLDataLoadTestWithIncrementalReload {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "incrementalkeyspace"),
+            incrementalReload());
+
+    private static LoadingOption incrementalReload() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setIncrementalReload(true);
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldOnlyWriteChangedPartitions() throws Exception {
+        long unchangedWriteTime = writeTime("1690e8da-5bf8-49e8-9583-4dff8a570737");
+
+        load("cql/simpleChanged.cql");
+
+        assertThat(writeTime("1690e8da-5bf8-49e8-9583-4dff8a570737"), is(unchangedWriteTime));
+        assertThat(value("1690e8da-5bf8-49e8-9583-4dff8a570738"), is("BLA2 changed"));
+        assertThat(value("1690e8da-5bf8-49e8-9583-4dff8a570739"), nullValue());
+        assertThat(value("1690e8da-5bf8-49e8-9583-4dff8a570741"), is("BLA3"));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+    }
+
+    @Test
+    public void shouldReloadTablesWrittenSinceLoaded() throws Exception {
+        cassandraCQLUnit.session.execute("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'new')");
+        cassandraCQLUnit.session.execute("UPDATE testCQLTable SET value = 'updated' WHERE id = 1690e8da-5bf8-49e8-9583-4dff8a570737");
+
+        load("cql/simple.cql");
+
+        assertThat(value("1690e8da-5bf8-49e8-9583-4dff8a570737"), is("Cql loaded string"));
+        assertThat(value("1690e8da-5bf8-49e8-9583-4dff8a570740"), nullValue());
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+    }
+
+    private void load(String dataSetLocation) {
+        new CQLDataLoader(cassandraCQLUnit.session).load(new ClassPathCQLDataSet(dataSetLocation, "incrementalkeyspace"),
+                incrementalReload());
+    }
+
+    private String value(String id) {
+        Row row = cassandraCQLUnit.session.execute("SELECT value FROM testCQLTable WHERE id = " + id).one();
+        return row == null ? null : row.getString("value");
+    }
+
+    private long writeTime(String id) {
+        return cassandraCQLUnit.session.execute("SELECT writetime(value) FROM testCQLTable WHERE id = " + id).one().getLong(0);
+    }
+}
@@ -0,0 +1,77 @@
+package org.cassandraunit;
+
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.CQLSessionRegistry;
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+public class CQLDataLoadTestWithKeyspacePool {
+
+    /* a single copy, reset between tests */
+    private static final KeyspacePool pool = new KeyspacePool(new ClassPathCQLDataSet("cql/simple.cql", "pooledkeyspace"), 1);
+    private static final Set<String> keyspaces = Collections.synchronizedSet(new HashSet<String>());
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(pool);
+
+    @AfterClass
+    public static void closePool() {
+        pool.close();
+    }
+
+    @Test
+    public void shouldLeaseALoadedKeyspace() throws Exception {
+        insertAndCount();
+    }
+
+    @Test
+    public void shouldLeaseAResetKeyspace() throws Exception {
+        insertAndCount();
+    }
+
+    @Test
+    public void shouldLeaseAResetKeyspaceAgain() throws Exception {
+        insertAndCount();
+    }
+
+    @Test
+    public void shouldReplaceACopyWhichFailedToReset() throws Exception {
+        int sessionCount = CQLSessionRegistry.getReferenceCount("localhost", 9142);
+        KeyspacePool otherPool = new KeyspacePool(new ClassPathCQLDataSet("cql/simple.cql", "replacedpooledkeyspace"), 1);
+        try {
+            KeyspacePool.PooledKeyspace broken = otherPool.lease();
+            assertThat(CQLSessionRegistry.getReferenceCount("localhost", 9142), is(sessionCount + 1));
+            broken.getSession().execute("DROP TABLE testCQLTable");
+            otherPool.release(broken);
+
+            KeyspacePool.PooledKeyspace replacement = otherPool.lease();
+            assertThat(replacement.getName(), not(is(broken.getName())));
+            assertThat(replacement.getSession().execute("SELECT * FROM testCQLTable").all().size(), is(3));
+            otherPool.release(replacement);
+        } finally {
+            otherPool.close();
+        }
+        assertThat(CQLSessionRegistry.getReferenceCount("localhost", 9142), is(sessionCount));
+    }
+
+    private void insertAndCount() {
+        String keyspace = cassandraCQLUnit.session.getLoggedKeyspace();
+        assertThat(keyspace, startsWith("pooledkeyspace_"));
+        keyspaces.add(keyspace);
+        assertThat(keyspaces.size(), lessThanOrEqualTo(1));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+        cassandraCQLUnit.session.execute("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'new')");
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(4));
+    }
+}
@@ -0,0 +1,39 @@
+package org.cassandraunit;
+
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.metrics.CassandraMetrics;
+import org.cassandraunit.metrics.CassandraMetricsRule;
+import org.cassandraunit.metrics.TableMetrics;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithMetrics {
+
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "metricskeyspace"));
+
+    @Rule
+    public CassandraMetricsRule metrics = new CassandraMetricsRule(cassandraCQLUnit);
+
+    @Test
+    public void shouldReportTheActivityOfTheTestOnly() throws Exception {
+        cassandraCQLUnit.session.execute("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'BLA3')");
+        cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570740");
+        cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+
+        CassandraMetrics activity = metrics.sinceStart();
+        TableMetrics table = activity.getTable("metricskeyspace", "testCQLTable");
+        assertThat(table.getWriteCount(), is(1L));
+        assertThat(table.getReadCount(), is(2L));
+    }
+
+    @Test
+    public void shouldReportNoActivityOnAnUnknownTable() throws Exception {
+        TableMetrics table = metrics.sinceStart().getTable("metricskeyspace", "unknown");
+        assertThat(table.getReadCount(), is(0L));
+        assertThat(table.getMaxSSTablesPerRead(), is(0L));
+    }
+
+}
@@ -0,0 +1,82 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.PreparedStatement;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.query.QueryBudgetRule;
+import org.cassandraunit.query.QueryType;
+import org.cassandraunit.query.RecordedQuery;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.model.Statement;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithQueryBudget {
+
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "querybudgetkeyspace"));
+
+    @Rule
+    public QueryBudgetRule queries = new QueryBudgetRule(cassandraCQLUnit).atMost(2, QueryType.READ, "testCQLTable");
+
+    @Test
+    public void shouldCountRequestsByTypeAndTable() throws Exception {
+        cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+        PreparedStatement insert = cassandraCQLUnit.session.prepare("INSERT INTO testCQLTable(id, value) values(?, ?)");
+        cassandraCQLUnit.session.execute(insert.bind(UUID.randomUUID(), "BLA3"));
+        cassandraCQLUnit.session.execute(insert.bind(UUID.randomUUID(), "BLA4"));
+
+        assertThat(queries.count(QueryType.READ, "testcqltable"), is(1));
+        assertThat(queries.count(QueryType.WRITE, "querybudgetkeyspace.testCQLTable"), is(2));
+        assertThat(queries.countByStatement().get("INSERT INTO testCQLTable(id, value) values(?, ?)"), is(2));
+    }
+
+    @Test
+    public void shouldRecordAllowFiltering() throws Exception {
+        cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable ALLOW FILTERING");
+
+        List<RecordedQuery> recordedQueries = queries.getQueries();
+        assertThat(recordedQueries.size(), is(1));
+        assertThat(recordedQueries.get(0).isAllowFiltering(), is(true));
+    }
+
+    @Test
+    public void shouldRecordKeyspaceLevelSchemaStatements() throws Exception {
+        cassandraCQLUnit.session.execute("CREATE KEYSPACE querybudgetotherkeyspace "
+                + "WITH replication = {'class': 'SimpleStrategy', 'replication_factor': 1}");
+        cassandraCQLUnit.session.execute("DROP KEYSPACE querybudgetotherkeyspace");
+
+        assertThat(queries.count(QueryType.SCHEMA, null), is(2));
+        assertThat(queries.getQueries().get(0).getKeyspace(), is("querybudgetotherkeyspace"));
+        assertThat(queries.getQueries().get(0).getTable(), is((String) null));
+    }
+
+    @Test
+    public void shouldCountOnlyTheRequestsOnTheGivenKeyspaces() throws Throwable {
+        final QueryBudgetRule scopedQueries = new QueryBudgetRule().onKeyspaces("querybudgetkeyspace");
+        scopedQueries.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                cassandraCQLUnit.session.execute("SELECT * FROM system.local");
+                cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable");
+                assertThat(scopedQueries.count(null, null), is(1));
+            }
+        }, null, this).evaluate();
+        assertThat(queries.count(null, null), is(2));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void shouldFailWhenABudgetIsExceeded() throws Throwable {
+        QueryBudgetRule noAllowFiltering = new QueryBudgetRule().noAllowFiltering();
+        noAllowFiltering.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable ALLOW FILTERING");
+            }
+        }, null, this).evaluate();
+    }
+
+}
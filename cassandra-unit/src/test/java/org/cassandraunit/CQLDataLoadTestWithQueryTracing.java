@@ -0,0 +1,54 @@
+package org.cassandraunit;
+
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.query.QueryTrace;
+import org.cassandraunit.query.QueryTracingRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.model.Statement;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithQueryTracing {
+
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "tracingkeyspace"));
+
+    @Rule
+    public QueryTracingRule tracing = new QueryTracingRule(cassandraCQLUnit).maxLatency(10, TimeUnit.SECONDS);
+
+    @Test
+    public void shouldTraceTheRequestsOfATest() throws Throwable {
+        final String query = "SELECT * FROM testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737";
+        QueryTracingRule nestedTracing = new QueryTracingRule(cassandraCQLUnit.session);
+        nestedTracing.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                cassandraCQLUnit.session.execute(query);
+            }
+        }, null, this).evaluate();
+
+        assertThat(nestedTracing.getTraces().size(), is(1));
+        QueryTrace trace = nestedTracing.getTraces().get(0);
+        assertThat(trace.getQuery(), is(query));
+        assertThat(trace.getDurationInMicros(), greaterThan(0));
+        assertThat(trace.getEvents().isEmpty(), is(false));
+        assertThat(nestedTracing.getMaxLatencyInMicros(), is((long) trace.getDurationInMicros()));
+    }
+
+    @Test(expected = AssertionError.class)
+    public void shouldFailWhenALatencyBudgetIsExceeded() throws Throwable {
+        QueryTracingRule noLatency = new QueryTracingRule(cassandraCQLUnit.session)
+                .maxLatency(0, TimeUnit.MICROSECONDS);
+        noLatency.apply(new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable");
+            }
+        }, null, this).evaluate();
+    }
+
+}
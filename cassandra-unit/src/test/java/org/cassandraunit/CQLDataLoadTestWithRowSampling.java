@@ -0,0 +1,45 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.Row;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class CQLDataLoadTestWithRowSampling {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/sampledTables.cql", "sampledkeyspace"),
+            rowSampling());
+
+    private static LoadingOption rowSampling() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setRowSampling(new RowSampling(0.25, 1).join("orders", "users"));
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldOnlyLoadSampledPartitionsOfJoinedTables() throws Exception {
+        Set<Integer> users = new HashSet<Integer>();
+        for (Row row : cassandraCQLUnit.session.execute("SELECT id FROM users").all()) {
+            users.add(row.getInt("id"));
+        }
+        List<Row> orders = cassandraCQLUnit.session.execute("SELECT user_id FROM orders").all();
+
+        assertThat(users.size(), greaterThan(0));
+        assertThat(users.size(), lessThan(40));
+        assertThat(orders.size(), is(users.size() * 2));
+        for (Row order : orders) {
+            assertThat(users.contains(order.getInt("user_id")), is(true));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.cassandraunit;
+
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithSSTablesShaping {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "shapingkeyspace"),
+            twoSSTablesPerTable());
+
+    private static LoadingOption twoSSTablesPerTable() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setSSTableCountPerTable(2);
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldLoadDataIntoTwoSSTables() throws Exception {
+        assertThat(EmbeddedCassandraServerHelper.getSSTableCount("shapingkeyspace", "testcqltable"), is(2));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+    }
+
+    @Test
+    public void shouldLoadDataOfEachTableIntoItsOwnChunks() throws Exception {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setSSTableCountPerTable(4);
+        new CQLDataLoader(cassandraCQLUnit.session).load(new ClassPathCQLDataSet("cql/sampledTables.cql", "shapingtableskeyspace"),
+                loadingOption);
+
+        assertThat(EmbeddedCassandraServerHelper.getSSTableCount("shapingtableskeyspace", "users"), is(4));
+        assertThat(EmbeddedCassandraServerHelper.getSSTableCount("shapingtableskeyspace", "orders"), is(4));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM orders").all().size(), is(80));
+    }
+
+    @Test
+    public void shouldCompactIntoOneSSTable() throws Exception {
+        EmbeddedCassandraServerHelper.compact("shapingkeyspace");
+        assertThat(EmbeddedCassandraServerHelper.getSSTableCount("shapingkeyspace", "testcqltable"), is(1));
+    }
+
+}
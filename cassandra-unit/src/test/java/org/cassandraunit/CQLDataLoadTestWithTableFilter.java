@@ -0,0 +1,34 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.Schema;
+import org.cassandraunit.dataset.TableFilter;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CQLDataLoadTestWithTableFilter {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/severalTables.cql", "filteredkeyspace"),
+            tableFilter());
+
+    private static LoadingOption tableFilter() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setTableFilter(TableFilter.exclude("events", "comments"));
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldOnlyLoadAcceptedTables() throws Exception {
+        assertThat(Schema.instance.getCFMetaData("filteredkeyspace", "users"), notNullValue());
+        assertThat(Schema.instance.getCFMetaData("filteredkeyspace", "counters"), notNullValue());
+        assertThat(Schema.instance.getCFMetaData("filteredkeyspace", "events"), nullValue());
+        assertThat(Schema.instance.getCFMetaData("filteredkeyspace", "comments"), nullValue());
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM users").all().size(), is(1));
+    }
+}
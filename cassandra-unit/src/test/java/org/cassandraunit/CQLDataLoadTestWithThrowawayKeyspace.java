@@ -0,0 +1,61 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.compaction.SizeTieredCompactionStrategy;
+import org.cassandraunit.dataset.TableOptions;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithThrowawayKeyspace {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/fixtureTables.cql", "throwawaykeyspace"),
+            throwawayKeyspace());
+
+    private static LoadingOption throwawayKeyspace() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setThrowawayKeyspace(true);
+        TableOptions usersOptions = TableOptions.fixture();
+        usersOptions.setCaching("keys_only");
+        loadingOption.setTableOptions("users", usersOptions);
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldCreateKeyspaceWithoutDurableWrites() throws Exception {
+        assertThat(Schema.instance.getKSMetaData("throwawaykeyspace").durableWrites, is(false));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM orders WHERE user_id = 1").all().size(), is(2));
+    }
+
+    @Test
+    public void shouldCreateTablesWithFixtureOptions() throws Exception {
+        CFMetaData orders = Schema.instance.getCFMetaData("throwawaykeyspace", "orders");
+        assertThat(orders.getGcGraceSeconds(), is(0));
+        assertThat(orders.getCaching(), is(CFMetaData.Caching.NONE));
+        assertThat(orders.compactionStrategyClass.getName(), is(SizeTieredCompactionStrategy.class.getName()));
+    }
+
+    @Test
+    public void shouldCreateTablesWithOptionsOfTheirOwn() throws Exception {
+        CFMetaData users = Schema.instance.getCFMetaData("throwawaykeyspace", "users");
+        assertThat(users.getGcGraceSeconds(), is(0));
+        assertThat(users.getCaching(), is(CFMetaData.Caching.KEYS_ONLY));
+        assertThat(users.getComment(), is("users of the fixture"));
+    }
+
+    @Test
+    public void shouldCreateKeyspaceWithoutDurableWritesInOneSchemaMigration() throws Exception {
+        LoadingOption loadingOption = throwawayKeyspace();
+        loadingOption.setBulkSchema(true);
+        new CQLDataLoader(cassandraCQLUnit.session).load(new ClassPathCQLDataSet("cql/fixtureTables.cql", "throwawaykeyspace"),
+                loadingOption);
+
+        assertThat(Schema.instance.getKSMetaData("throwawaykeyspace").durableWrites, is(false));
+        assertThat(Schema.instance.getCFMetaData("throwawaykeyspace", "orders").getGcGraceSeconds(), is(0));
+    }
+}
@@ -0,0 +1,82 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.Keyspace;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CQLDataLoadTestWithUnchangedDataSetSkipping {
+
+    @Rule
+    public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "skippingkeyspace"),
+            skipUnchangedDataSet());
+
+    private static LoadingOption skipUnchangedDataSet() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setSkipUnchangedDataSet(true);
+        return loadingOption;
+    }
+
+    @Test
+    public void shouldSkipLoadingTheSameDataSetAgain() throws Exception {
+        long writeCount = getWriteCount();
+
+        load("cql/simple.cql");
+
+        assertThat(getWriteCount(), is(writeCount));
+        assertThat(cassandraCQLUnit.session.getLoggedKeyspace(), is("skippingkeyspace"));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+    }
+
+    @Test
+    public void shouldLoadAgainAKeyspaceWhoseSchemaChangedSinceLoaded() throws Exception {
+        createTableOutsideDataSet();
+
+        load("cql/simple.cql");
+
+        assertThat(hasTableOutsideDataSet(), is(false));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+    }
+
+    @Test
+    public void shouldLoadAgainAKeyspaceWrittenSinceLoaded() throws Exception {
+        createTableOutsideDataSet();
+        cassandraCQLUnit.session.execute("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'new')");
+
+        load("cql/simple.cql");
+
+        assertThat(hasTableOutsideDataSet(), is(false));
+        assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+    }
+
+    @Test
+    public void shouldLoadAnotherDataSet() throws Exception {
+        createTableOutsideDataSet();
+
+        load("cql/severalTables.cql");
+
+        assertThat(hasTableOutsideDataSet(), is(false));
+    }
+
+    private void load(String dataSetLocation) {
+        new CQLDataLoader(cassandraCQLUnit.session).load(new ClassPathCQLDataSet(dataSetLocation, "skippingkeyspace"),
+                skipUnchangedDataSet());
+    }
+
+    /* a table created outside the dataset, gone when the keyspace is created again */
+    private void createTableOutsideDataSet() {
+        cassandraCQLUnit.session.execute("CREATE TABLE IF NOT EXISTS outsideDataSet (id int PRIMARY KEY)");
+    }
+
+    private long getWriteCount() {
+        return Keyspace.open("skippingkeyspace").getColumnFamilyStore("testcqltable").metric.writeLatency.latency.count();
+    }
+
+    private boolean hasTableOutsideDataSet() {
+        return Schema.instance.getCFMetaData("skippingkeyspace", "outsidedataset") != null;
+    }
+}
@@ -0,0 +1,91 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.KeyspaceMetadata;
+import org.apache.cassandra.config.Schema;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.ParallelComputer;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+public class CQLDataLoadTestWithUniqueKeyspace {
+
+    @Test
+    public void shouldRunTestsInParallelEachInItsOwnKeyspace() throws Exception {
+        ParallelTests.keyspaces.clear();
+        Result result = JUnitCore.runClasses(ParallelComputer.methods(), ParallelTests.class);
+        assertThat(result.getFailures().toString(), result.wasSuccessful(), is(true));
+        assertThat(ParallelTests.keyspaces.size(), is(3));
+    }
+
+    @Test
+    public void shouldDropEveryKeyspaceTheDataSetWasRenamedTo() throws Exception {
+        CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/qualifiedNames.cql", "mykeyspace"),
+                uniqueKeyspace());
+        cassandraCQLUnit.before();
+        List<String> renamedKeyspaces = new ArrayList<String>();
+        for (KeyspaceMetadata keyspace : cassandraCQLUnit.cluster.getMetadata().getKeyspaces()) {
+            if (keyspace.getName().startsWith("mykeyspace_")) {
+                renamedKeyspaces.add(keyspace.getName());
+            }
+        }
+        assertThat(renamedKeyspaces.size(), is(2));
+        /* the keyspace the test ends in doesn't tell the keyspaces to drop */
+        cassandraCQLUnit.session.execute("USE system");
+        cassandraCQLUnit.after();
+
+        for (String keyspace : renamedKeyspaces) {
+            assertThat(Schema.instance.getKSMetaData(keyspace), is(nullValue()));
+        }
+    }
+
+    private static LoadingOption uniqueKeyspace() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setUniqueKeyspace(true);
+        return loadingOption;
+    }
+
+    public static class ParallelTests {
+
+        static final Set<String> keyspaces = Collections.synchronizedSet(new HashSet<String>());
+
+        @Rule
+        public CassandraCQLUnit cassandraCQLUnit = new CassandraCQLUnit(new ClassPathCQLDataSet("cql/simple.cql", "uniquekeyspace"),
+                uniqueKeyspace());
+
+        @Test
+        public void shouldInsertARow() throws Exception {
+            insertAndCount();
+        }
+
+        @Test
+        public void shouldInsertAnotherRow() throws Exception {
+            insertAndCount();
+        }
+
+        @Test
+        public void shouldInsertYetAnotherRow() throws Exception {
+            insertAndCount();
+        }
+
+        private void insertAndCount() {
+            String keyspace = cassandraCQLUnit.session.getLoggedKeyspace();
+            assertThat(keyspace, startsWith("uniquekeyspace_"));
+            keyspaces.add(keyspace);
+            cassandraCQLUnit.session.execute("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'new')");
+            assertThat(cassandraCQLUnit.session.execute("SELECT * FROM testCQLTable").all().size(), is(4));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.UnavailableException;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CassandraCQLClusterUnitTest {
+
+    @Rule
+    public CassandraCQLClusterUnit cassandraCQLClusterUnit = new CassandraCQLClusterUnit(new ClassPathCQLDataSet("cql/replicatedKeyspace.cql", false, false), 2);
+
+    @Test
+    public void shouldReadFromAllReplicasOfTheCluster() throws Exception {
+        assertThat(cassandraCQLClusterUnit.cluster.getMetadata().getAllHosts().size(), is(2));
+        Statement select = new SimpleStatement("SELECT * FROM testCQLTable").setConsistencyLevel(ConsistencyLevel.ALL);
+        assertThat(cassandraCQLClusterUnit.session.execute(select).all().size(), is(1));
+    }
+
+    @Test(expected = UnavailableException.class)
+    public void shouldNotReadFromAllReplicasWithANodeDown() throws Exception {
+        cassandraCQLClusterUnit.getLauncher().stopNode(2);
+        try {
+            Statement select = new SimpleStatement("SELECT * FROM testCQLTable").setConsistencyLevel(ConsistencyLevel.ONE);
+            assertThat(cassandraCQLClusterUnit.session.execute(select).all().size(), is(1));
+            select.setConsistencyLevel(ConsistencyLevel.ALL);
+            cassandraCQLClusterUnit.session.execute(select);
+        } finally {
+            cassandraCQLClusterUnit.getLauncher().startNode(2);
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.cassandraunit;
+
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.beans.HCounterColumn;
+import me.prettyprint.hector.api.ddl.KeyspaceDefinition;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.SliceCounterQuery;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.cassandraunit.utils.MockDataSetHelper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DataLoaderBulkSchemaTest {
+
+    private static final String CLUSTER_NAME = "TestClusterBulkSchema";
+    private static final String HOST = "localhost:9171";
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+    }
+
+    @Test
+    public void shouldCreateKeyspaceAndColumnFamiliesInOneMigration() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setBulkSchema(true);
+        DataLoader dataLoader = new DataLoader(CLUSTER_NAME, HOST);
+        /* twice, to go through the drop of the existing keyspace */
+        dataLoader.load(MockDataSetHelper.getMockDataSetWithDefinedValuesSimple(), loadingOption);
+        dataLoader.load(MockDataSetHelper.getMockDataSetWithDefinedValuesSimple(), loadingOption);
+
+        Cluster cluster = HFactory.getOrCreateCluster(CLUSTER_NAME, HOST);
+        KeyspaceDefinition keyspaceDefinition = cluster.describeKeyspace("otherKeyspaceName");
+        assertThat(keyspaceDefinition.getCfDefs().size(), is(MockDataSetHelper.getMockDataSetWithDefinedValuesSimple()
+                .getColumnFamilies().size()));
+
+        SliceCounterQuery<Long, String> query = HFactory.createCounterSliceQuery(
+                HFactory.createKeyspace("otherKeyspaceName", cluster), LongSerializer.get(), StringSerializer.get());
+        query.setColumnFamily("beautifulColumnFamilyName6").setKey(10L).setRange(null, null, false, 100);
+        List<HCounterColumn<String>> columns = query.execute().get().getColumns();
+        assertThat(columns.size(), is(2));
+        assertThat(columns.get(1).getValue(), is(12L));
+    }
+}
@@ -0,0 +1,50 @@
+package org.cassandraunit;
+
+import me.prettyprint.cassandra.model.IndexedSlicesQuery;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.factory.HFactory;
+import org.cassandraunit.dataset.json.ClassPathJsonDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DataLoaderDeferredIndexCreationTest {
+
+    private static final String CLUSTER_NAME = "TestClusterDeferredIndexCreation";
+    private static final String HOST = "localhost:9171";
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+    }
+
+    @Test
+    public void shouldCreateIndexesOnceDataIsLoaded() {
+        DataLoader dataLoader = new DataLoader(CLUSTER_NAME, HOST);
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setDeferIndexCreation(true);
+
+        dataLoader.load(new ClassPathJsonDataSet("json/dataSetWithSecondaryIndexAndRows.json"), loadingOption);
+        assertThat(usersLivingIn("Paris"), is(2));
+
+        /* indexes dropped along with their keyspace are built again */
+        dataLoader.load(new ClassPathJsonDataSet("json/dataSetWithSecondaryIndexAndRows.json"), loadingOption);
+        assertThat(usersLivingIn("Lyon"), is(1));
+    }
+
+    private int usersLivingIn(String city) {
+        Cluster cluster = HFactory.getOrCreateCluster(CLUSTER_NAME, HOST);
+        Keyspace keyspace = HFactory.createKeyspace("deferredIndexKeyspace", cluster);
+        IndexedSlicesQuery<String, String, String> query = HFactory.createIndexedSlicesQuery(keyspace,
+                StringSerializer.get(), StringSerializer.get(), StringSerializer.get());
+        query.setColumnFamily("users");
+        query.addEqualsExpression("city", city);
+        query.setColumnNames("city");
+        return query.execute().get().getCount();
+    }
+}
@@ -0,0 +1,79 @@
+package org.cassandraunit;
+
+import me.prettyprint.cassandra.serializers.BytesArraySerializer;
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.serializers.UUIDSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.beans.HCounterColumn;
+import me.prettyprint.hector.api.beans.HCounterSuperColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.SliceCounterQuery;
+import me.prettyprint.hector.api.query.SliceQuery;
+import me.prettyprint.hector.api.query.SuperSliceCounterQuery;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.cassandraunit.utils.MockDataSetHelper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DataLoaderInProcessTest {
+
+    private static final String CLUSTER_NAME = "TestClusterInProcess";
+    private static final String HOST = "localhost:9171";
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setInProcess(true);
+        new DataLoader(CLUSTER_NAME, HOST).load(MockDataSetHelper.getMockDataSetWithDefinedValuesSimple(), loadingOption);
+    }
+
+    @Test
+    public void shouldLoadStandardRowInProcess() {
+        SliceQuery<UUID, String, byte[]> query = HFactory.createSliceQuery(keyspace(), UUIDSerializer.get(),
+                StringSerializer.get(), BytesArraySerializer.get());
+        query.setColumnFamily("beautifulColumnFamilyName").setKey(UUID.fromString("13816710-1dd2-11b2-879a-782bcb80ff6a"))
+                .setRange(null, null, false, 100);
+        List<HColumn<String, byte[]>> columns = query.execute().get().getColumns();
+        assertThat(columns.size(), is(2));
+        assertThat(columns.get(0).getName(), is("name11"));
+        assertThat(columns.get(0).getValue(), is(new byte[]{0x11}));
+    }
+
+    @Test
+    public void shouldLoadCounterRowInProcess() {
+        SliceCounterQuery<Long, String> query = HFactory.createCounterSliceQuery(keyspace(), LongSerializer.get(),
+                StringSerializer.get());
+        query.setColumnFamily("beautifulColumnFamilyName6").setKey(10L).setRange(null, null, false, 100);
+        List<HCounterColumn<String>> columns = query.execute().get().getColumns();
+        assertThat(columns.size(), is(2));
+        assertThat(columns.get(0).getName(), is("counter11"));
+        assertThat(columns.get(0).getValue(), is(11L));
+    }
+
+    @Test
+    public void shouldLoadCounterSuperRowInProcess() {
+        SuperSliceCounterQuery<Long, String, String> query = HFactory.createSuperSliceCounterQuery(keyspace(),
+                LongSerializer.get(), StringSerializer.get(), StringSerializer.get());
+        query.setColumnFamily("beautifulColumnFamilyName7").setKey(10L).setRange(null, null, false, 100);
+        List<HCounterSuperColumn<String, String>> superColumns = query.execute().get().getSuperColumns();
+        assertThat(superColumns.size(), is(1));
+        assertThat(superColumns.get(0).getColumns().size(), is(2));
+        assertThat(superColumns.get(0).getColumns().get(1).getName(), is("counter112"));
+        assertThat(superColumns.get(0).getColumns().get(1).getValue(), is(112L));
+    }
+
+    private Keyspace keyspace() {
+        Cluster cluster = HFactory.getOrCreateCluster(CLUSTER_NAME, HOST);
+        return HFactory.createKeyspace("otherKeyspaceName", cluster);
+    }
+}
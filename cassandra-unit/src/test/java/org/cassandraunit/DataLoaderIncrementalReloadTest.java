@@ -0,0 +1,97 @@
+package org.cassandraunit;
+
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.cassandra.serializers.UUIDSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.SliceCounterQuery;
+import me.prettyprint.hector.api.query.SliceQuery;
+import org.cassandraunit.dataset.DataSet;
+import org.cassandraunit.model.ColumnFamilyModel;
+import org.cassandraunit.type.GenericType;
+import org.cassandraunit.type.GenericTypeEnum;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.cassandraunit.utils.MockDataSetHelper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DataLoaderIncrementalReloadTest {
+
+    private static final String CLUSTER_NAME = "TestClusterIncrementalReload";
+    private static final String HOST = "localhost:9171";
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+    }
+
+    @Test
+    public void shouldReloadChangedRows() {
+        DataLoader dataLoader = new DataLoader(CLUSTER_NAME, HOST);
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setIncrementalReload(true);
+        dataLoader.load(MockDataSetHelper.getMockDataSetWithDefinedValuesSimple(), loadingOption);
+        assertThat(columnNames("13816710-1dd2-11b2-879a-782bcb80ff6a"), is(columns("name11", "name12")));
+
+        DataSet changedDataSet = MockDataSetHelper.getMockDataSetWithDefinedValuesSimple();
+        columnFamily(changedDataSet, "beautifulColumnFamilyName").getRows().get(0).getColumns().remove(1);
+        columnFamily(changedDataSet, "beautifulColumnFamilyName6").getRows().get(0).getColumns().get(0)
+                .setValue(new GenericType("12", GenericTypeEnum.COUNTER_TYPE));
+        dataLoader.load(changedDataSet, loadingOption);
+
+        assertThat(columnNames("13816710-1dd2-11b2-879a-782bcb80ff6a"), is(columns("name11")));
+        assertThat(columnNames("13818e20-1dd2-11b2-879a-782bcb80ff6a"), is(columns("name21", "name22")));
+        /* counter tables are truncated, not incremented again */
+        assertThat(counter11(), is(12L));
+    }
+
+    private ColumnFamilyModel columnFamily(DataSet dataSet, String name) {
+        for (ColumnFamilyModel columnFamily : dataSet.getColumnFamilies()) {
+            if (columnFamily.getName().equals(name)) {
+                return columnFamily;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private List<String> columnNames(String key) {
+        SliceQuery<UUID, String, String> query = HFactory.createSliceQuery(keyspace(), UUIDSerializer.get(),
+                StringSerializer.get(), StringSerializer.get());
+        query.setColumnFamily("beautifulColumnFamilyName").setKey(UUID.fromString(key)).setRange(null, null, false, 100);
+        List<String> columnNames = new ArrayList<String>();
+        for (HColumn<String, String> column : query.execute().get().getColumns()) {
+            columnNames.add(column.getName());
+        }
+        return columnNames;
+    }
+
+    private List<String> columns(String... names) {
+        List<String> columnNames = new ArrayList<String>();
+        for (String name : names) {
+            columnNames.add(name);
+        }
+        return columnNames;
+    }
+
+    private long counter11() {
+        SliceCounterQuery<Long, String> query = HFactory.createCounterSliceQuery(keyspace(), LongSerializer.get(),
+                StringSerializer.get());
+        query.setColumnFamily("beautifulColumnFamilyName6").setKey(10L).setRange(null, null, false, 100);
+        return query.execute().get().getColumns().get(0).getValue();
+    }
+
+    private Keyspace keyspace() {
+        Cluster cluster = HFactory.getOrCreateCluster(CLUSTER_NAME, HOST);
+        return HFactory.createKeyspace("otherKeyspaceName", cluster);
+    }
+}
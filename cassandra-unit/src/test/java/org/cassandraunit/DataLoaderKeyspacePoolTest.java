@@ -0,0 +1,81 @@
+package org.cassandraunit;
+
+import me.prettyprint.cassandra.serializers.LongSerializer;
+import me.prettyprint.cassandra.serializers.StringSerializer;
+import me.prettyprint.hector.api.Cluster;
+import me.prettyprint.hector.api.Keyspace;
+import me.prettyprint.hector.api.beans.HCounterColumn;
+import me.prettyprint.hector.api.factory.HFactory;
+import me.prettyprint.hector.api.query.SliceCounterQuery;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.cassandraunit.utils.MockDataSetHelper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class DataLoaderKeyspacePoolTest {
+
+    private static final String CLUSTER_NAME = "TestClusterPool";
+    private static final String HOST = "localhost:9171";
+
+    private static KeyspacePool pool;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+        pool = new KeyspacePool(MockDataSetHelper.getMockDataSetWithDefinedValuesSimple(), 2, new LoadingOption(),
+                CLUSTER_NAME, HOST);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        pool.close();
+    }
+
+    @Test
+    public void shouldLeaseResetCopies() {
+        KeyspacePool.PooledKeyspace first = pool.lease();
+        KeyspacePool.PooledKeyspace second = pool.lease();
+        assertThat(first.getName(), not(is(second.getName())));
+        assertThat(counter11(first.getName()), is(11L));
+
+        HFactory.createMutator(keyspace(first.getName()), LongSerializer.get())
+                .incrementCounter(10L, "beautifulColumnFamilyName6", "counter11", 5L);
+        assertThat(counter11(first.getName()), is(16L));
+        pool.release(first);
+        pool.release(second);
+
+        KeyspacePool.PooledKeyspace third = pool.lease();
+        KeyspacePool.PooledKeyspace fourth = pool.lease();
+        assertThat(counter11(third.getName()), is(11L));
+        assertThat(counter11(fourth.getName()), is(11L));
+        pool.release(third);
+        pool.release(fourth);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotReleaseAKeyspaceTwice() {
+        KeyspacePool.PooledKeyspace pooledKeyspace = pool.lease();
+        pool.release(pooledKeyspace);
+        pool.release(pooledKeyspace);
+    }
+
+    private long counter11(String keyspaceName) {
+        SliceCounterQuery<Long, String> query = HFactory.createCounterSliceQuery(keyspace(keyspaceName), LongSerializer.get(),
+                StringSerializer.get());
+        query.setColumnFamily("beautifulColumnFamilyName6").setKey(10L).setRange(null, null, false, 100);
+        List<HCounterColumn<String>> columns = query.execute().get().getColumns();
+        return columns.get(0).getValue();
+    }
+
+    private Keyspace keyspace(String keyspaceName) {
+        Cluster cluster = HFactory.getOrCreateCluster(CLUSTER_NAME, HOST);
+        return HFactory.createKeyspace(keyspaceName, cluster);
+    }
+}
@@ -0,0 +1,59 @@
+package org.cassandraunit;
+
+import org.apache.cassandra.config.CFMetaData;
+import org.apache.cassandra.config.Schema;
+import org.apache.cassandra.db.compaction.SizeTieredCompactionStrategy;
+import org.cassandraunit.dataset.TableOptions;
+import org.cassandraunit.dataset.json.ClassPathJsonDataSet;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DataLoaderThrowawayKeyspaceTest {
+
+    private static final String CLUSTER_NAME = "TestClusterThrowawayKeyspace";
+    private static final String HOST = "localhost:9171";
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+    }
+
+    @Test
+    public void shouldCreateKeyspaceWithoutDurableWritesAndTablesWithFixtureOptions() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setThrowawayKeyspace(true);
+
+        new DataLoader(CLUSTER_NAME, HOST).load(new ClassPathJsonDataSet("json/dataSetWithSecondaryIndexAndRows.json"),
+                loadingOption);
+
+        assertThat(Schema.instance.getKSMetaData("deferredIndexKeyspace").durableWrites, is(false));
+        CFMetaData users = Schema.instance.getCFMetaData("deferredIndexKeyspace", "users");
+        assertThat(users.getGcGraceSeconds(), is(0));
+        assertThat(users.getCaching(), is(CFMetaData.Caching.NONE));
+        assertThat(users.compactionStrategyClass.getName(), is(SizeTieredCompactionStrategy.class.getName()));
+    }
+
+    @Test
+    public void shouldKeepTableOptionsOfTheirOwnAlongWithDeferredIndexes() {
+        LoadingOption loadingOption = new LoadingOption();
+        loadingOption.setThrowawayKeyspace(true);
+        loadingOption.setBulkSchema(true);
+        loadingOption.setDeferIndexCreation(true);
+        TableOptions usersOptions = TableOptions.fixture();
+        usersOptions.setCaching("all");
+        usersOptions.setGcGraceSeconds(60);
+        loadingOption.setTableOptions("users", usersOptions);
+
+        new DataLoader(CLUSTER_NAME, HOST).load(new ClassPathJsonDataSet("json/dataSetWithSecondaryIndexAndRows.json"),
+                loadingOption);
+
+        assertThat(Schema.instance.getKSMetaData("deferredIndexKeyspace").durableWrites, is(false));
+        CFMetaData users = Schema.instance.getCFMetaData("deferredIndexKeyspace", "users");
+        assertThat(users.getGcGraceSeconds(), is(60));
+        assertThat(users.getCaching(), is(CFMetaData.Caching.ALL));
+    }
+}
@@ -0,0 +1,100 @@
+package org.cassandraunit;
+
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.exceptions.DriverException;
+import org.apache.cassandra.config.Schema;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.utils.CQLSessionRegistry;
+import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WriteRollbackRuleTest {
+
+    private static Session session;
+
+    @Rule
+    public WriteRollbackRule rollback = new WriteRollbackRule("rollbackkeyspace");
+
+    @BeforeClass
+    public static void loadFixture() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+        session = CQLSessionRegistry.acquire("localhost", 9142);
+        new CQLDataLoader(session).load(new ClassPathCQLDataSet("cql/simple.cql", "rollbackkeyspace"));
+        session.execute("CREATE TABLE visits (id int PRIMARY KEY, count counter)");
+    }
+
+    @AfterClass
+    public static void release() {
+        CQLSessionRegistry.release(session);
+    }
+
+    @Test
+    public void shouldStartFromTheFixtureAndWrite() throws Exception {
+        assertFixture();
+        assertWriteVisible();
+        write();
+    }
+
+    @Test
+    public void shouldStartFromTheFixtureAgainAndWrite() throws Exception {
+        assertFixture();
+        assertWriteVisible();
+        write();
+    }
+
+    @Test(expected = DriverException.class)
+    public void shouldRejectWritesTooFarAheadOfTheClock() throws Exception {
+        session.execute("UPDATE rollbackkeyspace.testCQLTable USING TIMESTAMP 99999999999999999 SET value = 'changed' "
+                + "WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+    }
+
+    @Test
+    public void shouldKeepTheTriggersOnceTheRuleEnds() throws Throwable {
+        rollback.after();
+        try {
+            assertThat(Schema.instance.getCFMetaData("rollbackkeyspace", "testcqltable").getTriggers().isEmpty(), is(false));
+            session.execute("UPDATE rollbackkeyspace.testCQLTable SET value = 'untracked' WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+            assertThat(rollback.getTrackedPartitionCount(), is(0));
+        } finally {
+            session.execute("UPDATE rollbackkeyspace.testCQLTable SET value = 'Cql loaded string' WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+            rollback.before();
+        }
+    }
+
+    private void assertFixture() {
+        assertThat(rollback.getTrackedPartitionCount(), is(0));
+        assertThat(session.execute("SELECT * FROM rollbackkeyspace.testCQLTable").all().size(), is(3));
+        assertThat(session.execute("SELECT value FROM rollbackkeyspace.testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737")
+                .one().getString("value"), is("Cql loaded string"));
+    }
+
+    @Test
+    public void shouldLeaveCounterTablesWritable() throws Exception {
+        session.execute("UPDATE rollbackkeyspace.visits SET count = count + 1 WHERE id = 1");
+        assertThat(rollback.getTrackedPartitionCount(), is(0));
+    }
+
+    /* the partitions restored by the rollback of the previous test don't shadow the writes of this one */
+    private void assertWriteVisible() {
+        session.execute("UPDATE rollbackkeyspace.testCQLTable SET value = 'written' WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+        assertThat(session.execute("SELECT value FROM rollbackkeyspace.testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737")
+                .one().getString("value"), is("written"));
+    }
+
+    private void write() {
+        /* a client timestamp ahead of the clock, still rolled back */
+        long timestamp = System.currentTimeMillis() * 1000 + 500000;
+        session.execute("INSERT INTO rollbackkeyspace.testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570740,'new')");
+        session.execute("UPDATE rollbackkeyspace.testCQLTable USING TIMESTAMP " + timestamp + " SET value = 'changed' "
+                + "WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570737");
+        session.execute("DELETE FROM rollbackkeyspace.testCQLTable WHERE id=1690e8da-5bf8-49e8-9583-4dff8a570738");
+        assertThat(session.execute("SELECT * FROM rollbackkeyspace.testCQLTable").all().size(), is(3));
+        assertThat(rollback.getTrackedPartitionCount(), is(3));
+    }
+}
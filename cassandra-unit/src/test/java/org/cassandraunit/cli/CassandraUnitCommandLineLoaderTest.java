@@ -5,6 +5,7 @@ import com.datastax.driver.core.Session;
 import me.prettyprint.hector.api.Cluster;
 import me.prettyprint.hector.api.Keyspace;
 import me.prettyprint.hector.api.factory.HFactory;
+import org.apache.cassandra.config.Schema;
 import org.apache.commons.cli.CommandLine;
 import org.cassandraunit.utils.EmbeddedCassandraServerHelper;
 import org.cassandraunit.utils.FileTmpHelper;
@@ -81,6 +82,15 @@ public class CassandraUnitCommandLineLoaderTest {
         assertThat(commandLine.hasOption("onlySchema"), is(true));
     }
 
+    @Test
+    public void shouldLaunchCliAndGetThrowawayOption() throws Exception {
+        String[] args = {"-f", "dataset.xsd", "-h", "myHost", "-p", "9160", "-t"};
+        CassandraUnitCommandLineLoader.parseCommandLine(args);
+        CommandLine commandLine = CassandraUnitCommandLineLoader.getCommandLine();
+        assertThat(commandLine.hasOption("t"), is(true));
+        assertThat(commandLine.hasOption("throwaway"), is(true));
+    }
+
     @Test
     public void shouldLaunchCliAndGetReplicationFactorOption() throws Exception {
         String[] args = {"-f", "dataset.xsd", "-h", "myHost", "-p", "9160", "-r", "1"};
@@ -204,4 +214,19 @@ public class CassandraUnitCommandLineLoaderTest {
 
         EmbeddedCassandraServerHelper.cleanEmbeddedCassandra();
     }
+
+    @Test
+    public void shouldLoadCQLDataSetIntoAThrowawayKeyspace() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+
+        String targetFileDataSet = FileTmpHelper.copyClassPathDataSetToTmpDirectory(this.getClass(),
+                "/cql/simpleWithKeyspaceCreation.cql");
+        String[] args = {"-f", targetFileDataSet, "-h", "localhost", "-p", "9142", "-t"};
+        CassandraUnitCommandLineLoader.main(args);
+
+        assertThat(Schema.instance.getKSMetaData("mykeyspace").durableWrites, is(false));
+        assertThat(Schema.instance.getCFMetaData("mykeyspace", "testcqltable").getGcGraceSeconds(), is(0));
+
+        EmbeddedCassandraServerHelper.cleanEmbeddedCassandra();
+    }
 }
@@ -2,9 +2,19 @@ package org.cassandraunit.dataset.cql;
 
 import org.cassandraunit.dataset.CQLDataSet;
 import org.cassandraunit.dataset.ParseException;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -53,6 +63,61 @@ public class ClasspathCQLDataSetTest {
         assertThat(dataSet.getCQLStatements().get(3),is("INSERT INTO testCQLTable(id, value) values(1690e8da-5bf8-49e8-9583-4dff8a570739,'BLA1');"));
     }
 
+    @Test
+    public void shouldOnlyGetStatementsOfIncludedTables() {
+        CQLDataSet dataSet = new ClassPathCQLDataSet("cql/severalTables.cql", "mykeyspace", TableFilter.include("USERS", "counters"));
+        assertThat(dataSet.getCQLStatements().size(), is(4));
+        assertThat(dataSet.getCQLStatements().get(0), is("CREATE TABLE users (id int, name varchar, PRIMARY KEY(id));"));
+        assertThat(dataSet.getCQLStatements().get(1), is("CREATE TABLE IF NOT EXISTS counters (id int, hits counter, PRIMARY KEY(id));"));
+        assertThat(dataSet.getCQLStatements().get(2), is("INSERT INTO users(id, name) values(1, 'user1');"));
+        assertThat(dataSet.getCQLStatements().get(3), is("UPDATE counters SET hits = hits + 2 WHERE id = 1;"));
+    }
+
+    @Test
+    public void shouldLeaveOutStatementsOfExcludedTables() {
+        CQLDataSet dataSet = new ClassPathCQLDataSet("cql/multiLineStatements.cql", "mykeyspace", TableFilter.exclude("testCQLTable"));
+        assertThat(dataSet.getCQLStatements().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldOnlyGetWritesOfSampledPartitions() {
+        List<String> statements = new ClassPathCQLDataSet("cql/sampledTables.cql", "mykeyspace", null,
+                new RowSampling(0.5, 42).join("orders", "users")).getCQLStatements();
+
+        Set<String> users = new HashSet<String>();
+        Set<String> orderUsers = new HashSet<String>();
+        Set<String> renamedUsers = new HashSet<String>();
+        for (String statement : statements) {
+            Matcher user = Pattern.compile("INSERT INTO users \\(id, name\\) VALUES \\((\\d+),").matcher(statement);
+            Matcher order = Pattern.compile("INSERT INTO orders .* VALUES \\((\\d+),").matcher(statement);
+            Matcher renamedUser = Pattern.compile("UPDATE users .* WHERE id = (\\d+);").matcher(statement);
+            if (user.lookingAt()) {
+                users.add(user.group(1));
+            } else if (order.lookingAt()) {
+                orderUsers.add(order.group(1));
+            } else if (renamedUser.lookingAt()) {
+                renamedUsers.add(renamedUser.group(1));
+            }
+        }
+        assertThat(statements.get(0).startsWith("CREATE TABLE users"), is(true));
+        assertThat(statements.get(1).startsWith("CREATE TABLE orders"), is(true));
+        assertThat(users.size(), greaterThan(0));
+        assertThat(users.size(), lessThan(40));
+        assertThat(orderUsers, is(users));
+        assertThat(users.containsAll(renamedUsers), is(true));
+    }
+
+    @Test
+    public void shouldAlwaysSampleTheSamePartitionsWithTheSameSeed() {
+        RowSampling rowSampling = new RowSampling(0.2, 7);
+        List<String> statements = new ClassPathCQLDataSet("cql/sampledTables.cql", "mykeyspace", null, rowSampling).getCQLStatements();
+
+        assertThat(new ClassPathCQLDataSet("cql/sampledTables.cql", "mykeyspace", null, rowSampling).getCQLStatements(), is(statements));
+        assertThat(new ClassPathCQLDataSet("cql/sampledTables.cql", "mykeyspace", null, new RowSampling(0.2, 8)).getCQLStatements()
+                .equals(statements), is(false));
+        assertThat(new ClassPathCQLDataSet("cql/sampledTables.cql", "mykeyspace", null, new RowSampling(0, 7)).getCQLStatements()
+                .size(), is(2));
+    }
 
     @Test
     public void shouldGetDefinedTestKeyspaceName() {
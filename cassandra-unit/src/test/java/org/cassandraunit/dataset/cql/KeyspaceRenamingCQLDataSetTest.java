@@ -0,0 +1,53 @@
+package org.cassandraunit.dataset.cql;
+
+import org.cassandraunit.CQLDataLoader;
+import org.cassandraunit.dataset.CQLDataSet;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class KeyspaceRenamingCQLDataSetTest {
+
+    @Test
+    public void shouldRenameTheKeyspaceOfTheDataSet() {
+        CQLDataSet dataSet = new KeyspaceRenamingCQLDataSet(new ClassPathCQLDataSet("cql/qualifiedNames.cql", "mykeyspace"), "test_1");
+        assertThat(dataSet.getKeyspaceName(), is("test_1"));
+        List<String> statements = dataSet.getCQLStatements();
+        assertThat(statements.get(0), is("CREATE TABLE test_1.users (id int, name varchar, PRIMARY KEY(id));"));
+        /* string values are kept when quoted right before the name */
+        assertThat(statements.get(1), is("INSERT INTO test_1.users(id, name) values(1, 'mykeyspace.users');"));
+    }
+
+    @Test
+    public void shouldRenameOtherKeyspacesCreatedByTheDataSet() {
+        CQLDataSet dataSet = new KeyspaceRenamingCQLDataSet(new ClassPathCQLDataSet("cql/qualifiedNames.cql", "mykeyspace"), "test_1");
+        List<String> statements = dataSet.getCQLStatements();
+        assertThat(statements.get(2), is("CREATE KEYSPACE IF NOT EXISTS test_1_1 WITH replication={'class' : 'SimpleStrategy', 'replication_factor':1};"));
+        assertThat(statements.get(3), is("CREATE TABLE test_1_1.logs (id int, PRIMARY KEY(id));"));
+        assertThat(statements.get(4), is("USE test_1_1;"));
+    }
+
+    @Test
+    public void shouldRenameTheKeyspaceCreatedByADataSetWithoutKeyspace() {
+        CQLDataSet dataSet = new KeyspaceRenamingCQLDataSet(new ClassPathCQLDataSet("cql/simpleWithKeyspaceCreation.cql", false, false), "test_2");
+        assertThat(dataSet.getKeyspaceName(), is("test_2"));
+        assertThat(dataSet.getCQLStatements().get(1), is("USE test_2;"));
+    }
+
+    @Test
+    public void shouldRenameTheDefaultKeyspace() {
+        KeyspaceRenamingCQLDataSet dataSet = new KeyspaceRenamingCQLDataSet(new ClassPathCQLDataSet("cql/simple.cql"), "test_3");
+        assertThat(dataSet.getKeyspaceName(), is("test_3"));
+        assertThat(dataSet.getRenamedKeyspaces().get(CQLDataLoader.DEFAULT_KEYSPACE_NAME), is("test_3"));
+    }
+
+    @Test
+    public void shouldNotNameADataSetWithoutKeyspace() {
+        CQLDataSet dataSet = new KeyspaceRenamingCQLDataSet(new ClassPathCQLDataSet("cql/simple.cql", false, false), "test_4");
+        assertThat(dataSet.getKeyspaceName(), is(nullValue()));
+    }
+}
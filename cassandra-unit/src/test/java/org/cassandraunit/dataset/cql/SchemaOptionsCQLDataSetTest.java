@@ -0,0 +1,53 @@
+package org.cassandraunit.dataset.cql;
+
+import org.cassandraunit.dataset.CQLDataSet;
+import org.cassandraunit.dataset.TableOptions;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SchemaOptionsCQLDataSetTest {
+
+    @Test
+    public void shouldCreateKeyspacesWithoutDurableWrites() {
+        CQLDataSet dataSet = new SchemaOptionsCQLDataSet(new ClassPathCQLDataSet("cql/simpleWithKeyspaceCreation.cql", false, false),
+                false, Collections.<String, TableOptions>emptyMap(), null);
+        List<String> statements = dataSet.getCQLStatements();
+        assertThat(statements.get(0), is("CREATE KEYSPACE mykeyspace WITH replication={'class' : 'SimpleStrategy', 'replication_factor':1} AND durable_writes = false;"));
+        assertThat(statements.get(2), is("CREATE TABLE testCQLTable (id uuid, value varchar, PRIMARY KEY(id));"));
+    }
+
+    @Test
+    public void shouldReplaceTheOptionsOfTheDataSetTables() {
+        CQLDataSet dataSet = new SchemaOptionsCQLDataSet(new ClassPathCQLDataSet("cql/fixtureTables.cql", "mykeyspace"),
+                false, Collections.<String, TableOptions>emptyMap(), TableOptions.fixture());
+        List<String> statements = dataSet.getCQLStatements();
+        assertThat(statements.get(0), is("CREATE TABLE users (id int PRIMARY KEY, name varchar) WITH comment = 'users of the fixture'"
+                + " AND gc_grace_seconds = 0 AND caching = 'none' AND compaction = {'class' : 'SizeTieredCompactionStrategy'};"));
+        assertThat(statements.get(1), is("CREATE TABLE orders (user_id int, id int, amount int, PRIMARY KEY (user_id, id))"
+                + " WITH CLUSTERING ORDER BY (id DESC) AND gc_grace_seconds = 0 AND caching = 'none'"
+                + " AND compaction = {'class' : 'SizeTieredCompactionStrategy'};"));
+        assertThat(statements.get(2), is("INSERT INTO users(id, name) values(1, 'alice');"));
+    }
+
+    @Test
+    public void shouldGiveTablesOptionsOfTheirOwn() {
+        TableOptions usersOptions = new TableOptions();
+        usersOptions.setCaching("keys_only");
+        Map<String, TableOptions> tableOptions = new HashMap<String, TableOptions>();
+        tableOptions.put("USERS", usersOptions);
+        CQLDataSet dataSet = new SchemaOptionsCQLDataSet(new ClassPathCQLDataSet("cql/fixtureTables.cql", "mykeyspace"),
+                true, tableOptions, null);
+        List<String> statements = dataSet.getCQLStatements();
+        assertThat(statements.get(0), is("CREATE TABLE users (id int PRIMARY KEY, name varchar) WITH gc_grace_seconds = 3600"
+                + " AND comment = 'users of the fixture' AND caching = 'keys_only';"));
+        assertThat(statements.get(1), is("CREATE TABLE orders (user_id int, id int, amount int, PRIMARY KEY (user_id, id))"
+                + " WITH CLUSTERING ORDER BY (id DESC) AND compaction = {'class' : 'LeveledCompactionStrategy', 'sstable_size_in_mb' : 10};"));
+    }
+}
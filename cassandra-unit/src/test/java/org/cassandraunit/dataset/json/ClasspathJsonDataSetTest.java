@@ -5,6 +5,8 @@ import me.prettyprint.hector.api.ddl.ColumnType;
 import me.prettyprint.hector.api.ddl.ComparatorType;
 import org.cassandraunit.dataset.DataSet;
 import org.cassandraunit.dataset.ParseException;
+import org.cassandraunit.dataset.RowSampling;
+import org.cassandraunit.dataset.TableFilter;
 import org.cassandraunit.model.*;
 import org.cassandraunit.type.GenericTypeEnum;
 import org.junit.Test;
@@ -45,6 +47,37 @@ public class ClasspathJsonDataSetTest {
         assertThat(actualColumnFamily1.getSubComparatorType(), nullValue());
     }
 
+    @Test
+    public void shouldOnlyGetColumnFamiliesAcceptedByTheTableFilter() {
+        DataSet dataSet = new ClassPathJsonDataSet("json/dataSetDefinedValues.json",
+                new TableFilter(new String[]{"columnFamily1", "columnFamily2"}, new String[]{"columnFamily2"}));
+
+        List<ColumnFamilyModel> actualColumnFamilies = dataSet.getColumnFamilies();
+        assertThat(actualColumnFamilies.size(), is(1));
+        assertThat(actualColumnFamilies.get(0).getName(), is("columnFamily1"));
+    }
+
+    @Test
+    public void shouldOnlyGetRowsOfSampledPartitions() {
+        List<ColumnFamilyModel> allColumnFamilies = new ClassPathJsonDataSet("json/dataSetDefinedValues.json").getColumnFamilies();
+        List<ColumnFamilyModel> sampledColumnFamilies = new ClassPathJsonDataSet("json/dataSetDefinedValues.json", null,
+                new RowSampling(0.5, 42)).getColumnFamilies();
+
+        assertThat(sampledColumnFamilies.size(), is(allColumnFamilies.size()));
+        for (int i = 0; i < allColumnFamilies.size(); i++) {
+            for (RowModel row : allColumnFamilies.get(i).getRows()) {
+                boolean sampled = new RowSampling(0.5, 42).accept(allColumnFamilies.get(i).getName(), row.getKey());
+                boolean kept = false;
+                for (RowModel sampledRow : sampledColumnFamilies.get(i).getRows()) {
+                    kept |= sampledRow.getKey().getValue().equals(row.getKey().getValue());
+                }
+                assertThat(kept, is(sampled));
+            }
+        }
+        assertThat(new ClassPathJsonDataSet("json/dataSetDefinedValues.json", null, new RowSampling(0, 42))
+                .getColumnFamilies().get(0).getRows().isEmpty(), is(true));
+    }
+
     @Test(expected = ParseException.class)
     public void shouldNotGetAJsonDataSetStructureBecauseOfNull() {
         DataSet dataSet = new ClassPathJsonDataSet(null);
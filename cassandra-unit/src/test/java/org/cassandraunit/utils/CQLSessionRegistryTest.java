@@ -0,0 +1,75 @@
+package org.cassandraunit.utils;
+
+import com.datastax.driver.core.Session;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class CQLSessionRegistryTest {
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+    }
+
+    @Test
+    public void shouldShareClustersByHostAndPort() throws Exception {
+        CQLSessionRegistry.closeUnused();
+        Session session = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        Session otherSession = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        assertThat(otherSession, is(not(sameInstance(session))));
+        assertThat(otherSession.getCluster(), is(sameInstance(session.getCluster())));
+        assertThat(CQLSessionRegistry.getReferenceCount("127.0.0.1", 9142), is(2));
+
+        CQLSessionRegistry.release(otherSession);
+        CQLSessionRegistry.release(session);
+        assertThat(CQLSessionRegistry.getReferenceCount("127.0.0.1", 9142), is(0));
+        assertThat(session.isClosed(), is(true));
+
+        /* unused clusters stay open until closed explicitly */
+        Session newSession = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        assertThat(newSession.getCluster(), is(sameInstance(session.getCluster())));
+        CQLSessionRegistry.release(newSession);
+        CQLSessionRegistry.closeUnused();
+        newSession = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        assertThat(newSession.getCluster(), is(not(sameInstance(session.getCluster()))));
+        CQLSessionRegistry.release(newSession);
+    }
+
+    @Test
+    public void shouldNotShareTheKeyspaceInUse() throws Exception {
+        Session session = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        Session otherSession = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        try {
+            session.execute("USE system");
+            assertThat(session.getLoggedKeyspace(), is("system"));
+            assertThat(otherSession.getLoggedKeyspace(), is(nullValue()));
+        } finally {
+            CQLSessionRegistry.release(otherSession);
+            CQLSessionRegistry.release(session);
+        }
+    }
+
+    @Test
+    public void shouldEvictClosedClusters() throws Exception {
+        Session session = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        CQLSessionRegistry.release(session);
+        session.getCluster().close();
+        Session newSession = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        assertThat(newSession.isClosed(), is(false));
+        assertThat(newSession.getCluster(), is(not(sameInstance(session.getCluster()))));
+        CQLSessionRegistry.release(newSession);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotReleaseMoreThanAcquired() throws Exception {
+        Session session = CQLSessionRegistry.acquire("127.0.0.1", 9142);
+        CQLSessionRegistry.release(session);
+        CQLSessionRegistry.release(session);
+    }
+}
@@ -0,0 +1,59 @@
+package org.cassandraunit.utils;
+
+import org.apache.cassandra.dht.ByteOrderedPartitioner;
+import org.apache.cassandra.dht.IPartitioner;
+import org.apache.cassandra.dht.Murmur3Partitioner;
+import org.apache.cassandra.dht.OrderPreservingPartitioner;
+import org.apache.cassandra.dht.RandomPartitioner;
+import org.apache.cassandra.dht.Token;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class CassandraClusterLauncherTest {
+
+    private final CassandraClusterLauncher launcher = new CassandraClusterLauncher(3);
+
+    @Test
+    public void shouldSpaceMurmur3Tokens() throws Exception {
+        assertThat(launcher.getToken(1, Murmur3Partitioner.class.getName()), is(String.valueOf(Long.MIN_VALUE)));
+        assertThat(launcher.getToken(2, "Murmur3Partitioner"), is("-3074457345618258603"));
+        assertOrderedTokens(new Murmur3Partitioner(), Murmur3Partitioner.class.getName());
+    }
+
+    @Test
+    public void shouldSpaceRandomPartitionerTokensFromZero() throws Exception {
+        assertThat(launcher.getToken(1, RandomPartitioner.class.getName()), is("0"));
+        assertThat(launcher.getToken(2, RandomPartitioner.class.getName()), is("56713727820156410577229101238628035242"));
+        assertOrderedTokens(new RandomPartitioner(), RandomPartitioner.class.getName());
+    }
+
+    @Test
+    public void shouldSpaceByteOrderedTokens() throws Exception {
+        assertThat(launcher.getToken(1, ByteOrderedPartitioner.class.getName()), is("0000"));
+        assertThat(launcher.getToken(2, ByteOrderedPartitioner.class.getName()), is("5555"));
+        assertOrderedTokens(new ByteOrderedPartitioner(), ByteOrderedPartitioner.class.getName());
+    }
+
+    @Test(expected = CassandraUnitException.class)
+    public void shouldRejectAPartitionerWithoutTokenSpacing() throws Exception {
+        new CassandraClusterLauncher(2).with("partitioner", OrderPreservingPartitioner.class.getName()).start();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void assertOrderedTokens(IPartitioner partitioner, String partitionerName) throws Exception {
+        Token previous = null;
+        for (int node = 1; node <= launcher.getNodeCount(); node++) {
+            String token = launcher.getToken(node, partitionerName);
+            partitioner.getTokenFactory().validate(token);
+            Token current = partitioner.getTokenFactory().fromString(token);
+            if (previous != null) {
+                assertThat(previous.compareTo(current), lessThan(0));
+            }
+            previous = current;
+        }
+    }
+}
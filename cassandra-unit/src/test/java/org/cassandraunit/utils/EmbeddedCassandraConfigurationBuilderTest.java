@@ -0,0 +1,76 @@
+package org.cassandraunit.utils;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.cassandraunit.exception.CassandraUnitException;
+import org.cassandraunit.utils.EmbeddedCassandraConfigurationBuilder.Preset;
+import org.junit.Test;
+
+public class EmbeddedCassandraConfigurationBuilderTest {
+
+	private static final long ONE_GB = 1024L * 1024 * 1024;
+
+	@Test
+	public void shouldKeepTheBaseConfigurationWithoutPreset() {
+		Map<String, Object> configuration = new EmbeddedCassandraConfigurationBuilder().build();
+		assertThat((String) configuration.get("cluster_name"), is("Test Cluster"));
+		assertThat((Integer) configuration.get("concurrent_reads"), is(32));
+		assertThat(configuration.containsKey("memtable_total_space_in_mb"), is(false));
+	}
+
+	@Test
+	public void shouldSizeALowMemoryConfigurationFromHeapAndProcessors() {
+		Map<String, Object> configuration = new EmbeddedCassandraConfigurationBuilder()
+				.withPreset(Preset.LOW_MEMORY_CI).withMaxHeap(ONE_GB).withAvailableProcessors(2).build();
+		assertThat((Long) configuration.get("memtable_total_space_in_mb"), is(64L));
+		assertThat((Long) configuration.get("key_cache_size_in_mb"), is(16L));
+		assertThat((Integer) configuration.get("concurrent_reads"), is(4));
+		assertThat((Integer) configuration.get("concurrent_writes"), is(2));
+		assertThat((String) configuration.get("memtable_allocator"), is("org.apache.cassandra.utils.HeapAllocator"));
+	}
+
+	@Test
+	public void shouldSizeAThroughputConfigurationFromHeapAndProcessors() {
+		Map<String, Object> configuration = new EmbeddedCassandraConfigurationBuilder()
+				.withPreset(Preset.THROUGHPUT).withMaxHeap(4 * ONE_GB).withAvailableProcessors(4).build();
+		assertThat((Long) configuration.get("memtable_total_space_in_mb"), is(1024L));
+		assertThat((Long) configuration.get("key_cache_size_in_mb"), is(100L));
+		assertThat((Integer) configuration.get("concurrent_writes"), is(32));
+		assertThat((Integer) configuration.get("compaction_throughput_mb_per_sec"), is(0));
+	}
+
+	@Test
+	public void shouldOverridePresetValues() {
+		Map<String, Object> configuration = new EmbeddedCassandraConfigurationBuilder()
+				.withPreset(Preset.LATENCY_REALISTIC).with("concurrent_reads", 2).build();
+		assertThat((Integer) configuration.get("concurrent_reads"), is(2));
+	}
+
+	@Test
+	public void shouldRelocateStorageDirectories() {
+		Map<String, Object> configuration = new EmbeddedCassandraConfigurationBuilder()
+				.withStorageDirectory("/dev/shm/cassandra").build();
+		assertThat(configuration.get("data_file_directories"), is((Object) Arrays.asList("/dev/shm/cassandra/data")));
+		assertThat((String) configuration.get("commitlog_directory"), is("/dev/shm/cassandra/commitlog"));
+		assertThat((String) configuration.get("saved_caches_directory"), is("/dev/shm/cassandra/saved_caches"));
+	}
+
+	@Test
+	public void shouldWriteTheConfigurationFile() throws Exception {
+		File file = new EmbeddedCassandraConfigurationBuilder("another-cassandra.yaml")
+				.withPreset(Preset.LOW_MEMORY_CI).writeTo("target/configurationBuilder");
+		assertThat(file.getName(), is("another-cassandra.yaml"));
+		assertThat(file.exists(), is(true));
+	}
+
+	@Test(expected = CassandraUnitException.class)
+	public void shouldGetAnExceptionBecauseConfigurationFileDoesNotExist() {
+		new EmbeddedCassandraConfigurationBuilder("unknown.yaml").build();
+	}
+
+}
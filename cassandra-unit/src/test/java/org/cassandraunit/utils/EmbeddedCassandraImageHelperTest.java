@@ -0,0 +1,119 @@
+package org.cassandraunit.utils;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.cassandraunit.CQLDataLoader;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.exception.CassandraUnitException;
+import org.junit.Test;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+
+public class EmbeddedCassandraImageHelperTest {
+
+	@Test
+	public void shouldComputeTheSameImageKeyForTheSameConfigurationAndDataSets() {
+		String imageKey = EmbeddedCassandraImageHelper.computeImageKey("cu-cassandra.yaml", "cql/simple.cql");
+		assertThat(EmbeddedCassandraImageHelper.computeImageKey("/cu-cassandra.yaml", "/cql/simple.cql"), is(imageKey));
+	}
+
+	@Test
+	public void shouldKeepImagesInTheBuildDirectoryByDefault() {
+		File image = EmbeddedCassandraImageHelper.getImageFile(EmbeddedCassandraImageHelper.DEFAULT_IMAGES_DIR, "key");
+		assertThat(image.getAbsolutePath(), startsWith(new File("target").getAbsolutePath() + File.separator));
+	}
+
+	@Test
+	public void shouldComputeAnotherImageKeyForOtherDataSets() {
+		String imageKey = EmbeddedCassandraImageHelper.computeImageKey("cu-cassandra.yaml", "cql/simple.cql");
+		assertThat(EmbeddedCassandraImageHelper.computeImageKey("cu-cassandra.yaml", "cql/data.cql"), not(is(imageKey)));
+		assertThat(EmbeddedCassandraImageHelper.computeImageKey("another-cassandra.yaml", "cql/simple.cql"), not(is(imageKey)));
+	}
+
+	@Test(expected = CassandraUnitException.class)
+	public void shouldGetAnExceptionBecauseDataSetDoesNotExist() {
+		EmbeddedCassandraImageHelper.computeImageKey("cu-cassandra.yaml", "cql/unknownDataSet.cql");
+	}
+
+	@Test
+	public void shouldBootAgainFromASavedImage() throws Exception {
+		File imagesDir = new File("target/images");
+		String imageKey = EmbeddedCassandraImageHelper.computeImageKey("cu-cassandra.yaml", "cql/simple.cql");
+		FileUtils.deleteQuietly(imagesDir);
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		assertThat(loadAndCountRows(true), is(3));
+		EmbeddedCassandraServerHelper.saveImage(imagesDir.getPath(), imageKey);
+		EmbeddedCassandraServerHelper.stopEmbeddedCassandra();
+		try {
+			EmbeddedCassandraServerHelper.startEmbeddedCassandraFromImage("cu-cassandra.yaml",
+					EmbeddedCassandraServerHelper.DEFAULT_TMP_DIR, imagesDir.getPath(), imageKey);
+			assertThat(loadAndCountRows(false), is(3));
+		} finally {
+			EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		}
+
+		/* the embedded cassandra of this JVM is only restarted, the image is unpacked as a new node would */
+		File restoredDir = new File("target/restoredImage");
+		FileUtils.deleteQuietly(restoredDir);
+		EmbeddedCassandraImageHelper.restoreImage(EmbeddedCassandraImageHelper.getImageFile(imagesDir.getPath(), imageKey),
+				new String[] { restoredDir.getPath() });
+		File[] tableDirectories = new File(restoredDir, "imagekeyspace").listFiles();
+		assertThat(tableDirectories.length, is(1));
+		assertThat(containsDataFile(tableDirectories[0]), is(true));
+		assertThat(new File(restoredDir, "system/schema_keyspaces").isDirectory(), is(true));
+	}
+
+	@Test
+	public void shouldNotRestoreImageEntriesOutsideOfTheDataDirectories() throws Exception {
+		File image = new File("target/images/zipSlip.zip");
+		image.getParentFile().mkdirs();
+		ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(image));
+		zip.putNextEntry(new ZipEntry("data/0/../../zipSlip.txt"));
+		zip.write("outside".getBytes("UTF-8"));
+		zip.closeEntry();
+		zip.close();
+
+		File restoredDir = new File("target/restoredImage/data");
+		try {
+			EmbeddedCassandraImageHelper.restoreImage(image, new String[] { restoredDir.getPath() });
+			fail("Entry outside of the data directories should be rejected");
+		} catch (IOException e) {
+			assertThat(new File("target/zipSlip.txt").exists(), is(false));
+		}
+	}
+
+	private static int loadAndCountRows(boolean load) {
+		Cluster cluster = Cluster.builder().addContactPoints("127.0.0.1").withPort(9142).build();
+		try {
+			Session session = cluster.connect();
+			if (load) {
+				new CQLDataLoader(session).load(new ClassPathCQLDataSet("cql/simple.cql", "imagekeyspace"));
+			}
+			return session.execute("SELECT * FROM imagekeyspace.testCQLTable").all().size();
+		} finally {
+			cluster.close();
+		}
+	}
+
+	private static boolean containsDataFile(File tableDirectory) {
+		for (String fileName : tableDirectory.list()) {
+			if (fileName.endsWith("-Data.db")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
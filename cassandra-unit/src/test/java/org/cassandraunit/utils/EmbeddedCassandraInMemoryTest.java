@@ -0,0 +1,50 @@
+package org.cassandraunit.utils;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Session;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.config.Schema;
+import org.cassandraunit.CQLDataLoader;
+import org.cassandraunit.DataLoader;
+import org.cassandraunit.dataset.cql.ClassPathCQLDataSet;
+import org.cassandraunit.dataset.json.ClassPathJsonDataSet;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Run in a JVM of its own (see the surefire configuration), as the storage of a node can't be moved once launched.
+ */
+public class EmbeddedCassandraInMemoryTest {
+
+    private static final String RAM_DIR = "target/ramDir";
+
+    @Test
+    public void shouldPutStorageDirectoriesInMemoryAndLoadWithoutCommitlog() throws Exception {
+        new File(RAM_DIR).mkdirs();
+        EmbeddedCassandraServerHelper.startEmbeddedCassandraInMemory(EmbeddedCassandraServerHelper.DEFAULT_CASSANDRA_YML_FILE,
+                EmbeddedCassandraServerHelper.DEFAULT_TMP_DIR, RAM_DIR);
+
+        String ramDir = new File(RAM_DIR).getAbsolutePath();
+        assertThat(DatabaseDescriptor.getAllDataFileLocations()[0], startsWith(ramDir));
+        assertThat(DatabaseDescriptor.getCommitLogLocation(), startsWith(ramDir));
+        assertThat(DatabaseDescriptor.getSavedCachesLocation(), startsWith(ramDir));
+
+        Cluster cluster = Cluster.builder().addContactPoints("127.0.0.1").withPort(9142).build();
+        try {
+            Session session = cluster.connect();
+            new CQLDataLoader(session).load(new ClassPathCQLDataSet("cql/simple.cql", "inmemorykeyspace"));
+            assertThat(session.execute("SELECT * FROM testCQLTable").all().size(), is(3));
+            assertThat(Schema.instance.getKSMetaData("inmemorykeyspace").durableWrites, is(false));
+        } finally {
+            cluster.close();
+        }
+
+        new DataLoader("TestCluster", "localhost:9171").load(new ClassPathJsonDataSet("json/dataSetWithSecondaryIndexAndRows.json"));
+        assertThat(Schema.instance.getKSMetaData("deferredIndexKeyspace").durableWrites, is(false));
+    }
+}
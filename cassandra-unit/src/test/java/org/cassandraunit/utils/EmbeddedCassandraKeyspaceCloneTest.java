@@ -0,0 +1,63 @@
+package org.cassandraunit.utils;
+
+import com.datastax.driver.core.Session;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EmbeddedCassandraKeyspaceCloneTest {
+
+    private static Session session;
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+        session = CQLSessionRegistry.acquire("localhost", 9142);
+        session.execute("DROP KEYSPACE IF EXISTS clonesource");
+        session.execute("CREATE KEYSPACE clonesource WITH replication={'class' : 'SimpleStrategy', 'replication_factor':1}");
+        session.execute("CREATE TABLE clonesource.users (id int PRIMARY KEY, name varchar, city varchar)");
+        session.execute("CREATE INDEX users_city ON clonesource.users (city)");
+        session.execute("CREATE TABLE clonesource.visits (id int PRIMARY KEY, count counter)");
+        for (int i = 0; i < 10; i++) {
+            session.execute("INSERT INTO clonesource.users (id, name, city) VALUES (" + i + ", 'user" + i + "', '"
+                    + (i % 2 == 0 ? "Paris" : "Lyon") + "')");
+            session.execute("UPDATE clonesource.visits SET count = count + " + i + " WHERE id = " + i);
+        }
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        CQLSessionRegistry.release(session);
+    }
+
+    @Test
+    public void shouldCloneSchemaAndData() {
+        EmbeddedCassandraServerHelper.cloneKeyspace("clonesource", "clonetarget");
+        assertThat(session.execute("SELECT * FROM clonetarget.users").all().size(), is(10));
+        assertThat(session.execute("SELECT * FROM clonetarget.users WHERE city = 'Paris'").all().size(), is(5));
+        assertThat(session.execute("SELECT count FROM clonetarget.visits WHERE id = 7").one().getLong("count"), is(7L));
+    }
+
+    @Test
+    public void shouldNotShareWritesWithTheSource() {
+        EmbeddedCassandraServerHelper.cloneKeyspace("clonesource", "clonewritten");
+        session.execute("INSERT INTO clonewritten.users (id, name, city) VALUES (10, 'user10', 'Paris')");
+        session.execute("DELETE FROM clonewritten.users WHERE id = 0");
+        session.execute("UPDATE clonewritten.visits SET count = count + 1 WHERE id = 7");
+        EmbeddedCassandraServerHelper.flush("clonewritten");
+
+        assertThat(session.execute("SELECT * FROM clonewritten.users").all().size(), is(10));
+        assertThat(session.execute("SELECT count FROM clonewritten.visits WHERE id = 7").one().getLong("count"), is(8L));
+        assertThat(session.execute("SELECT * FROM clonesource.users").all().size(), is(10));
+        assertThat(session.execute("SELECT * FROM clonesource.users WHERE id = 0").all().size(), is(1));
+        assertThat(session.execute("SELECT count FROM clonesource.visits WHERE id = 7").one().getLong("count"), is(7L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCloneIntoAnExistingKeyspace() {
+        EmbeddedCassandraServerHelper.cloneKeyspace("clonesource", "system");
+    }
+}
@@ -7,9 +7,12 @@ import me.prettyprint.hector.api.factory.HFactory;
 import org.junit.Test;
 
 import java.util.Random;
+import java.util.concurrent.Future;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 /**
@@ -29,6 +32,47 @@ public class EmbeddedCassandraServerHelperTest {
         EmbeddedCassandraServerHelper.cleanEmbeddedCassandra();
 	}
 
+	@Test
+	public void shouldStopAndRestartAnEmbeddedCassandra() throws Exception {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		assertThat(EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted(), is(true));
+		EmbeddedCassandraServerHelper.stopEmbeddedCassandra();
+		assertThat(EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted(), is(false));
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		assertThat(EmbeddedCassandraServerHelper.isEmbeddedCassandraStarted(), is(true));
+		testIfTheEmbeddedCassandraServerIsUpOnHost("localhost:9171");
+	}
+
+	@Test
+	public void shouldKeepTheRunningConfigurationWhenAskedForAnotherOne() throws Exception {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra("other-ports-cassandra.yaml");
+		testIfTheEmbeddedCassandraServerIsUpOnHost("localhost:9171");
+	}
+
+	@Test
+	public void shouldRestartAnEmbeddedCassandraWithAnotherConfiguration() throws Exception {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		EmbeddedCassandraServerHelper.stopEmbeddedCassandra();
+		try {
+			EmbeddedCassandraServerHelper.startEmbeddedCassandra("other-ports-cassandra.yaml");
+			testIfTheEmbeddedCassandraServerIsUpOnHost("localhost:9191");
+		} finally {
+			EmbeddedCassandraServerHelper.stopEmbeddedCassandra();
+			EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		}
+		testIfTheEmbeddedCassandraServerIsUpOnHost("localhost:9171");
+	}
+
+	@Test
+	public void shouldWarmupAnEmbeddedCassandraInBackground() throws Exception {
+		EmbeddedCassandraServerHelper.startEmbeddedCassandra();
+		Future<Integer> warmup = EmbeddedCassandraServerHelper.warmupInBackground(100);
+		assertThat(warmup.get(), greaterThan(100));
+		Cluster cluster = HFactory.getOrCreateCluster("TestCluster", new CassandraHostConfigurator("localhost:9171"));
+		assertThat(cluster.describeKeyspace("cassandra_unit_warmup"), nullValue());
+	}
+
 	private void testIfTheEmbeddedCassandraServerIsUpOnHost(String hostAndPort) {
         Random random = new Random();
 		Cluster cluster = HFactory.getOrCreateCluster("TestCluster" + random.nextInt(), new CassandraHostConfigurator(hostAndPort));